@@ -0,0 +1,141 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samaxes.filter.CacheFilter;
+import com.samaxes.filter.HeaderSuppressionFilter;
+import com.samaxes.filter.NoCacheFilter;
+import com.samaxes.filter.NoETagFilter;
+
+/**
+ * <p>
+ * Measures the cost of a request going through the filters, in front of a resource writing a 4 KB body.
+ * </p>
+ * <ul>
+ * <li><code>none</code>: the resource alone, the baseline of the other chains.</li>
+ * <li><code>cache</code>: {@link CacheFilter} with a single policy.</li>
+ * <li><code>cache-rules</code>: {@link CacheFilter} selecting the policy from a table of rules.</li>
+ * <li><code>cache-metrics</code>: {@link CacheFilter} collecting its statistics, without latency sampling.</li>
+ * <li><code>no-cache</code>: {@link NoCacheFilter}.</li>
+ * <li><code>no-etag</code>: {@link NoETagFilter}.</li>
+ * <li><code>header-suppression</code>: {@link HeaderSuppressionFilter} removing the {@code ETag} and {@code Pragma}
+ * headers.</li>
+ * <li><code>stacked</code>: {@link NoETagFilter} followed by {@link CacheFilter}, as usually mapped to the static
+ * resources.</li>
+ * </ul>
+ * <p>
+ * Run with the GC profiler ({@code -prof gc}) to get the allocations per invocation ({@code gc.alloc.rate.norm}).
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final String RULES = "/img/*  expiration=2592000\n"
+            + "*.css   expiration=604800; vary=Accept-Encoding\n"
+            + "*.js    expiration=216000; private=true\n";
+
+    @Param({ "none", "cache", "cache-rules", "cache-metrics", "no-cache", "no-etag", "header-suppression",
+            "stacked" })
+    private String chain;
+
+    private StubHttpServletRequest request;
+
+    private StubHttpServletResponse response;
+
+    private StubFilterChain filterChain;
+
+    @Setup
+    public void setUp() throws ServletException {
+        byte[] body = new byte[4096];
+        Arrays.fill(body, (byte) 'a');
+        request = new StubHttpServletRequest("/css/style.css", null).header("Accept-Encoding", "gzip, deflate");
+        response = new StubHttpServletResponse();
+
+        if ("none".equals(chain)) {
+            filterChain = new StubFilterChain(body);
+        } else if ("cache".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new CacheFilter(), new StubFilterConfig(chain).param(
+                    "expiration", "604800").param("vary", "Accept-Encoding")));
+        } else if ("cache-rules".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new CacheFilter(), new StubFilterConfig(chain).param(
+                    "expiration", "3600").param("rules", RULES)));
+        } else if ("cache-metrics".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new CacheFilter(), new StubFilterConfig(chain).param(
+                    "expiration", "604800").param("vary", "Accept-Encoding").param("metrics", "true")));
+        } else if ("no-cache".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new NoCacheFilter(), new StubFilterConfig(chain)));
+        } else if ("no-etag".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new NoETagFilter(), new StubFilterConfig(chain)));
+        } else if ("header-suppression".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new HeaderSuppressionFilter(), new StubFilterConfig(chain)
+                    .param("headers", "ETag, Pragma")));
+        } else if ("stacked".equals(chain)) {
+            filterChain = new StubFilterChain(body, init(new NoETagFilter(), new StubFilterConfig("no-etag")), init(
+                    new CacheFilter(), new StubFilterConfig("cache").param("expiration", "604800").param("vary",
+                            "Accept-Encoding")));
+        } else {
+            throw new IllegalArgumentException("Unknown chain " + chain);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        filterChain.destroy();
+    }
+
+    @Benchmark
+    public StubHttpServletResponse doFilter() throws IOException, ServletException {
+        response.reset();
+        filterChain.run(request, response);
+        return response;
+    }
+
+    private static Filter init(Filter filter, StubFilterConfig filterConfig) throws ServletException {
+        filter.init(filterConfig);
+        return filter;
+    }
+}
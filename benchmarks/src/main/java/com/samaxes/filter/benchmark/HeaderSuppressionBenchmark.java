@@ -0,0 +1,144 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.samaxes.filter.util.HeaderNameSet;
+import com.samaxes.filter.util.HeaderSuppressionResponseWrapper;
+
+/**
+ * <p>
+ * Measures the cost of the response wrapper suppressing headers, for a response setting the headers of a typical
+ * static resource, eight of them, whatever the wrapper drops.
+ * </p>
+ * <ul>
+ * <li><code>none</code>: the headers set on the response without wrapper, the baseline of the other wrappers.</li>
+ * <li><code>anonymous</code>: an anonymous wrapper comparing each name ignoring case with every suppressed header, as
+ * {@code NoETagFilter} and {@code CacheFilter} did before {@link HeaderSuppressionResponseWrapper}.</li>
+ * <li><code>suppression</code>: {@link HeaderSuppressionResponseWrapper}, looking the names up in a
+ * {@link HeaderNameSet}.</li>
+ * </ul>
+ * <p>
+ * The {@code suppressed} parameter is the number of suppressed headers. Run with the GC profiler ({@code -prof gc}) to
+ * get the allocations per invocation ({@code gc.alloc.rate.norm}).
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderSuppressionBenchmark {
+
+    private static final String[] SUPPRESSIBLE = { "ETag", "Pragma", "X-Powered-By", "Server", "X-AspNet-Version",
+            "X-Runtime", "Via", "X-Generator" };
+
+    private static final String LAST_MODIFIED = "Thu, 01 Jan 2015 00:00:00 GMT";
+
+    @Param({ "none", "anonymous", "suppression" })
+    private String wrapper;
+
+    @Param({ "1", "4", "8" })
+    private int suppressed;
+
+    private String[] names;
+
+    private HeaderNameSet nameSet;
+
+    private StubHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        names = new String[suppressed];
+        System.arraycopy(SUPPRESSIBLE, 0, names, 0, suppressed);
+        nameSet = new HeaderNameSet(names);
+        response = new StubHttpServletResponse();
+    }
+
+    @Benchmark
+    public StubHttpServletResponse setHeaders() {
+        response.reset();
+        HttpServletResponse target;
+        if ("anonymous".equals(wrapper)) {
+            target = anonymousWrapper(response, names);
+        } else if ("suppression".equals(wrapper)) {
+            target = new HeaderSuppressionResponseWrapper(response, nameSet, null);
+        } else {
+            target = response;
+        }
+
+        target.setHeader("Content-Type", "text/css");
+        target.setIntHeader("Content-Length", 4096);
+        target.setDateHeader("Date", 1420070400000L);
+        target.setHeader("ETag", "W/\"4096-1420070400000\"");
+        target.setHeader("Last-Modified", LAST_MODIFIED);
+        target.setHeader("Pragma", "no-cache");
+        target.addHeader("Server", "Apache-Coyote/1.1");
+        target.addHeader("X-Powered-By", "Servlet/3.0");
+        return response;
+    }
+
+    private static HttpServletResponse anonymousWrapper(HttpServletResponse response, final String[] names) {
+        return new HttpServletResponseWrapper(response) {
+
+            @Override
+            public void setHeader(String name, String value) {
+                if (!isSuppressed(name)) {
+                    super.setHeader(name, value);
+                }
+            }
+
+            @Override
+            public void addHeader(String name, String value) {
+                if (!isSuppressed(name)) {
+                    super.addHeader(name, value);
+                }
+            }
+
+            private boolean isSuppressed(String name) {
+                for (String suppressedName : names) {
+                    if (suppressedName.equalsIgnoreCase(name)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
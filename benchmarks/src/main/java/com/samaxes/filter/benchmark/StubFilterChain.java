@@ -0,0 +1,101 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.benchmark;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * Filter chain running a stack of filters in front of a resource that behaves like a container default servlet: it sets
+ * the {@code Content-Type}, {@code ETag}, {@code Last-Modified} and {@code Pragma} headers and writes a static body.
+ * </p>
+ * <p>
+ * The chain is reusable but not thread safe: each benchmark thread owns its chain.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StubFilterChain implements FilterChain {
+
+    private static final String LAST_MODIFIED = "Thu, 01 Jan 2015 00:00:00 GMT";
+
+    private final Filter[] filters;
+
+    private final byte[] body;
+
+    private int position;
+
+    /**
+     * Constructs a filter chain.
+     *
+     * @param body the body written by the resource
+     * @param filters the filters, in invocation order
+     */
+    public StubFilterChain(byte[] body, Filter... filters) {
+        this.body = body;
+        this.filters = filters;
+    }
+
+    /**
+     * Runs the whole chain for a request.
+     *
+     * @param request the request
+     * @param response the response
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a filter fails
+     */
+    public void run(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        position = 0;
+        doFilter(request, response);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        if (position < filters.length) {
+            filters[position++].doFilter(request, response, this);
+            return;
+        }
+
+        HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+        httpServletResponse.setContentType("text/css");
+        httpServletResponse.setHeader("ETag", "W/\"4096-1420070400000\"");
+        httpServletResponse.setHeader("Last-Modified", LAST_MODIFIED);
+        httpServletResponse.setHeader("Pragma", "no-cache");
+        ServletOutputStream outputStream = httpServletResponse.getOutputStream();
+        outputStream.write(body);
+    }
+
+    /**
+     * Destroys the filters of the chain.
+     */
+    public void destroy() {
+        for (Filter filter : filters) {
+            filter.destroy();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.benchmark;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+
+/**
+ * <p>
+ * Filter configuration holding the initialization parameters of a filter, without a Servlet context.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StubFilterConfig implements FilterConfig {
+
+    private final String filterName;
+
+    private final Map<String, String> initParameters = new HashMap<String, String>();
+
+    /**
+     * Constructs a filter configuration.
+     *
+     * @param filterName the filter name
+     */
+    public StubFilterConfig(String filterName) {
+        this.filterName = filterName;
+    }
+
+    /**
+     * Sets an initialization parameter.
+     *
+     * @param name the parameter name
+     * @param value the parameter value
+     * @return this configuration
+     */
+    public StubFilterConfig param(String name, String value) {
+        initParameters.put(name, value);
+        return this;
+    }
+
+    @Override
+    public String getFilterName() {
+        return filterName;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return null;
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.benchmark;
+
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * In-memory response recording the status and headers, and counting the body bytes without keeping them.
+ * </p>
+ * <p>
+ * The response is meant to be {@link #reset() reset} and reused by a single thread, so that the benchmarks only
+ * measure the allocations of the filters.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StubHttpServletResponse implements HttpServletResponse {
+
+    private final List<String> headerNames = new ArrayList<String>();
+
+    private final List<String> headerValues = new ArrayList<String>();
+
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+
+    private final PrintWriter writer;
+
+    private int status = SC_OK;
+
+    private String contentType;
+
+    private boolean committed;
+
+    /**
+     * Constructs an empty response.
+     */
+    public StubHttpServletResponse() {
+        try {
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, "ISO-8859-1"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the number of body bytes written since the last reset.
+     *
+     * @return the body size
+     */
+    public long getBodySize() {
+        writer.flush();
+        return outputStream.count;
+    }
+
+    @Override
+    public void reset() {
+        writer.flush();
+        headerNames.clear();
+        headerValues.clear();
+        outputStream.count = 0L;
+        status = SC_OK;
+        contentType = null;
+        committed = false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        writer.flush();
+        outputStream.count = 0L;
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : headerValues.get(index);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < headerNames.size(); i++) {
+            if (headerNames.get(i).equalsIgnoreCase(name)) {
+                values.add(headerValues.get(i));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<String>(headerNames);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        int index = indexOf(name);
+        if (index < 0) {
+            addHeader(name, value);
+        } else {
+            headerValues.set(index, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        headerNames.add(name);
+        headerValues.add(value);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < headerNames.size(); i++) {
+            if (headerNames.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        status = sc;
+        committed = true;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        setHeader("Location", location);
+        sendError(SC_FOUND);
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        contentType = type;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "ISO-8859-1";
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        committed = true;
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        committed = true;
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        writer.flush();
+        committed = true;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return 8192;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.ENGLISH;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        addHeader("Set-Cookie", cookie.getName() + "=" + cookie.getValue());
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+        return url;
+    }
+
+    /**
+     * Output stream discarding the bytes written to it.
+     */
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -19,24 +19,49 @@
 package com.samaxes.filter;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpServletResponseWrapper;
 
-import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.CachePolicy;
+import com.samaxes.filter.util.CachePolicyManager;
+import com.samaxes.filter.util.CachePolicySnapshot;
+import com.samaxes.filter.util.CachePolicyTable;
 import com.samaxes.filter.util.Cacheability;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.FingerprintScanner;
 import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.HeaderNameSet;
+import com.samaxes.filter.util.HeaderSuppressionResponseWrapper;
+import com.samaxes.filter.util.PreloadHints;
+import com.samaxes.filter.util.ResponseCacheProcessor;
 
 /**
  * <p>
  * Filter allowing to enable browser caching.
  * </p>
+ * <p>
+ * Asynchronous requests are supported ({@code &lt;async-supported&gt;true&lt;/async-supported&gt;}): the headers set
+ * once the servlet has called {@code startAsync()}, including through {@code AsyncContext.getResponse()}, still go
+ * through the filter, and media type rules are applied when the content type is set on the asynchronous thread. Map the
+ * filter to the {@code ASYNC} dispatcher as well if the servlet calls {@code AsyncContext.dispatch()}, so that the
+ * dispatch keeps the policy of the initial request.
+ * </p>
+ * <p>
+ * The cache policies can be changed without redeploying the application, from a {@code policy-file} or through JMX
+ * when the filter is {@code reloadable}. The new policies replace the current ones at once, and apply from the next
+ * request on; responses already kept by the {@code store} keep the policy they were stored with until they expire.
+ * </p>
  * <table summary="Filter options" border="1">
  * <tr>
  * <th>Option</th>
@@ -95,6 +120,303 @@ import com.samaxes.filter.util.HTTPCacheHeader;
  * result in cache corruption: <a href="http://www.subbu.org/blog/2007/12/vary-header-for-restful-applications">Vary
  * Header for RESTful Applications</a>.</td>
  * </tr>
+ * <tr>
+ * <td>{@code vary-encodings}</td>
+ * <td>No</td>
+ * <td>{@code gzip}</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the content codings the application produces, in order of preference. When the responses
+ * vary on {@code Accept-Encoding}, the responses kept by the {@code store} are keyed on the preferred coding the
+ * request accepts, or {@code identity}, instead of the raw header value, so that a handful of variants serve every
+ * client. List every coding the application may choose, e.g. {@code br, gzip}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary-languages}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the languages the application produces, the first one being the default. When set and the
+ * responses vary on {@code Accept-Language}, the responses kept by the {@code store} are keyed on the preferred
+ * language the request accepts ({@code en} matching {@code en-US} and the other way around), or the default one,
+ * instead of the raw header value.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code immutable}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Cache directive to indicate that the response will not be updated while it is fresh, so that clients do not
+ * send conditional requests for it, even when the user reloads the page.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code s-maxage}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Cache directive to set an expiration time, in seconds, for shared caches (proxies and CDNs) only, overriding
+ * {@code expiration} for them.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code stale-while-revalidate}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Cache directive allowing caches to serve the response for the given number of seconds after it becomes stale,
+ * while they revalidate it in the background. With a {@code store} and {@code background-refresh}, the filter serves
+ * its stored responses the same way, and each stale hit that starts a refresh keeps the connection of its client busy,
+ * delaying the next request the client sends on it, until the refresh completes or {@code coalesce-timeout}
+ * milliseconds pass.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code stale-if-error}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Cache directive allowing caches to serve the response for the given number of seconds after it becomes stale,
+ * when the origin server answers with an error or cannot be reached.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code no-transform}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Cache directive forbidding intermediaries from transforming the payload, e.g. to recompress images.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code fingerprint}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether static assets with a content fingerprint in their file name (e.g. {@code app.3f9a2c.js}) are cached
+ * as {@code immutable} for one year when no URL rule matches them. A fingerprint is a token of at least six
+ * hexadecimal characters, mixing letters and digits, delimited by {@code .}, {@code -} or {@code _}, and followed by
+ * the extension of a style sheet, script, font, image or media file. The cacheability and {@code Vary} header of the
+ * default policy are kept.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code preload}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the fingerprinted style sheets, scripts and fonts requested by each page are learned from their
+ * {@code Referer} header and announced, when a browser navigates to the page again, in a {@code Link} header with
+ * {@code rel=preload} added to the cacheable responses. The filter must be mapped to both the pages and their
+ * assets.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code preload-links}</td>
+ * <td>No</td>
+ * <td>{@code 4}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum number of assets preloaded by a page, the first ones it requests. An asset not requested for an hour
+ * is replaced by the next new one.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code preload-pages}</td>
+ * <td>No</td>
+ * <td>{@code 1000}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum number of pages whose preloaded assets are kept in memory.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code early-hints}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code preload}, whether the {@code Link} header is also sent before the response as
+ * {@code 103 Early Hints}, so that the browser fetches the assets while the page is generated. It requires a
+ * container whose response provides a {@code sendEarlyHints()} method, and is ignored otherwise. Some HTTP/1.1
+ * clients do not support informational responses.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code rules}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Table of policies selected by URL pattern, one rule per line, allowing a single filter to serve resources with
+ * different cache directives. A rule is a Servlet URL pattern ({@code /path}, {@code /path/*} or {@code *.extension})
+ * followed by the cache directive parameters ({@code expiration}, {@code private}, {@code must-revalidate},
+ * {@code vary}, {@code vary-encodings}, {@code vary-languages}, {@code immutable}, {@code s-maxage},
+ * {@code stale-while-revalidate}, {@code stale-if-error} and {@code no-transform}) overriding the filter ones,
+ * separated by semicolons. An exact path wins over the longest matching prefix, which wins over an extension. Rules can
+ * also select a policy by media type ({@code type/subtype} or {@code type/*}) for the requests matching no URL pattern,
+ * in which case the cache headers are set once the response content type is known, without buffering the body;
+ * responses whose policy depends on their media type are not kept by the {@code store}. Requests matching no rule use
+ * the filter parameters. See the sample configuration below.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code store}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Keeps the complete responses on the server side, and serves them without running the filter chain while they
+ * are fresh. Only public responses are stored, see {@link ResponseCacheFilter} for the storage rules and for purging
+ * responses by path, path prefix or {@code Surrogate-Key} and {@code Cache-Tag} tags.
+ * <ul>
+ * <li><code>heap</code> stores the response bodies in byte arrays on the Java heap.</li>
+ * <li><code>off-heap</code> stores the response bodies in direct memory, outside of the Java heap, so that large caches
+ * do not lengthen garbage collection pauses.</li>
+ * <li><code>disk</code> stores the responses in memory mapped segment files on the local disk, so that they survive a
+ * restart: the responses still fresh are served again as soon as the segments left by the previous run are
+ * scanned.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-size}</td>
+ * <td>No</td>
+ * <td>{@code 16777216}, {@code 268435456} with the {@code disk} store</td>
+ * <td>2.3.2</td>
+ * <td>Maximum total size, in bytes, of the response bodies kept by the {@code store}. With the {@code off-heap} store
+ * the JVM maximum direct memory ({@code -XX:MaxDirectMemorySize}) must be large enough for it.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code store-directory}</td>
+ * <td>No</td>
+ * <td>{@code <filter-name>-store} in the web application temporary directory</td>
+ * <td>2.3.2</td>
+ * <td>Directory of the segment files of the {@code disk} store, which must not be shared with another filter.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code segment-size}</td>
+ * <td>No</td>
+ * <td>{@code 16777216}</td>
+ * <td>2.3.2</td>
+ * <td>Size, in bytes, of the segment files of the {@code disk} store. Larger responses are kept in memory only.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code coalesce-timeout}</td>
+ * <td>No</td>
+ * <td>{@code 10000}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum time, in milliseconds, a request waits for an identical in-flight request to fill the {@code store}
+ * before running the filter chain itself.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Broadcasts the purges of the {@code store} to the other nodes of a cluster, in batches, so that a response purged
+ * on one node is purged on every node.
+ * <ul>
+ * <li><code>local</code> broadcasts them to the filters of the same group within the JVM.</li>
+ * <li><code>multicast</code> broadcasts them over UDP multicast on the local network, looped back to the other
+ * applications of the same host.</li>
+ * <li>The name of a class implementing {@link com.samaxes.filter.util.InvalidationTransport InvalidationTransport},
+ * with a public no-argument constructor, broadcasts them through any other transport.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-group}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Group of nodes exchanging invalidations: a name for {@code local} ({@code default} by default), a multicast
+ * {@code address:port} for {@code multicast} ({@code 239.255.27.1:45566} by default).</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-delay}</td>
+ * <td>No</td>
+ * <td>{@code 100}</td>
+ * <td>2.3.2</td>
+ * <td>Time, in milliseconds, purges are collected before they are broadcast in a single batch, sending duplicate and
+ * overlapping purges once.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-secret}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Secret shared by the nodes of a {@code multicast} group. Without it, any host able to send to the group can purge
+ * the cache of every node; with it, the datagrams are authenticated with an HMAC-SHA256 and the forged ones are
+ * dropped.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code background-refresh}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether stale responses are served right away, for the {@code stale-while-revalidate} time if set or until they
+ * are evicted otherwise, while a single request refreshes them in the background. The refresh dispatches the request
+ * again asynchronously, so the filter and the servlet must support asynchronous processing
+ * ({@code &lt;async-supported&gt;true&lt;/async-supported&gt;}); the filters after this one only take part in the
+ * refresh if they are also mapped to the {@code ASYNC} dispatcher. Other requests wait for the filter chain as
+ * usual. The refreshing client already has the stale response, but its connection, and any request it sends next on
+ * it, stays busy until the refresh completes, which is abandoned after {@code coalesce-timeout} milliseconds.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-refreshes}</td>
+ * <td>No</td>
+ * <td>{@code 16}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum number of background refreshes pending at the same time. Stale responses keep being served when it is
+ * reached, and the next request refreshes them.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Memory of the responses to keep in the {@code store}, taken in 8 KB chunks from a pool and given back once the
+ * response is sent.
+ * <ul>
+ * <li><code>heap</code> allocates the chunks on the Java heap.</li>
+ * <li><code>off-heap</code> allocates the chunks in direct memory, outside of the Java heap.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool-size}</td>
+ * <td>No</td>
+ * <td>{@code 4194304}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of the free chunks kept for reuse. {@code 0} keeps none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code reloadable}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the cache policy parameters ({@code expiration}, {@code private}, {@code must-revalidate}, {@code vary},
+ * {@code vary-encodings}, {@code vary-languages}, {@code immutable}, {@code s-maxage}, {@code stale-while-revalidate},
+ * {@code stale-if-error}, {@code no-transform}, {@code rules} and {@code fingerprint}) can be changed at runtime
+ * through the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>,component=policy}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code policy-file}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Path of a properties file whose cache policy parameters override the filter ones. The file is reloaded when it
+ * changes; an invalid file is logged and ignored, the current policies staying in effect.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code policy-check-interval}</td>
+ * <td>No</td>
+ * <td>{@code 5000}</td>
+ * <td>2.3.2</td>
+ * <td>Time, in milliseconds, between two checks of the {@code policy-file} modification date.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests, responses tagged by each policy, suppressed {@code Pragma} headers and
+ * server side cache hits, misses, refreshes and buffer pool utilization) are collected and registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
  * </table>
  * <p>
  * <sup>(1)</sup> If a component is already in the browser's cache and is being re-requested, the browser will pass the
@@ -143,6 +465,29 @@ import com.samaxes.filter.util.HTTPCacheHeader;
  * &lt;/filter&gt;
  * </pre>
  * <p>
+ * Or declare a single filter with a table of rules:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;staticCache&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.CacheFilter&lt;/filter-class&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;expiration&lt;/param-name&gt;
+ *         &lt;param-value&gt;3600&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;rules&lt;/param-name&gt;
+ *         &lt;param-value&gt;
+ *             /img/*  expiration=2592000
+ *             *.css   expiration=604800; vary=Accept-Encoding
+ *             *.js    expiration=216000; private=true
+ *             image/* expiration=2592000
+ *         &lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
  * Map the filter to serve your static resources:
  * </p>
  *
@@ -169,31 +514,55 @@ import com.samaxes.filter.util.HTTPCacheHeader;
  */
 public class CacheFilter implements Filter {
 
-    private long expiration;
+    private static final String CONTENT_TYPE = "Content-Type";
 
-    private Cacheability cacheability;
+    private static final HeaderNameSet PRAGMA_HEADER = new HeaderNameSet(HTTPCacheHeader.PRAGMA.getName());
 
-    private boolean mustRevalidate;
+    /**
+     * Current cache policies, replaced when they are reloaded.
+     */
+    private CachePolicyManager policyManager;
+
+    /**
+     * Server side cache of the complete responses, {@code null} when no {@code store} is configured.
+     */
+    private ResponseCacheProcessor responseCacheProcessor;
+
+    /**
+     * Assets preloaded by the pages, {@code null} when {@code preload} is disabled.
+     */
+    private PreloadHints preloadHints;
 
-    private String vary;
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        policyManager = CachePolicyManager.configure(filterConfig, this);
+        boolean initialized = false;
         try {
-            expiration = Long.valueOf(filterConfig.getInitParameter(CacheConfigParameter.EXPIRATION.getName()));
-        } catch (NumberFormatException e) {
-            throw new ServletException(new StringBuilder("The initialization parameter ")
-                    .append(CacheConfigParameter.EXPIRATION.getName())
-                    .append(" is invalid or is missing for the filter ").append(filterConfig.getFilterName())
-                    .append(".").toString());
-        }
-        cacheability = Boolean.valueOf(filterConfig.getInitParameter(CacheConfigParameter.PRIVATE.getName())) ? Cacheability.PRIVATE
-                : Cacheability.PUBLIC;
-        mustRevalidate = Boolean.valueOf(filterConfig.getInitParameter(CacheConfigParameter.MUST_REVALIDATE.getName()));
-        vary = filterConfig.getInitParameter(CacheConfigParameter.VARY.getName());
+            responseCacheProcessor = ResponseCacheProcessor.configure(filterConfig, null);
+            if (responseCacheProcessor != null) {
+                responseCacheProcessor.register(filterConfig, this);
+            }
+            preloadHints = PreloadHints.configure(filterConfig);
+            metrics = FilterMetrics.configure(filterConfig, this);
+            if (metrics != null) {
+                policyManager.setMetrics(metrics);
+                metrics.setResponseCacheProcessor(responseCacheProcessor);
+            }
+            initialized = true;
+        } finally {
+            if (!initialized) {
+                // The container does not destroy a filter whose initialization failed
+                destroy();
+            }
+        }
     }
 
     /**
@@ -205,41 +574,74 @@ public class CacheFilter implements Filter {
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
-        HttpServletResponse httpServletResponse = (HttpServletResponse) servletResponse;
-        StringBuilder cacheControl = new StringBuilder(cacheability.getValue()).append(", max-age=").append(expiration);
-        if (mustRevalidate) {
-            cacheControl.append(", must-revalidate");
+        if (metrics == null) {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+            return;
         }
 
-        // Set cache directives
-        httpServletResponse.setHeader(HTTPCacheHeader.CACHE_CONTROL.getName(), cacheControl.toString());
-        httpServletResponse.setDateHeader(HTTPCacheHeader.EXPIRES.getName(), System.currentTimeMillis() + expiration
-                * 1000L);
+        long start = metrics.start();
+        try {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
 
-        // Set Vary field
-        if (vary != null && !vary.isEmpty()) {
-            httpServletResponse.setHeader(HTTPCacheHeader.VARY.getName(), vary);
-        }
-
-        /*
-         * By default, some servers (e.g. Tomcat) will set headers on any SSL content to deny caching. Omitting the
-         * Pragma header takes care of user-agents implementing HTTP/1.0.
-         */
-        filterChain.doFilter(servletRequest, new HttpServletResponseWrapper(httpServletResponse) {
-            @Override
-            public void addHeader(String name, String value) {
-                if (!HTTPCacheHeader.PRAGMA.getName().equalsIgnoreCase(name)) {
-                    super.addHeader(name, value);
-                }
-            }
+    private void doFilter(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws IOException, ServletException {
+        if (ResponseCacheProcessor.isRefresh(httpServletRequest)) {
+            // The stored response must not carry the cache headers of this filter
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
 
-            @Override
-            public void setHeader(String name, String value) {
-                if (!HTTPCacheHeader.PRAGMA.getName().equalsIgnoreCase(name)) {
-                    super.setHeader(name, value);
-                }
-            }
-        });
+        if (httpServletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(httpServletRequest, this)) {
+            // The headers are already set and the wrappers of the initial request are still in place
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            AsyncRequestWrapper.completeDispatch(httpServletRequest);
+            return;
+        }
+
+        String links = null;
+        if (preloadHints != null) {
+            links = preloadHints.getLinks(httpServletRequest);
+        }
+
+        // A single snapshot per request, so that a reload never mixes old and new policies
+        CachePolicySnapshot policies = policyManager.getSnapshot();
+        CachePolicy defaultPolicy = policies.getDefaultPolicy();
+        CachePolicyTable policyTable = policies.getPolicyTable();
+        String requestURI = httpServletRequest.getRequestURI();
+        CachePolicy policy = policyTable == null ? null : policyTable.match(requestURI);
+        if (policy == null && policies.isFingerprint() && FingerprintScanner.isFingerprinted(requestURI)) {
+            // The content of a fingerprinted URL never changes, clients do not need to revalidate it
+            policy = defaultPolicy.getImmutableVariant();
+        } else if (policyTable == null) {
+            policy = defaultPolicy;
+        } else if (policy == null) {
+            // Media type rules can only be applied once the content type is known
+            policy = policyTable.hasMediaTypeRules() && httpServletResponse.getContentType() == null ? null
+                    : policyTable.lookupMediaType(httpServletResponse.getContentType());
+        }
+
+        if (policy != null) {
+            setCacheHeaders(httpServletResponse, policy, links);
+        }
+
+        CacheResponseWrapper responseWrapper = new CacheResponseWrapper(httpServletRequest, httpServletResponse,
+                policyTable, policy == null ? links : null, policy == null);
+        HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap(httpServletRequest, responseWrapper,
+                responseWrapper, this);
+
+        // Private responses must not be shared between users
+        if (responseCacheProcessor != null && policy != null && policy.getCacheability() == Cacheability.PUBLIC) {
+            responseCacheProcessor.doFilter(requestWrapper, responseWrapper, filterChain, policy);
+        } else {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+        }
+
+        AsyncRequestWrapper.completeAfterChain(requestWrapper, responseWrapper);
     }
 
     /**
@@ -247,5 +649,126 @@ public class CacheFilter implements Filter {
      */
     @Override
     public void destroy() {
+        policyManager.unregister();
+        if (responseCacheProcessor != null) {
+            responseCacheProcessor.destroy();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    private void setCacheHeaders(HttpServletResponse httpServletResponse, CachePolicy policy, String links) {
+        if (metrics != null) {
+            metrics.policyApplied(policy);
+        }
+
+        // Early hints carry the headers set so far, sent before the cache directives
+        if (links != null) {
+            preloadHints.apply(httpServletResponse, links);
+        }
+
+        // Set cache directives
+        httpServletResponse.setHeader(HTTPCacheHeader.CACHE_CONTROL.getName(), policy.getCacheControl());
+        httpServletResponse.setHeader(HTTPCacheHeader.EXPIRES.getName(), policy.getExpires());
+
+        // Set Vary field
+        if (policy.getVary() != null) {
+            httpServletResponse.setHeader(HTTPCacheHeader.VARY.getName(), policy.getVary());
+        }
+    }
+
+    /**
+     * <p>
+     * Response wrapper omitting the {@code Pragma} header. By default, some servers (e.g. Tomcat) will set headers on
+     * any SSL content to deny caching. Omitting the {@code Pragma} header takes care of user-agents implementing
+     * HTTP/1.0.
+     * </p>
+     * <p>
+     * When the policy depends on the content type, the cache headers are set as soon as the content type is set, or
+     * before the body is written if it never is. The body itself is never buffered.
+     * </p>
+     */
+    private final class CacheResponseWrapper extends HeaderSuppressionResponseWrapper implements
+            AsyncRequestWrapper.Completion {
+
+        private final HttpServletRequest request;
+
+        private final CachePolicyTable policyTable;
+
+        private final String links;
+
+        private boolean policyDeferred;
+
+        private CacheResponseWrapper(HttpServletRequest request, HttpServletResponse response,
+                CachePolicyTable policyTable, String links, boolean policyDeferred) {
+            super(response, PRAGMA_HEADER, metrics);
+            this.request = request;
+            this.policyTable = policyTable;
+            this.links = links;
+            this.policyDeferred = policyDeferred;
+        }
+
+        private void applyDeferredPolicy() {
+            applyDeferredPolicy(getContentType());
+        }
+
+        @Override
+        public void complete() {
+            if (!isCommitted()) {
+                applyDeferredPolicy();
+            }
+            if (preloadHints != null) {
+                // Only the assets actually served are learned
+                preloadHints.learn(request, (HttpServletResponse) getResponse());
+            }
+        }
+
+        private void applyDeferredPolicy(String contentType) {
+            if (policyDeferred) {
+                policyDeferred = false;
+                setCacheHeaders((HttpServletResponse) getResponse(), policyTable.lookupMediaType(contentType), links);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            super.setContentType(type);
+            applyDeferredPolicy(type);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            super.addHeader(name, value);
+            if (policyDeferred && CONTENT_TYPE.equalsIgnoreCase(name)) {
+                applyDeferredPolicy(value);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            super.setHeader(name, value);
+            if (policyDeferred && CONTENT_TYPE.equalsIgnoreCase(name)) {
+                applyDeferredPolicy(value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            applyDeferredPolicy();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            applyDeferredPolicy();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            applyDeferredPolicy();
+            super.flushBuffer();
+        }
     }
 }
@@ -0,0 +1,454 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.BufferPool;
+import com.samaxes.filter.util.BufferedResponseWrapper;
+import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.CacheDirective;
+import com.samaxes.filter.util.CacheKeyGenerator;
+import com.samaxes.filter.util.CachedResponse;
+import com.samaxes.filter.util.Cacheability;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.HeapResponseBodyStore;
+import com.samaxes.filter.util.RequestCoalescer;
+import com.samaxes.filter.util.ResponseBody;
+import com.samaxes.filter.util.ResponseBodyStore;
+
+/**
+ * <p>
+ * Filter coalescing identical concurrent {@code GET} requests, so that a burst of requests for a resource that is not
+ * cached, e.g. right after a deployment, runs the filter chain once.
+ * </p>
+ * <p>
+ * Requests are identical when they have the same URI, query string and values of the request headers listed in the
+ * {@code vary} option, normalized like the keys of the responses kept by {@link CacheFilter}. The first request runs
+ * the filter chain while the identical requests arriving before it completes wait, for {@code coalesce-timeout}
+ * milliseconds at most, and get a copy of its status, headers and body. Nothing is kept once the requests waiting for
+ * a response have been answered.
+ * </p>
+ * <p>
+ * Only responses {@link CacheFilter} would treat as public are shared: requests with an {@code Authorization} header,
+ * or a {@code Cookie} header the {@code vary} option does not list, run the filter chain on their own, and when the
+ * response sets a cookie, sends an error or a redirect, has no {@code Cache-Control} header containing {@code public}
+ * or {@code s-maxage}, or has one containing {@code private} or {@code no-store}, the waiting requests run the filter
+ * chain themselves. So do they when the response body exceeds {@code max-size}, in which case it is streamed to its
+ * client rather than held in memory. A response is only copied for the requests waiting for it, if any.
+ * </p>
+ * <p>
+ * Responses of asynchronous servlets are shared when they call {@code AsyncContext.complete()}. Servlets calling
+ * {@code AsyncContext.dispatch()} need the filter to be mapped to the {@code ASYNC} dispatcher as well.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code vary}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of request headers the responses vary on. It should match the {@code Vary} header sent to
+ * the clients, e.g. by {@link CacheFilter}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary-encodings}</td>
+ * <td>No</td>
+ * <td>{@code gzip}</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the content codings the application produces, in order of preference. When the
+ * responses vary on {@code Accept-Encoding}, requests accepting the same preferred coding, or none, are
+ * identical.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary-languages}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the languages the application produces, the first one being the default. When set and
+ * the responses vary on {@code Accept-Language}, requests accepting the same preferred language are identical.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code coalesce-timeout}</td>
+ * <td>No</td>
+ * <td>{@code 10000}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum time, in milliseconds, a request waits for an identical in-flight request before running the filter
+ * chain itself.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-size}</td>
+ * <td>No</td>
+ * <td>{@code 16777216}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of a shared response body. Larger responses are streamed to their client and the
+ * waiting requests run the filter chain themselves. {@code 0} shares none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Memory of the responses of the requests running the filter chain, taken in 8 KB chunks from a pool and given
+ * back once the response is sent.
+ * <ul>
+ * <li><code>heap</code> allocates the chunks on the Java heap.</li>
+ * <li><code>off-heap</code> allocates the chunks in direct memory, outside of the Java heap.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool-size}</td>
+ * <td>No</td>
+ * <td>{@code 4194304}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of the free chunks kept for reuse. {@code 0} keeps none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests, coalesced requests and buffer pool utilization) are collected and
+ * registered as the JMX MBean {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration:</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;coalescing&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.CoalescingFilter&lt;/filter-class&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;vary&lt;/param-name&gt;
+ *         &lt;param-value&gt;Accept-Encoding&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;coalesce-timeout&lt;/param-name&gt;
+ *         &lt;param-value&gt;2000&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to the expensive resources, after the filters setting cache headers:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;coalescing&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;/catalog/*&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CoalescingFilter implements Filter {
+
+    private static final long DEFAULT_COALESCE_TIMEOUT = 10000L;
+
+    private static final long DEFAULT_MAX_SIZE = 16L * 1024L * 1024L;
+
+    private static final String[] NO_TAGS = new String[0];
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    /**
+     * Copies of the shared responses, reclaimed by the garbage collector once the waiting requests are answered.
+     */
+    private final ResponseBodyStore copies = new HeapResponseBodyStore(Long.MAX_VALUE);
+
+    private CacheKeyGenerator keyGenerator;
+
+    private boolean varyCookie;
+
+    private long coalesceTimeout;
+
+    private int captureLimit;
+
+    private BufferPool bufferPool;
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        keyGenerator = CacheKeyGenerator.configure(filterConfig);
+        varyCookie = false;
+        if (keyGenerator.getVary() != null) {
+            for (String header : keyGenerator.getVary().split(",")) {
+                varyCookie |= HTTPCacheHeader.COOKIE.getName().equalsIgnoreCase(header.trim());
+            }
+        }
+        coalesceTimeout = CacheConfigParameter.COALESCE_TIMEOUT.getLongValue(filterConfig, DEFAULT_COALESCE_TIMEOUT);
+        if (coalesceTimeout < 0L) {
+            throw CacheConfigParameter.COALESCE_TIMEOUT.invalid(filterConfig);
+        }
+        long maxSize = CacheConfigParameter.MAX_SIZE.getLongValue(filterConfig, DEFAULT_MAX_SIZE);
+        if (maxSize < 0L) {
+            throw CacheConfigParameter.MAX_SIZE.invalid(filterConfig);
+        }
+        captureLimit = (int) Math.min(maxSize, Integer.MAX_VALUE);
+        bufferPool = BufferPool.configure(filterConfig);
+        metrics = FilterMetrics.configure(filterConfig, this);
+        if (metrics != null) {
+            metrics.setBufferPool(bufferPool);
+        }
+    }
+
+    /**
+     * <p>
+     * Run the filter chain once for identical concurrent requests, and answer them all with its response.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (metrics == null) {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    private void doFilter(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws IOException, ServletException {
+        if (httpServletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(httpServletRequest, this)) {
+            // The response is shared by the wrapper of the initial request
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            AsyncRequestWrapper.completeDispatch(httpServletRequest);
+            return;
+        }
+        String key = isPublic(httpServletRequest) ? keyGenerator.generate(httpServletRequest) : null;
+        if (key == null) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+
+        RequestCoalescer.Flight flight = coalescer.join(key);
+        if (!flight.claim()) {
+            CachedResponse sharedResponse = flight.await(coalesceTimeout);
+            if (sharedResponse == null) {
+                filterChain.doFilter(httpServletRequest, httpServletResponse);
+                return;
+            }
+            sharedResponse.writeTo(httpServletResponse, System.currentTimeMillis());
+            if (metrics != null) {
+                metrics.coalesced();
+            }
+            return;
+        }
+
+        ShareTask shareTask = null;
+        boolean async = false;
+        try {
+            BufferedResponseWrapper responseWrapper = new BufferedResponseWrapper(httpServletResponse, bufferPool,
+                    null, false, captureLimit) {
+
+                @Override
+                protected boolean isCapturing() {
+                    // Streams the responses that cannot be shared anyway
+                    return isShareable(this);
+                }
+            };
+            shareTask = new ShareTask(key, httpServletRequest.getRequestURI().substring(
+                    httpServletRequest.getContextPath().length()), flight, httpServletResponse, responseWrapper);
+            HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap(httpServletRequest, responseWrapper,
+                    shareTask, this);
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            if (requestWrapper.isAsyncStarted()) {
+                // The waiting requests are released on completion, even if the response is never completed normally
+                try {
+                    requestWrapper.getAsyncContext().addListener(shareTask);
+                    async = true;
+                } catch (IllegalStateException e) {
+                    // Already completed
+                }
+            }
+            AsyncRequestWrapper.completeAfterChain(requestWrapper, shareTask);
+        } finally {
+            if (shareTask == null) {
+                coalescer.complete(flight, null);
+            } else if (!async) {
+                shareTask.finish(null);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        bufferPool.clear();
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    /**
+     * Tells if the response to a request may be shared with other clients: credentials and unlisted cookies may
+     * personalize it.
+     */
+    private boolean isPublic(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getHeader(HTTPCacheHeader.AUTHORIZATION.getName()) == null
+                && (varyCookie || request.getHeader(HTTPCacheHeader.COOKIE.getName()) == null);
+    }
+
+    private static boolean isShareable(BufferedResponseWrapper responseWrapper) {
+        if (responseWrapper.isBypassed() || responseWrapper.containsHeader(HTTPCacheHeader.SET_COOKIE.getName())) {
+            return false;
+        }
+        // Only the responses shared caches may store, e.g. marked public by CacheFilter, are copied to other clients
+        String cacheControl = responseWrapper.getRecordedHeader(HTTPCacheHeader.CACHE_CONTROL.getName());
+        return cacheControl != null
+                && (cacheControl.contains(Cacheability.PUBLIC.getValue())
+                        || cacheControl.contains(CacheDirective.S_MAXAGE.getValue()))
+                && !cacheControl.contains(Cacheability.PRIVATE.getValue()) && !cacheControl.contains("no-store");
+    }
+
+    /**
+     * Sends the response of the request running the filter chain once it is complete, which is after the filter chain
+     * returns if the request is processed asynchronously, and releases the requests waiting for it with a copy.
+     */
+    private final class ShareTask implements AsyncRequestWrapper.Completion, AsyncListener {
+
+        private final String key;
+
+        private final String path;
+
+        private final RequestCoalescer.Flight flight;
+
+        private final HttpServletResponse response;
+
+        private final BufferedResponseWrapper responseWrapper;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        ShareTask(String key, String path, RequestCoalescer.Flight flight, HttpServletResponse response,
+                BufferedResponseWrapper responseWrapper) {
+            this.key = key;
+            this.path = path;
+            this.flight = flight;
+            this.response = response;
+            this.responseWrapper = responseWrapper;
+        }
+
+        @Override
+        public void complete() throws IOException {
+            try {
+                if (responseWrapper.isBypassed()) {
+                    return;
+                }
+                if (!responseWrapper.isCaptured()) {
+                    // Already streamed to the client
+                    responseWrapper.flushBuffer();
+                    return;
+                }
+                // The waiting requests are released before the body is written to a possibly slow client
+                finish(flight.hasWaiters() && isShareable(responseWrapper) ? copy() : null);
+                response.setContentLength(responseWrapper.getBodySize());
+                responseWrapper.writeBodyTo(response.getOutputStream());
+            } finally {
+                responseWrapper.release();
+                finish(null);
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+
+        void finish(CachedResponse sharedResponse) {
+            if (finished.compareAndSet(false, true)) {
+                coalescer.complete(flight, sharedResponse);
+            }
+        }
+
+        private CachedResponse copy() throws IOException {
+            ResponseBody body = copies.allocate(responseWrapper.getBodySize());
+            responseWrapper.writeBodyTo(body.getOutputStream());
+            long now = System.currentTimeMillis();
+            return new CachedResponse(key, path, NO_TAGS, responseWrapper.getStatus(),
+                    responseWrapper.getContentType(), responseWrapper.getRecordedHeaders(), body, now, now);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.BufferPool;
+import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.CachedResponse;
+import com.samaxes.filter.util.ChunkedBuffer;
+import com.samaxes.filter.util.CompressionResponseWrapper;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.HeapResponseBodyStore;
+import com.samaxes.filter.util.ResponseBody;
+import com.samaxes.filter.util.ResponseCache;
+
+/**
+ * <p>
+ * Filter compressing the responses with gzip for the clients accepting it.
+ * </p>
+ * <p>
+ * The body is compressed while it is written, without buffering it. Responses of a compressible media type get
+ * {@code Accept-Encoding} added to their {@code Vary} header, including the {@code Vary} header set by
+ * {@link CacheFilter}, whatever the order of the two filters. Strong entity tags of compressed responses get a
+ * {@code -gzip} suffix: map {@link ConditionalRequestFilter} before this filter, or use weak entity tags, so that
+ * conditional requests still match.
+ * </p>
+ * <p>
+ * With a {@code max-size}, compressed {@code 200 OK} responses to {@code GET} requests that are public, e.g. marked so
+ * by {@link CacheFilter}, are kept in a bounded cache for their {@code s-maxage} or {@code max-age} time, so that
+ * repeated requests are served without running the filter chain and compressing them again. Responses setting
+ * cookies, or varying on other request headers than {@code Accept-Encoding}, are not kept. This cache cannot be
+ * purged: a response purged from the {@code store} of a {@link CacheFilter} mapped before this filter is still served
+ * compressed, and stored again, until it expires. Leave it off when the responses are purged.
+ * </p>
+ * <p>
+ * Asynchronous requests are supported ({@code &lt;async-supported&gt;true&lt;/async-supported&gt;}): the body written
+ * after {@code startAsync()} is compressed as well, and the gzip trailer is written when the servlet calls
+ * {@code AsyncContext.complete()}, or when a request dispatched with {@code AsyncContext.dispatch()} returns, provided
+ * the filter is also mapped to the {@code ASYNC} dispatcher.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code mime-types}</td>
+ * <td>No</td>
+ * <td>{@code text/*, application/javascript, application/json, application/xml, image/svg+xml}</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the compressible media types, {@code type/*} matching a whole type.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code min-size}</td>
+ * <td>No</td>
+ * <td>{@code 256}</td>
+ * <td>2.3.2</td>
+ * <td>Minimum size, in bytes, of the responses to compress when their {@code Content-Length} is known in advance.
+ * Smaller responses gain nothing from compression.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-size}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum total size, in bytes, of the compressed responses kept on the Java heap. {@code 0} keeps none. The kept
+ * responses cannot be purged, see above.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Memory of the compressed responses to keep, taken in 8 KB chunks from a pool and given back once the response is
+ * sent.
+ * <ul>
+ * <li><code>heap</code> allocates the chunks on the Java heap.</li>
+ * <li><code>off-heap</code> allocates the chunks in direct memory, outside of the Java heap.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool-size}</td>
+ * <td>No</td>
+ * <td>{@code 4194304}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of the free chunks kept for reuse. {@code 0} keeps none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests and buffer pool utilization) are collected and registered as the JMX
+ * MBean {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration:</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;compression&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.CompressionFilter&lt;/filter-class&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to the resources to compress, after the cache filters:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;cssCache&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;*.css&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ *
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;compression&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;*.css&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CompressionFilter implements Filter {
+
+    private static final String DEFAULT_MIME_TYPES = "text/*, application/javascript, application/json, "
+            + "application/xml, image/svg+xml";
+
+    private static final long DEFAULT_MIN_SIZE = 256L;
+
+    private static final long DEFAULT_MAX_SIZE = 0L;
+
+    private String[] mimeTypes;
+
+    private int minSize;
+
+    /**
+     * Compressed responses, {@code null} when none are kept.
+     */
+    private ResponseCache cache;
+
+    private int captureLimit;
+
+    /**
+     * Pool of the buffers capturing the compressed responses, {@code null} when none are kept.
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        String mimeTypesValue = CacheConfigParameter.MIME_TYPES.getValue(filterConfig);
+        List<String> mimeTypeList = new ArrayList<String>();
+        for (String mimeType : (mimeTypesValue == null ? DEFAULT_MIME_TYPES : mimeTypesValue).split(",")) {
+            if (!mimeType.trim().isEmpty()) {
+                mimeTypeList.add(mimeType.trim().toLowerCase(Locale.ENGLISH));
+            }
+        }
+        mimeTypes = mimeTypeList.toArray(new String[mimeTypeList.size()]);
+
+        long minSizeValue = CacheConfigParameter.MIN_SIZE.getLongValue(filterConfig, DEFAULT_MIN_SIZE);
+        if (minSizeValue < 0L || minSizeValue > Integer.MAX_VALUE) {
+            throw CacheConfigParameter.MIN_SIZE.invalid(filterConfig);
+        }
+        minSize = (int) minSizeValue;
+
+        long maxSize = CacheConfigParameter.MAX_SIZE.getLongValue(filterConfig, DEFAULT_MAX_SIZE);
+        if (maxSize < 0L) {
+            throw CacheConfigParameter.MAX_SIZE.invalid(filterConfig);
+        }
+        if (maxSize > 0L) {
+            cache = new ResponseCache(new HeapResponseBodyStore(maxSize));
+            captureLimit = (int) Math.min(maxSize, Integer.MAX_VALUE);
+            bufferPool = BufferPool.configure(filterConfig);
+        }
+
+        metrics = FilterMetrics.configure(filterConfig, this);
+        if (metrics != null) {
+            metrics.setBufferPool(bufferPool);
+        }
+    }
+
+    /**
+     * <p>
+     * Compress the response, or serve it from the cache of the compressed responses.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (metrics == null) {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    private void doFilter(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws IOException, ServletException {
+        if (httpServletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(httpServletRequest, this)) {
+            // The body keeps being compressed by the wrapper of the initial request
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            AsyncRequestWrapper.completeDispatch(httpServletRequest);
+            return;
+        }
+        // HEAD responses have no body, and an already encoded response must not be encoded twice
+        if ("HEAD".equals(httpServletRequest.getMethod())
+                || httpServletResponse.containsHeader(HTTPCacheHeader.CONTENT_ENCODING.getName())) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+
+        boolean gzipAccepted = acceptsGzip(httpServletRequest.getHeader(HTTPCacheHeader.ACCEPT_ENCODING.getName()));
+        String key = null;
+        if (gzipAccepted && cache != null && "GET".equals(httpServletRequest.getMethod())) {
+            String queryString = httpServletRequest.getQueryString();
+            key = queryString == null ? httpServletRequest.getRequestURI() : new StringBuilder(httpServletRequest
+                    .getRequestURI()).append('?').append(queryString).toString();
+            long now = System.currentTimeMillis();
+            CachedResponse cachedResponse = cache.get(key, now);
+            if (cachedResponse != null) {
+                try {
+                    cachedResponse.writeTo(httpServletResponse, now);
+                } finally {
+                    cachedResponse.release();
+                }
+                return;
+            }
+        }
+
+        final long created = System.currentTimeMillis();
+        final String cacheKey = key;
+        final String path = key == null ? null : httpServletRequest.getRequestURI().substring(
+                httpServletRequest.getContextPath().length());
+        final CompressionResponseWrapper responseWrapper = new CompressionResponseWrapper(httpServletResponse,
+                gzipAccepted, mimeTypes, minSize, key == null ? 0 : captureLimit, bufferPool);
+        AsyncRequestWrapper.Completion completion = new AsyncRequestWrapper.Completion() {
+            @Override
+            public void complete() throws IOException {
+                try {
+                    responseWrapper.finish();
+                    if (cacheKey != null && responseWrapper.getCompressedBody() != null) {
+                        store(cacheKey, path, responseWrapper, created);
+                    }
+                } finally {
+                    responseWrapper.release();
+                }
+            }
+        };
+        HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap(httpServletRequest, responseWrapper, completion,
+                this);
+        boolean returned = false;
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            returned = true;
+        } finally {
+            if (!returned) {
+                // The response is not completed, free its deflater and buffers now
+                responseWrapper.release();
+            }
+        }
+        // The gzip trailer of an asynchronous response is written once the application completes it
+        AsyncRequestWrapper.completeAfterChain(requestWrapper, completion);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (cache != null) {
+            cache.clear();
+            bufferPool.clear();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    private void store(String key, String path, CompressionResponseWrapper responseWrapper, long created)
+            throws IOException {
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK
+                || responseWrapper.containsHeader(HTTPCacheHeader.SET_COOKIE.getName())) {
+            return;
+        }
+        String vary = responseWrapper.getHeader(HTTPCacheHeader.VARY.getName());
+        if (vary != null && !HTTPCacheHeader.ACCEPT_ENCODING.getName().equalsIgnoreCase(vary.trim())) {
+            return;
+        }
+        long maxAge = getSharedMaxAge(responseWrapper.getHeader(HTTPCacheHeader.CACHE_CONTROL.getName()));
+        if (maxAge <= 0L) {
+            return;
+        }
+
+        ChunkedBuffer compressedBody = responseWrapper.getCompressedBody();
+        ResponseBody body = cache.allocate(compressedBody.size());
+        if (body == null) {
+            return;
+        }
+        compressedBody.writeTo(body.getOutputStream());
+
+        List<String> headers = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        for (String name : responseWrapper.getHeaderNames()) {
+            String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+            if (names.contains(lowerCaseName) || "content-length".equals(lowerCaseName)
+                    || "content-type".equals(lowerCaseName) || "date".equals(lowerCaseName)
+                    || "age".equals(lowerCaseName)) {
+                continue;
+            }
+            names.add(lowerCaseName);
+            for (String value : responseWrapper.getHeaders(name)) {
+                headers.add(name);
+                headers.add(value);
+            }
+        }
+        cache.put(new CachedResponse(key, path, new String[0], HttpServletResponse.SC_OK,
+                responseWrapper.getContentType(), headers.toArray(new String[headers.size()]), body, created, created
+                        + maxAge * 1000L));
+    }
+
+    /**
+     * Gets the time a public response may be kept by a shared cache.
+     *
+     * @return the {@code s-maxage} or {@code max-age} directive value in seconds, or {@code 0} if the response must not
+     *         be shared
+     */
+    private static long getSharedMaxAge(String cacheControl) {
+        if (cacheControl == null || !cacheControl.contains("public") || cacheControl.contains("private")
+                || cacheControl.contains("no-cache") || cacheControl.contains("no-store")) {
+            return 0L;
+        }
+        long maxAge = getDirectiveValue(cacheControl, "s-maxage=");
+        return maxAge < 0L ? Math.max(0L, getDirectiveValue(cacheControl, "max-age=")) : maxAge;
+    }
+
+    private static long getDirectiveValue(String cacheControl, String directive) {
+        int start = cacheControl.indexOf(directive);
+        if (start < 0) {
+            return -1L;
+        }
+        start += directive.length();
+        int end = start;
+        while (end < cacheControl.length() && Character.isDigit(cacheControl.charAt(end))) {
+            end++;
+        }
+        try {
+            return Long.parseLong(cacheControl.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Tells if an {@code Accept-Encoding} header accepts the gzip content coding, explicitly or through {@code *}, with
+     * a non zero quality value.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            int separator = coding.indexOf(';');
+            String name = (separator < 0 ? coding : coding.substring(0, separator)).trim();
+            boolean accepted = separator < 0 || !isZeroQuality(coding.substring(separator + 1));
+            if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                return accepted;
+            }
+            if ("*".equals(name)) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String parameter = parameters.trim();
+        if (!parameter.startsWith("q=") && !parameter.startsWith("Q=")) {
+            return false;
+        }
+        try {
+            return Float.parseFloat(parameter.substring(2).trim()) <= 0.0f;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.BufferPool;
+import com.samaxes.filter.util.BufferedResponseWrapper;
+import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.Validators;
+
+/**
+ * <p>
+ * Filter answering conditional {@code GET} requests with a {@code 304 Not Modified} response.
+ * </p>
+ * <p>
+ * The response body is buffered and hashed while it is written, and its digest is sent as the {@code ETag} header. When
+ * the {@code If-None-Match} request header matches that entity tag, or when no {@code If-None-Match} header is present
+ * and the {@code If-Modified-Since} date is not older than the {@code Last-Modified} date set by the application, the
+ * body is dropped and a {@code 304 Not Modified} response is sent instead. Any {@code ETag} or {@code Pragma} header
+ * set downstream (e.g. by Tomcat's <strong>DefaultServlet</strong>) is discarded.
+ * </p>
+ * <p>
+ * With asynchronous requests ({@code &lt;async-supported&gt;true&lt;/async-supported&gt;}), the entity tag is computed
+ * when the servlet calls {@code AsyncContext.complete()}. If it calls {@code AsyncContext.dispatch()} instead, the
+ * filter must also be mapped to the {@code ASYNC} dispatcher, otherwise the buffered body is never sent.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code weak-etag}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the generated entity tags are weak validators ({@code W/"..."}). Use weak entity tags when the response
+ * is semantically equivalent but not byte-for-byte identical across requests, e.g. when it is compressed
+ * downstream.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Memory of the response bodies while their entity tag is computed, taken in 8 KB chunks from a pool and given back
+ * once the response is sent.
+ * <ul>
+ * <li><code>heap</code> allocates the chunks on the Java heap.</li>
+ * <li><code>off-heap</code> allocates the chunks in direct memory, outside of the Java heap.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool-size}</td>
+ * <td>No</td>
+ * <td>{@code 4194304}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of the free chunks kept for reuse. {@code 0} keeps none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests, suppressed {@code ETag} and {@code Pragma} headers and
+ * {@code 304 Not Modified} responses, and buffer pool utilization) are collected and registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration:</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;conditionalRequest&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.ConditionalRequestFilter&lt;/filter-class&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to the resources clients revalidate:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;conditionalRequest&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;/api/*&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ConditionalRequestFilter implements Filter {
+
+    private static final String DIGEST_ALGORITHM = "MD5";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private boolean weakETag;
+
+    private BufferPool bufferPool;
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        weakETag = Boolean.valueOf(filterConfig.getInitParameter(CacheConfigParameter.WEAK_ETAG.getName()));
+        // Fail fast if the digest algorithm is not available
+        newDigest();
+        bufferPool = BufferPool.configure(filterConfig);
+        metrics = FilterMetrics.configure(filterConfig, this);
+        if (metrics != null) {
+            metrics.setBufferPool(bufferPool);
+        }
+    }
+
+    /**
+     * <p>
+     * Set the {@code ETag} header and answer conditional requests.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (metrics == null) {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    private void doFilter(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws IOException, ServletException {
+        // HEAD responses have no body to hash, and other methods are not conditional GET requests
+        if (!"GET".equals(httpServletRequest.getMethod())) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+        if (httpServletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(httpServletRequest, this)) {
+            // The body keeps being buffered by the wrapper of the initial request
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            AsyncRequestWrapper.completeDispatch(httpServletRequest);
+            return;
+        }
+
+        /*
+         * The entity tag is computed from the body, so the ones set downstream (e.g. by Tomcat's DefaultServlet) are
+         * dropped. Omitting the Pragma header takes care of user-agents implementing HTTP/1.0.
+         */
+        final BufferedResponseWrapper responseWrapper = new BufferedResponseWrapper(httpServletResponse, bufferPool,
+                newDigest()) {
+            @Override
+            protected boolean isDiscarded(String name) {
+                if (HTTPCacheHeader.ETAG.getName().equalsIgnoreCase(name)
+                        || HTTPCacheHeader.PRAGMA.getName().equalsIgnoreCase(name)) {
+                    if (metrics != null) {
+                        metrics.headerSuppressed();
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+        final HttpServletRequest request = httpServletRequest;
+        final HttpServletResponse response = httpServletResponse;
+        AsyncRequestWrapper.Completion completion = new AsyncRequestWrapper.Completion() {
+            @Override
+            public void complete() throws IOException {
+                try {
+                    sendResponse(request, response, responseWrapper);
+                } finally {
+                    responseWrapper.release();
+                }
+            }
+        };
+        HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap(httpServletRequest, responseWrapper, completion,
+                this);
+        filterChain.doFilter(requestWrapper, responseWrapper);
+        // The body of an asynchronous response is only complete once the application completes it
+        AsyncRequestWrapper.completeAfterChain(requestWrapper, completion);
+    }
+
+    private void sendResponse(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            BufferedResponseWrapper responseWrapper) throws IOException {
+        if (responseWrapper.isBypassed()) {
+            return;
+        }
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK) {
+            sendBody(httpServletResponse, responseWrapper);
+            return;
+        }
+
+        String eTag = toETag(responseWrapper.digest());
+        httpServletResponse.setHeader(HTTPCacheHeader.ETAG.getName(), eTag);
+
+        if (Validators.isNotModified(httpServletRequest, eTag, responseWrapper.getLastModified())) {
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            if (metrics != null) {
+                metrics.notModified();
+            }
+        } else {
+            sendBody(httpServletResponse, responseWrapper);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        bufferPool.clear();
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    private static void sendBody(HttpServletResponse response, BufferedResponseWrapper responseWrapper)
+            throws IOException {
+        response.setContentLength(responseWrapper.getBodySize());
+        responseWrapper.writeBodyTo(response.getOutputStream());
+    }
+
+    private static MessageDigest newDigest() throws ServletException {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServletException(new StringBuilder("The message digest algorithm ").append(DIGEST_ALGORITHM)
+                    .append(" is not available.").toString(), e);
+        }
+    }
+
+    private String toETag(byte[] digest) {
+        StringBuilder eTag = new StringBuilder(digest.length * 2 + 4);
+        if (weakETag) {
+            eTag.append("W/");
+        }
+        eTag.append('"');
+        for (byte b : digest) {
+            eTag.append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+        }
+        return eTag.append('"').toString();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.IOException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.HeaderNameSet;
+import com.samaxes.filter.util.HeaderSuppressionResponseWrapper;
+
+/**
+ * <p>
+ * Filter allowing to remove a configurable set of headers from HTTP responses, e.g. {@code ETag}, {@code Pragma} or
+ * headers disclosing the server software.
+ * </p>
+ * <p>
+ * The headers are dropped whether they are set or added, as strings, dates or integers. Their names are matched
+ * ignoring case against a hash set built once at initialization, and the response wrapper is the only allocation per
+ * request. Headers already set on the response before the filter runs are not removed.
+ * </p>
+ * <p>
+ * The filter can be declared with {@code &lt;async-supported&gt;true&lt;/async-supported&gt;}: headers set by an
+ * asynchronous servlet after {@code startAsync()} are dropped too.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code headers}</td>
+ * <td>Yes</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the names of the headers to remove.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests and suppressed headers) are collected and registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;headerSuppression&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.HeaderSuppressionFilter&lt;/filter-class&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;headers&lt;/param-name&gt;
+ *         &lt;param-value&gt;ETag, Pragma, X-Powered-By&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to all the requests:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;headerSuppression&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;/*&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class HeaderSuppressionFilter implements Filter {
+
+    /**
+     * Names of the headers to remove.
+     */
+    private HeaderNameSet suppressedHeaders;
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        suppressedHeaders = HeaderNameSet.parse(CacheConfigParameter.HEADERS.getValue(filterConfig));
+        if (suppressedHeaders.isEmpty()) {
+            throw CacheConfigParameter.HEADERS.invalid(filterConfig);
+        }
+        metrics = FilterMetrics.configure(filterConfig, this);
+    }
+
+    /**
+     * <p>
+     * Removes the configured HTTP headers.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (servletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(servletRequest, this)) {
+            // The response wrapper of the initial request is still in place
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        HttpServletResponseWrapper responseWrapper = new HeaderSuppressionResponseWrapper(
+                (HttpServletResponse) servletResponse, suppressedHeaders, metrics);
+        HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap((HttpServletRequest) servletRequest,
+                responseWrapper, null, this);
+
+        if (metrics == null) {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+}
@@ -28,12 +28,42 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletResponse;
 
+import com.samaxes.filter.util.FilterMetrics;
 import com.samaxes.filter.util.HTTPCacheHeader;
 
 /**
  * <p>
  * Filter allowing to completely disable browser caching.
  * </p>
+ * <p>
+ * The headers are set before the filter chain runs, so they also apply to responses completed asynchronously; declare
+ * the filter with {@code &lt;async-supported&gt;true&lt;/async-supported&gt;} in front of asynchronous servlets.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests) are collected and registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
  * <h2>Sample configuration:</h2>
  * <p>
  * Declare the filter in your web descriptor file {@code web.xml}:
@@ -71,11 +101,17 @@ import com.samaxes.filter.util.HTTPCacheHeader;
  */
 public class NoCacheFilter implements Filter {
 
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        metrics = FilterMetrics.configure(filterConfig, this);
     }
 
     /**
@@ -93,7 +129,17 @@ public class NoCacheFilter implements Filter {
         httpServletResponse.setHeader(HTTPCacheHeader.CACHE_CONTROL.getName(), "no-cache, no-store");
         httpServletResponse.setDateHeader(HTTPCacheHeader.EXPIRES.getName(), 0L);
 
-        filterChain.doFilter(servletRequest, servletResponse);
+        if (metrics == null) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
     }
 
     /**
@@ -101,5 +147,8 @@ public class NoCacheFilter implements Filter {
      */
     @Override
     public void destroy() {
+        if (metrics != null) {
+            metrics.unregister();
+        }
     }
 }
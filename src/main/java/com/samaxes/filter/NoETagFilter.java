@@ -20,21 +20,57 @@ package com.samaxes.filter;
 
 import java.io.IOException;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
+import com.samaxes.filter.util.AsyncRequestWrapper;
+import com.samaxes.filter.util.FilterMetrics;
 import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.HeaderNameSet;
+import com.samaxes.filter.util.HeaderSuppressionResponseWrapper;
 
 /**
  * <p>
- * Filter allowing to disable {@code ETag} header from a HTTP response.
+ * Filter allowing to disable {@code ETag} header from a HTTP response, whether it is set or added. See
+ * {@link HeaderSuppressionFilter} to disable other headers.
  * </p>
+ * <p>
+ * The filter can be declared with {@code &lt;async-supported&gt;true&lt;/async-supported&gt;}: {@code ETag} headers set
+ * by an asynchronous servlet after {@code startAsync()} are dropped too.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests and suppressed {@code ETag} headers) are collected and registered as the
+ * JMX MBean {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
  * <h2>Sample configuration</h2>
  * <p>
  * <strong>Note:</strong> This configuration describes how to disable HTTP {@code ETag} header set by the
@@ -67,11 +103,19 @@ import com.samaxes.filter.util.HTTPCacheHeader;
  */
 public class NoETagFilter implements Filter {
 
+    private static final HeaderNameSet ETAG_HEADER = new HeaderNameSet(HTTPCacheHeader.ETAG.getName());
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        metrics = FilterMetrics.configure(filterConfig, this);
     }
 
     /**
@@ -83,14 +127,29 @@ public class NoETagFilter implements Filter {
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
             throws IOException, ServletException {
-        filterChain.doFilter(servletRequest, new HttpServletResponseWrapper((HttpServletResponse) servletResponse) {
-            @Override
-            public void setHeader(String name, String value) {
-                if (!HTTPCacheHeader.ETAG.getName().equalsIgnoreCase(name)) {
-                    super.setHeader(name, value);
-                }
-            }
-        });
+        if (servletRequest.getDispatcherType() == DispatcherType.ASYNC
+                && AsyncRequestWrapper.isWrappedBy(servletRequest, this)) {
+            // The response wrapper of the initial request is still in place
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        HttpServletResponseWrapper responseWrapper = new HeaderSuppressionResponseWrapper(
+                (HttpServletResponse) servletResponse, ETAG_HEADER, metrics);
+        HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap((HttpServletRequest) servletRequest,
+                responseWrapper, null, this);
+
+        if (metrics == null) {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
     }
 
     /**
@@ -98,5 +157,8 @@ public class NoETagFilter implements Filter {
      */
     @Override
     public void destroy() {
+        if (metrics != null) {
+            metrics.unregister();
+        }
     }
 }
@@ -0,0 +1,344 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.CachePolicy;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.ResponseCacheProcessor;
+
+/**
+ * <p>
+ * Filter allowing to cache complete responses on the server side.
+ * </p>
+ * <p>
+ * Successful {@code GET} responses are stored in memory, keyed by the request URI, query string and the request
+ * headers listed in the {@code vary} option, and served directly while they are fresh. When the cache exceeds its
+ * maximum size, the least recently used responses are evicted. Concurrent requests missing the same key are
+ * coalesced: only one of them runs the filter chain while the others wait for its response.
+ * </p>
+ * <p>
+ * Responses setting cookies, or whose {@code Cache-Control} header contains {@code private}, {@code no-cache} or
+ * {@code no-store}, are never stored.
+ * </p>
+ * <p>
+ * Stored responses can be purged before they expire, by path, by path prefix, or by the tags the application lists in
+ * their {@code Surrogate-Key} (space separated) or {@code Cache-Tag} (comma separated) headers. Purges go through the
+ * {@link com.samaxes.filter.util.CachePurger CachePurger} published as the servlet context attribute
+ * {@code com.samaxes.filter.util.CachePurger.<filter name>}, or the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>,component=cache}.
+ * </p>
+ * <p>
+ * Responses of asynchronous servlets are sent and stored when they call {@code AsyncContext.complete()}, and the
+ * requests waiting for them are released then. Servlets calling {@code AsyncContext.dispatch()} need the filter to be
+ * mapped to the {@code ASYNC} dispatcher as well.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code expiration}</td>
+ * <td>Yes</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Time, in seconds, a stored response is served without running the filter chain.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of request headers the responses vary on. It should match the {@code Vary} header sent to
+ * the clients, e.g. by {@link CacheFilter}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary-encodings}</td>
+ * <td>No</td>
+ * <td>{@code gzip}</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the content codings the application produces, in order of preference. When the
+ * responses vary on {@code Accept-Encoding}, responses are stored keyed on the preferred coding the request accepts, or
+ * {@code identity}, instead of the raw header value, so that a handful of variants serve every client. List every
+ * coding the application may choose, e.g. {@code br, gzip}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code vary-languages}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Comma separated list of the languages the application produces, the first one being the default. When set and the
+ * responses vary on {@code Accept-Language}, responses are stored keyed on the preferred language the request accepts
+ * ({@code en} matching {@code en-US} and the other way around), or the default one, instead of the raw header
+ * value.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code store}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Storage for the response bodies: {@code heap} keeps them in byte arrays on the Java heap, {@code off-heap} in
+ * direct memory outside of the heap, so that large caches do not lengthen garbage collection pauses, and {@code disk}
+ * keeps the complete responses in memory mapped segment files on the local disk, recovered in the background when the
+ * filter restarts.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-size}</td>
+ * <td>No</td>
+ * <td>{@code 16777216}, {@code 268435456} with the {@code disk} store</td>
+ * <td>2.3.2</td>
+ * <td>Maximum total size, in bytes, of the stored response bodies. With the {@code off-heap} store the JVM
+ * maximum direct memory must be large enough for it.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code store-directory}</td>
+ * <td>No</td>
+ * <td>{@code <filter-name>-store} in the web application temporary directory</td>
+ * <td>2.3.2</td>
+ * <td>Directory of the segment files of the {@code disk} store, which must not be shared with another filter.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code segment-size}</td>
+ * <td>No</td>
+ * <td>{@code 16777216}</td>
+ * <td>2.3.2</td>
+ * <td>Size, in bytes, of the segment files of the {@code disk} store. Larger responses are kept in memory only.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code coalesce-timeout}</td>
+ * <td>No</td>
+ * <td>{@code 10000}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum time, in milliseconds, a request waits for an identical in-flight request before running the filter
+ * chain itself.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Broadcasts the purges of the stored responses to the other nodes of a cluster, in batches, so that a response
+ * purged on one node is purged on every node.
+ * <ul>
+ * <li><code>local</code> broadcasts them to the filters of the same group within the JVM.</li>
+ * <li><code>multicast</code> broadcasts them over UDP multicast on the local network, looped back to the other
+ * applications of the same host.</li>
+ * <li>The name of a class implementing {@link com.samaxes.filter.util.InvalidationTransport InvalidationTransport},
+ * with a public no-argument constructor, broadcasts them through any other transport.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-group}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Group of nodes exchanging invalidations: a name for {@code local} ({@code default} by default), a multicast
+ * {@code address:port} for {@code multicast} ({@code 239.255.27.1:45566} by default).</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-delay}</td>
+ * <td>No</td>
+ * <td>{@code 100}</td>
+ * <td>2.3.2</td>
+ * <td>Time, in milliseconds, purges are collected before they are broadcast in a single batch, sending duplicate and
+ * overlapping purges once.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code invalidation-secret}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Secret shared by the nodes of a {@code multicast} group. Without it, any host able to send to the group can purge
+ * the cache of every node; with it, the datagrams are authenticated with an HMAC-SHA256 and the forged ones are
+ * dropped.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code background-refresh}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether stale responses are served right away, for the {@code stale-while-revalidate} time if set or until they
+ * are evicted otherwise, while a single request refreshes them in the background. The refresh dispatches the request
+ * again asynchronously, so the filter and the servlet must support asynchronous processing
+ * ({@code &lt;async-supported&gt;true&lt;/async-supported&gt;}); the filters after this one only take part in the
+ * refresh if they are also mapped to the {@code ASYNC} dispatcher. Other requests wait for the filter chain as
+ * usual. The refreshing client already has the stale response, but its connection, and any request it sends next on
+ * it, stays busy until the refresh completes, which is abandoned after {@code coalesce-timeout} milliseconds.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-refreshes}</td>
+ * <td>No</td>
+ * <td>{@code 16}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum number of background refreshes pending at the same time. Stale responses keep being served when it is
+ * reached, and the next request refreshes them.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool}</td>
+ * <td>No</td>
+ * <td>{@code heap}</td>
+ * <td>2.3.2</td>
+ * <td>Memory of the responses to store, taken in 8 KB chunks from a pool and given back once the response is sent.
+ * <ul>
+ * <li><code>heap</code> allocates the chunks on the Java heap.</li>
+ * <li><code>off-heap</code> allocates the chunks in direct memory, outside of the Java heap.</li>
+ * </ul>
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>{@code buffer-pool-size}</td>
+ * <td>No</td>
+ * <td>{@code 4194304}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum size, in bytes, of the free chunks kept for reuse. {@code 0} keeps none.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests, cache hits, misses, refreshes and buffer pool utilization) are collected
+ * and registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration:</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;responseCache&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.ResponseCacheFilter&lt;/filter-class&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;expiration&lt;/param-name&gt;
+ *         &lt;param-value&gt;60&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;vary&lt;/param-name&gt;
+ *         &lt;param-value&gt;Accept-Language&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to the resources to cache:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;responseCache&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;/catalog/*&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ResponseCacheFilter implements Filter {
+
+    private CachePolicy policy;
+
+    private ResponseCacheProcessor responseCacheProcessor;
+
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        policy = CachePolicy.configure(filterConfig);
+        responseCacheProcessor = ResponseCacheProcessor.configure(filterConfig, ResponseCacheProcessor.HEAP_STORE);
+        boolean initialized = false;
+        try {
+            responseCacheProcessor.register(filterConfig, this);
+            metrics = FilterMetrics.configure(filterConfig, this);
+            if (metrics != null) {
+                metrics.setResponseCacheProcessor(responseCacheProcessor);
+            }
+            initialized = true;
+        } finally {
+            if (!initialized) {
+                // The container does not destroy a filter whose initialization failed
+                destroy();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Serve fresh responses from the cache, or run the filter chain and store its response.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (metrics == null) {
+            responseCacheProcessor.doFilter((HttpServletRequest) servletRequest,
+                    (HttpServletResponse) servletResponse, filterChain, policy);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            responseCacheProcessor.doFilter((HttpServletRequest) servletRequest,
+                    (HttpServletResponse) servletResponse, filterChain, policy);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (responseCacheProcessor != null) {
+            responseCacheProcessor.destroy();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.CacheConfigParameter;
+import com.samaxes.filter.util.CachePolicy;
+import com.samaxes.filter.util.CachePolicyTable;
+import com.samaxes.filter.util.FileMetadata;
+import com.samaxes.filter.util.FileMetadataCache;
+import com.samaxes.filter.util.FilterMetrics;
+import com.samaxes.filter.util.FingerprintScanner;
+import com.samaxes.filter.util.HTTPCacheHeader;
+import com.samaxes.filter.util.Validators;
+
+/**
+ * <p>
+ * Filter serving static files straight from the file system, without running the filter chain.
+ * </p>
+ * <p>
+ * The {@code ETag} and {@code Last-Modified} headers are derived from the file size and modification date, which are
+ * cached and checked again at most once per {@code check-interval}, so that conditional requests are answered with
+ * {@code 304 Not Modified} without touching the file system. Single byte range requests are answered with
+ * {@code 206 Partial Content}. Requests for missing files, directories, or files under {@code /WEB-INF} and
+ * {@code /META-INF}, and requests other than {@code GET} and {@code HEAD}, go through the filter chain.
+ * </p>
+ * <p>
+ * The body is copied with {@code FileChannel.transferTo}, without reading the file through the Java heap. When the
+ * response is not wrapped by another filter and the container supports it (e.g. Tomcat with sendfile enabled), large
+ * bodies are instead handed over to the container, which sends them with the operating system {@code sendfile} call.
+ * </p>
+ * <p>
+ * The cache headers are set as by {@link CacheFilter} when the {@code expiration} option is set, with the same
+ * options. {@link CacheFilter} can also be mapped before this filter, at the cost of the {@code sendfile} transfer.
+ * </p>
+ * <table summary="Filter options" border="1">
+ * <tr>
+ * <th>Option</th>
+ * <th>Required</th>
+ * <th>Default</th>
+ * <th>Since</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>{@code root}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Directory the files are served from, resolving the servlet path and path info of the request against it. By
+ * default, files are served from the web application root.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code check-interval}</td>
+ * <td>No</td>
+ * <td>{@code 5000}</td>
+ * <td>2.3.2</td>
+ * <td>Time, in milliseconds, the size and modification date of a file are trusted before the file is checked again.
+ * Changed, created and deleted files are picked up within that time.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code max-entries}</td>
+ * <td>No</td>
+ * <td>{@code 10000}</td>
+ * <td>2.3.2</td>
+ * <td>Maximum number of files whose size and modification date are cached.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code expiration}</td>
+ * <td>No</td>
+ * <td>--</td>
+ * <td>2.3.2</td>
+ * <td>Cache header value for {@code max-age}, in seconds. When set, the other {@link CacheFilter} options
+ * ({@code private}, {@code must-revalidate}, {@code vary}, {@code rules}, {@code fingerprint}...) apply too.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code metrics}</td>
+ * <td>No</td>
+ * <td>{@code false}</td>
+ * <td>2.3.2</td>
+ * <td>Whether the filter statistics (requests, {@code 304} responses and applied policies) are collected and
+ * registered as the JMX MBean
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code latency-sampling}</td>
+ * <td>No</td>
+ * <td>{@code 0}</td>
+ * <td>2.3.2</td>
+ * <td>With {@code metrics}, the duration of one request out of the given number is measured, downstream filters and
+ * servlet included. {@code 0} measures none.</td>
+ * </tr>
+ * </table>
+ * <h2>Sample configuration:</h2>
+ * <p>
+ * Declare the filter in your web descriptor file {@code web.xml}:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *     &lt;filter-name&gt;staticResources&lt;/filter-name&gt;
+ *     &lt;filter-class&gt;com.samaxes.filter.StaticResourceFilter&lt;/filter-class&gt;
+ *     &lt;init-param&gt;
+ *         &lt;param-name&gt;expiration&lt;/param-name&gt;
+ *         &lt;param-value&gt;2592000&lt;/param-value&gt;
+ *     &lt;/init-param&gt;
+ * &lt;/filter&gt;
+ * </pre>
+ * <p>
+ * Map the filter to the static resources:
+ * </p>
+ *
+ * <pre>
+ * &lt;filter-mapping&gt;
+ *     &lt;filter-name&gt;staticResources&lt;/filter-name&gt;
+ *     &lt;url-pattern&gt;/assets/*&lt;/url-pattern&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StaticResourceFilter implements Filter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Smaller bodies are cheaper to copy than to hand over to the container.
+     */
+    private static final long SENDFILE_MIN_SIZE = 48L * 1024L;
+
+    private static final long DEFAULT_CHECK_INTERVAL = 5000L;
+
+    private static final long DEFAULT_MAX_ENTRIES = 10000L;
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private static final String BYTES_UNIT = "bytes";
+
+    static final long[] UNSATISFIABLE = new long[0];
+
+    private ServletContext servletContext;
+
+    /**
+     * Directory the files are served from, {@code null} to serve them from the web application root.
+     */
+    private File root;
+
+    private FileMetadataCache metadataCache;
+
+    /**
+     * Policy built from the filter parameters, {@code null} when no {@code expiration} is configured.
+     */
+    private CachePolicy defaultPolicy;
+
+    /**
+     * Policies selected by URL pattern or media type, {@code null} when no {@code rules} are configured.
+     */
+    private CachePolicyTable policyTable;
+
+    private boolean fingerprint;
+
+    /**
+     * Statistics of the filter, {@code null} when the {@code metrics} are disabled.
+     */
+    private FilterMetrics metrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+
+        String rootValue = CacheConfigParameter.ROOT.getValue(filterConfig);
+        if (rootValue != null) {
+            root = new File(rootValue);
+            if (!root.isDirectory()) {
+                throw CacheConfigParameter.ROOT.invalid(filterConfig);
+            }
+        }
+
+        long checkInterval = CacheConfigParameter.CHECK_INTERVAL.getLongValue(filterConfig, DEFAULT_CHECK_INTERVAL);
+        if (checkInterval < 0L) {
+            throw CacheConfigParameter.CHECK_INTERVAL.invalid(filterConfig);
+        }
+        long maxEntries = CacheConfigParameter.MAX_ENTRIES.getLongValue(filterConfig, DEFAULT_MAX_ENTRIES);
+        if (maxEntries < 1L || maxEntries > Integer.MAX_VALUE) {
+            throw CacheConfigParameter.MAX_ENTRIES.invalid(filterConfig);
+        }
+        metadataCache = new FileMetadataCache(checkInterval, (int) maxEntries);
+
+        if (CacheConfigParameter.EXPIRATION.getValue(filterConfig) != null) {
+            defaultPolicy = CachePolicy.configure(filterConfig);
+            policyTable = CachePolicyTable.compile(filterConfig, defaultPolicy);
+            fingerprint = CacheConfigParameter.FINGERPRINT.getBooleanValue(filterConfig);
+        }
+
+        metrics = FilterMetrics.configure(filterConfig, this);
+        if (metrics != null && defaultPolicy != null) {
+            metrics.addPolicy("default", defaultPolicy);
+            if (policyTable != null) {
+                for (Map.Entry<String, CachePolicy> rule : policyTable.getRules().entrySet()) {
+                    metrics.addPolicy(rule.getKey(), rule.getValue());
+                }
+            }
+            if (fingerprint) {
+                metrics.addPolicy("default (fingerprinted)", defaultPolicy.getImmutableVariant());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Serve the requested file, or run the filter chain if there is none.
+     * </p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (metrics == null) {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+            return;
+        }
+
+        long start = metrics.start();
+        try {
+            doFilter((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse, filterChain);
+        } finally {
+            metrics.stop(servletRequest, start);
+        }
+    }
+
+    private void doFilter(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FilterChain filterChain) throws IOException, ServletException {
+        String method = httpServletRequest.getMethod();
+        boolean head = "HEAD".equals(method);
+        String path = head || "GET".equals(method) ? getPath(httpServletRequest) : null;
+        FileMetadata metadata = path == null ? null : getMetadata(path);
+        if (metadata == null || !metadata.exists()) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+
+        boolean notModified = Validators.isNotModified(httpServletRequest, metadata.getETag(),
+                metadata.getLastModified());
+        long length = metadata.getLength();
+        long[] range = notModified ? null : getRange(httpServletRequest, metadata);
+        long start = range == null || range == UNSATISFIABLE ? 0L : range[0];
+        long end = range == null || range == UNSATISFIABLE ? length : range[1] + 1L;
+
+        boolean sendfile = !head && end - start >= SENDFILE_MIN_SIZE
+                && !(httpServletResponse instanceof ServletResponseWrapper)
+                && Boolean.TRUE.equals(httpServletRequest.getAttribute(SENDFILE_SUPPORT));
+        FileInputStream input = null;
+        if (!head && !notModified && range != UNSATISFIABLE && !sendfile) {
+            try {
+                input = new FileInputStream(metadata.getFile());
+            } catch (FileNotFoundException e) {
+                // Deleted since it was last checked, or not readable
+                metadataCache.remove(path);
+                filterChain.doFilter(httpServletRequest, httpServletResponse);
+                return;
+            }
+        }
+
+        setCacheHeaders(httpServletRequest, httpServletResponse, metadata);
+        httpServletResponse.setHeader(HTTPCacheHeader.ETAG.getName(), metadata.getETag());
+        httpServletResponse.setHeader(HTTPCacheHeader.LAST_MODIFIED.getName(), metadata.getLastModifiedHeader());
+        httpServletResponse.setHeader(HTTPCacheHeader.ACCEPT_RANGES.getName(), BYTES_UNIT);
+
+        if (notModified) {
+            if (metrics != null) {
+                metrics.notModified();
+            }
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (range == UNSATISFIABLE) {
+            httpServletResponse.setHeader(HTTPCacheHeader.CONTENT_RANGE.getName(), new StringBuilder(BYTES_UNIT)
+                    .append(" */").append(length).toString());
+            httpServletResponse.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        try {
+            if (range != null) {
+                httpServletResponse.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                httpServletResponse.setHeader(HTTPCacheHeader.CONTENT_RANGE.getName(), new StringBuilder(BYTES_UNIT)
+                        .append(' ').append(start).append('-').append(end - 1L).append('/').append(length).toString());
+            }
+            httpServletResponse.setContentType(metadata.getContentType() == null ? DEFAULT_CONTENT_TYPE : metadata
+                    .getContentType());
+            setContentLength(httpServletResponse, end - start);
+
+            if (sendfile) {
+                httpServletRequest.setAttribute(SENDFILE_FILENAME, metadata.getFile().getAbsolutePath());
+                httpServletRequest.setAttribute(SENDFILE_START, Long.valueOf(start));
+                httpServletRequest.setAttribute(SENDFILE_END, Long.valueOf(end));
+            } else if (input != null) {
+                transfer(input.getChannel(), start, end - start, Channels.newChannel(httpServletResponse
+                        .getOutputStream()));
+            }
+        } finally {
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        if (metadataCache != null) {
+            metadataCache.clear();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    /**
+     * <p>
+     * Gets the path of the requested file, relative to the web application root or the {@code root} directory.
+     * </p>
+     * <p>
+     * Every path segment is checked, since not all containers merge duplicate slashes, and the file systems of Windows
+     * ignore trailing dots and spaces and open alternate data streams after a colon: {@code //WEB-INF/web.xml},
+     * {@code /WEB-INF./web.xml} or {@code /web-inf::$DATA/web.xml} are all refused.
+     * </p>
+     *
+     * @return the path, or {@code null} if it must not be served
+     */
+    static String getPath(HttpServletRequest httpServletRequest) {
+        String servletPath = httpServletRequest.getServletPath();
+        String pathInfo = httpServletRequest.getPathInfo();
+        String path = pathInfo == null ? servletPath : servletPath + pathInfo;
+        if (path == null || path.isEmpty() || path.charAt(0) != '/' || path.indexOf('\\') >= 0
+                || path.indexOf('\0') >= 0 || path.indexOf(':') >= 0) {
+            return null;
+        }
+
+        int start = 1;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            char last = end > start ? path.charAt(end - 1) : '/';
+            if (last == '/' || last == '.' || last == ' ' || isProtected(path, start, end)) {
+                // Empty segment, "." or "..", a name Windows would trim, or a protected directory
+                return null;
+            }
+            start = end + 1;
+        }
+        return path;
+    }
+
+    private static boolean isProtected(String path, int start, int end) {
+        int length = end - start;
+        return length == 7 && path.regionMatches(true, start, "WEB-INF", 0, 7)
+                || length == 8 && path.regionMatches(true, start, "META-INF", 0, 8);
+    }
+
+    private FileMetadata getMetadata(String path) {
+        long now = System.currentTimeMillis();
+        FileMetadata metadata = metadataCache.get(path, now);
+        if (metadata != null) {
+            return metadata;
+        }
+
+        File file;
+        if (root != null) {
+            file = new File(root, path.substring(1));
+        } else {
+            String realPath = servletContext.getRealPath(path);
+            if (realPath == null) {
+                // Not on the file system, e.g. in an unexpanded WAR
+                return null;
+            }
+            file = new File(realPath);
+        }
+        return metadataCache.check(path, file, servletContext.getMimeType(path), now);
+    }
+
+    private void setCacheHeaders(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            FileMetadata metadata) {
+        if (defaultPolicy == null) {
+            return;
+        }
+
+        String requestURI = httpServletRequest.getRequestURI();
+        CachePolicy policy = policyTable == null ? null : policyTable.match(requestURI);
+        if (policy == null && fingerprint && FingerprintScanner.isFingerprinted(requestURI)) {
+            policy = defaultPolicy.getImmutableVariant();
+        } else if (policyTable == null) {
+            policy = defaultPolicy;
+        } else if (policy == null) {
+            policy = policyTable.lookupMediaType(metadata.getContentType());
+        }
+
+        if (metrics != null) {
+            metrics.policyApplied(policy);
+        }
+        httpServletResponse.setHeader(HTTPCacheHeader.CACHE_CONTROL.getName(), policy.getCacheControl());
+        httpServletResponse.setHeader(HTTPCacheHeader.EXPIRES.getName(), policy.getExpires());
+        if (policy.getVary() != null) {
+            httpServletResponse.setHeader(HTTPCacheHeader.VARY.getName(), policy.getVary());
+        }
+    }
+
+    /**
+     * Gets the byte range to send. Only single ranges are served partially: requests for several ranges get the entire
+     * file, as allowed by the specification.
+     *
+     * @return the first and last byte positions, {@link #UNSATISFIABLE} if the range is outside of the file, or
+     *         {@code null} to send the entire file
+     */
+    static long[] getRange(HttpServletRequest httpServletRequest, FileMetadata metadata) {
+        String range = httpServletRequest.getHeader(HTTPCacheHeader.RANGE.getName());
+        if (range == null || !range.regionMatches(true, 0, "bytes=", 0, 6) || range.indexOf(',') >= 0
+                || !isCurrent(httpServletRequest.getHeader(HTTPCacheHeader.IF_RANGE.getName()), metadata)) {
+            return null;
+        }
+
+        int dash = range.indexOf('-', 6);
+        if (dash < 0) {
+            return null;
+        }
+        long first = parsePosition(range, 6, dash);
+        long last = parsePosition(range, dash + 1, range.length());
+        long length = metadata.getLength();
+        if (first == -1L) {
+            // Suffix range: the last bytes of the file
+            if (last <= 0L) {
+                return last == 0L ? UNSATISFIABLE : null;
+            }
+            return length == 0L ? UNSATISFIABLE : new long[] { Math.max(0L, length - last), length - 1L };
+        }
+        if (first < 0L || last < -1L || last >= 0L && last < first) {
+            return null;
+        }
+        if (first >= length) {
+            return UNSATISFIABLE;
+        }
+        return new long[] { first, last == -1L || last >= length ? length - 1L : last };
+    }
+
+    /**
+     * Tells if the {@code If-Range} condition of a request holds. Entity tags need a strong comparison, which the weak
+     * entity tags of the files never pass, so only the modification date is compared.
+     */
+    private static boolean isCurrent(String ifRange, FileMetadata metadata) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("W/") || ifRange.startsWith("\"")) {
+            return false;
+        }
+        return ifRange.trim().equals(metadata.getLastModifiedHeader());
+    }
+
+    /**
+     * Parses a byte position.
+     *
+     * @return the position, {@code -1} if empty, or {@code -2} if invalid
+     */
+    static long parsePosition(String range, int start, int end) {
+        while (start < end && range.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && range.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return -1L;
+        }
+        if (end - start > 18) {
+            return -2L;
+        }
+        long position = 0L;
+        for (int i = start; i < end; i++) {
+            char c = range.charAt(i);
+            if (c < '0' || c > '9') {
+                return -2L;
+            }
+            position = position * 10L + (c - '0');
+        }
+        return position;
+    }
+
+    private static void setContentLength(HttpServletResponse httpServletResponse, long length) {
+        if (length <= Integer.MAX_VALUE) {
+            httpServletResponse.setContentLength((int) length);
+        } else {
+            httpServletResponse.setHeader("Content-Length", Long.toString(length));
+        }
+    }
+
+    private static void transfer(FileChannel source, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long remaining = count;
+        while (remaining > 0L) {
+            long transferred = source.transferTo(position, remaining, target);
+            if (transferred <= 0L) {
+                // Truncated since it was last checked
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * <p>
+ * Request wrapper keeping the response wrapper of a filter in place during asynchronous processing.
+ * </p>
+ * <p>
+ * {@code startAsync()} initializes the asynchronous context with the original response, which would let the
+ * asynchronous thread write around the filter. This wrapper starts it with the wrapped response instead, so that the
+ * headers and body written later still go through the filter, and asynchronous dispatches carry the wrappers along.
+ * </p>
+ * <p>
+ * The work a filter does once the response is complete, e.g. sending a buffered body, cannot wait for
+ * {@code AsyncListener.onComplete}, which is notified after the response is sent. It is given as a {@link Completion}
+ * instead, run when {@code AsyncContext.complete()} is called, or when an asynchronous dispatch returns without
+ * starting asynchronous processing again; the latter is only noticed if the filter is also mapped to the
+ * {@code ASYNC} dispatcher.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class AsyncRequestWrapper extends HttpServletRequestWrapper {
+
+    private final ServletResponse response;
+
+    private final Completion completion;
+
+    private final Object owner;
+
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    private volatile AsyncContext asyncContext;
+
+    /**
+     * Constructs a request wrapper starting asynchronous processing with the given response.
+     *
+     * @param request the request to wrap
+     * @param response the response wrapper of the filter
+     * @param completion the work to do once the response is complete, or {@code null}
+     * @param owner the filter, or the component of the filter, owning the wrapper
+     */
+    public AsyncRequestWrapper(HttpServletRequest request, ServletResponse response, Completion completion,
+            Object owner) {
+        super(request);
+        this.response = response;
+        this.completion = completion;
+        this.owner = owner;
+    }
+
+    /**
+     * Wraps a request if it supports asynchronous processing.
+     *
+     * @param request the request to wrap
+     * @param response the response wrapper of the filter
+     * @param completion the work to do once the response is complete, or {@code null}
+     * @param owner the filter, or the component of the filter, owning the wrapper
+     * @return the wrapped request, or the request itself if it does not support asynchronous processing
+     */
+    public static HttpServletRequest wrap(HttpServletRequest request, ServletResponse response,
+            Completion completion, Object owner) {
+        return request.isAsyncSupported() ? new AsyncRequestWrapper(request, response, completion, owner) : request;
+    }
+
+    /**
+     * Tells if a request is an asynchronous dispatch of a request already wrapped by the given owner, in which case the
+     * owner must not apply its processing a second time.
+     *
+     * @param request the request
+     * @param owner the owner of the wrapper
+     * @return {@code true} if the request carries a wrapper of the owner
+     */
+    public static boolean isWrappedBy(ServletRequest request, Object owner) {
+        ServletRequest current = request;
+        while (current instanceof ServletRequestWrapper) {
+            if (current instanceof AsyncRequestWrapper && ((AsyncRequestWrapper) current).owner == owner) {
+                return true;
+            }
+            current = ((ServletRequestWrapper) current).getRequest();
+        }
+        return false;
+    }
+
+    /**
+     * Runs the completion of a filter once its filter chain returns, unless the response is completed asynchronously.
+     *
+     * @param request the request passed down the filter chain, as returned by
+     *        {@link #wrap(HttpServletRequest, ServletResponse, Completion, Object)}
+     * @param completion the completion given to the wrapper
+     * @throws IOException if an I/O error occurs
+     */
+    public static void completeAfterChain(ServletRequest request, Completion completion) throws IOException {
+        if (!(request instanceof AsyncRequestWrapper)) {
+            completion.complete();
+        } else if (!request.isAsyncStarted()) {
+            ((AsyncRequestWrapper) request).complete();
+        }
+    }
+
+    /**
+     * Runs the completions of the wrappers of a request, innermost filter first, once an asynchronous dispatch returns
+     * without starting asynchronous processing again.
+     *
+     * @param request the dispatched request
+     * @throws IOException if an I/O error occurs
+     */
+    public static void completeDispatch(ServletRequest request) throws IOException {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        List<AsyncRequestWrapper> wrappers = new ArrayList<AsyncRequestWrapper>();
+        ServletRequest current = request;
+        while (current instanceof ServletRequestWrapper) {
+            if (current instanceof AsyncRequestWrapper) {
+                wrappers.add((AsyncRequestWrapper) current);
+            }
+            current = ((ServletRequestWrapper) current).getRequest();
+        }
+        for (AsyncRequestWrapper wrapper : wrappers) {
+            wrapper.complete();
+        }
+    }
+
+    /**
+     * Runs the completion, unless it already ran.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void complete() throws IOException {
+        if (completion != null && completed.compareAndSet(false, true)) {
+            completion.complete();
+        }
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, response);
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        AsyncContext context = super.startAsync(servletRequest, servletResponse);
+        asyncContext = completion == null ? context : new CompletingAsyncContext(context);
+        return asyncContext;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        AsyncContext context = asyncContext;
+        return context == null ? super.getAsyncContext() : context;
+    }
+
+    /**
+     * Work a filter does once the response is complete, while the response can still be written.
+     */
+    public interface Completion {
+
+        /**
+         * Completes the response.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void complete() throws IOException;
+    }
+
+    /**
+     * Asynchronous context running the completion before the response is completed.
+     */
+    private final class CompletingAsyncContext implements AsyncContext {
+
+        private final AsyncContext context;
+
+        private CompletingAsyncContext(AsyncContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return context.getRequest();
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return context.getResponse();
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return context.hasOriginalRequestAndResponse();
+        }
+
+        @Override
+        public void dispatch() {
+            context.dispatch();
+        }
+
+        @Override
+        public void dispatch(String path) {
+            context.dispatch(path);
+        }
+
+        @Override
+        public void dispatch(ServletContext servletContext, String path) {
+            context.dispatch(servletContext, path);
+        }
+
+        @Override
+        public void complete() {
+            try {
+                AsyncRequestWrapper.this.complete();
+            } catch (IOException e) {
+                // The client is gone, the container completes the response anyway
+            } finally {
+                context.complete();
+            }
+        }
+
+        @Override
+        public void start(Runnable run) {
+            context.start(run);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener) {
+            context.addListener(listener);
+        }
+
+        @Override
+        public void addListener(AsyncListener listener, ServletRequest servletRequest,
+                ServletResponse servletResponse) {
+            context.addListener(listener, servletRequest, servletResponse);
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+            return context.createListener(clazz);
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+            context.setTimeout(timeout);
+        }
+
+        @Override
+        public long getTimeout() {
+            return context.getTimeout();
+        }
+    }
+}
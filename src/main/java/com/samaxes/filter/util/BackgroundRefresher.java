@@ -0,0 +1,124 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Bounds and monitors the background refreshes of stale cached responses.
+ * </p>
+ * <p>
+ * Refreshes are best effort: when the maximum number of pending refreshes is reached, new ones are rejected and the
+ * stale response is simply refreshed by a later request. The pending refreshes, failures and rejections are counted so
+ * that the refresh activity can be monitored.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class BackgroundRefresher {
+
+    private final int maxPending;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Constructs a background refresher.
+     *
+     * @param maxPending the maximum number of refreshes pending at the same time
+     */
+    public BackgroundRefresher(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Reserves a slot for a new refresh.
+     *
+     * @return {@code true} if the refresh can start, {@code false} if too many refreshes are pending
+     */
+    public boolean acquire() {
+        int current;
+        do {
+            current = pending.get();
+            if (current >= maxPending) {
+                rejections.incrementAndGet();
+                return false;
+            }
+        } while (!pending.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases the slot of a finished refresh.
+     *
+     * @param succeeded whether the refresh stored a new response
+     */
+    public void release(boolean succeeded) {
+        pending.decrementAndGet();
+        if (succeeded) {
+            completed.incrementAndGet();
+        } else {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of refreshes started and not finished yet.
+     *
+     * @return the number of pending refreshes
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Gets the number of refreshes that stored a new response.
+     *
+     * @return the number of completed refreshes
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Gets the number of refreshes that failed, timed out or produced a response that could not be cached.
+     *
+     * @return the number of failed refreshes
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Gets the number of refreshes rejected because too many were pending.
+     *
+     * @return the number of rejected refreshes
+     */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+}
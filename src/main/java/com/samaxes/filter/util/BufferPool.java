@@ -0,0 +1,259 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Pool of the fixed size chunks holding the response bodies captured by the filters.
+ * </p>
+ * <p>
+ * Chunks go back to the pool once the body they hold is sent or stored, and are handed out again to the next
+ * responses, so that capturing bodies allocates nothing once the pool is warm. Released chunks are kept in free lists
+ * striped by thread, each with its own lock; a thread finding its own list empty takes a chunk from the next
+ * {@value #MAX_STEALS} lists before allocating a new one, since a response completed asynchronously releases its chunks
+ * on another thread than the one that acquired them. A pool retaining no chunk takes no lock. The pool retains at most
+ * its capacity, chunks released beyond it being left to the garbage collector.
+ * </p>
+ * <p>
+ * Chunks are heap buffers by default, or direct buffers outside of the Java heap, in which case the JVM maximum direct
+ * memory ({@code -XX:MaxDirectMemorySize}) must be large enough for the pool capacity and the bodies being captured.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class BufferPool {
+
+    /**
+     * Keeps the chunks on the Java heap.
+     */
+    public static final String HEAP_POOL = "heap";
+
+    /**
+     * Keeps the chunks in direct memory, outside of the Java heap.
+     */
+    public static final String OFF_HEAP_POOL = "off-heap";
+
+    /**
+     * Size of a chunk, in bytes.
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    private static final long DEFAULT_CAPACITY = 4L * 1024L * 1024L;
+
+    private static final int STRIPES = stripes();
+
+    /**
+     * Number of the other free lists looked into when the list of the thread is empty.
+     */
+    private static final int MAX_STEALS = 3;
+
+    private final boolean direct;
+
+    private final int maxChunksPerStripe;
+
+    private final List<ArrayDeque<ByteBuffer>> freeLists = new ArrayList<ArrayDeque<ByteBuffer>>(STRIPES);
+
+    private final StripedCounter hits = new StripedCounter();
+
+    private final StripedCounter misses = new StripedCounter();
+
+    private final StripedCounter borrowed = new StripedCounter();
+
+    /**
+     * Constructs a buffer pool.
+     *
+     * @param capacity the maximum size, in bytes, of the free chunks retained by the pool, {@code 0} to retain none
+     * @param direct whether the chunks are allocated in direct memory
+     */
+    public BufferPool(long capacity, boolean direct) {
+        this.direct = direct;
+        this.maxChunksPerStripe = (int) Math.min(Integer.MAX_VALUE, capacity / CHUNK_SIZE / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            freeLists.add(new ArrayDeque<ByteBuffer>());
+        }
+    }
+
+    /**
+     * Creates a buffer pool from the {@code buffer-pool} and {@code buffer-pool-size} initialization parameters of a
+     * filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the buffer pool
+     * @throws ServletException if a parameter is invalid
+     */
+    public static BufferPool configure(FilterConfig filterConfig) throws ServletException {
+        String poolName = CacheConfigParameter.BUFFER_POOL.getValue(filterConfig);
+        boolean direct;
+        if (poolName == null || HEAP_POOL.equals(poolName)) {
+            direct = false;
+        } else if (OFF_HEAP_POOL.equals(poolName)) {
+            direct = true;
+        } else {
+            throw CacheConfigParameter.BUFFER_POOL.invalid(filterConfig);
+        }
+
+        long capacity = CacheConfigParameter.BUFFER_POOL_SIZE.getLongValue(filterConfig, DEFAULT_CAPACITY);
+        if (capacity < 0L) {
+            throw CacheConfigParameter.BUFFER_POOL_SIZE.invalid(filterConfig);
+        }
+        return new BufferPool(capacity, direct);
+    }
+
+    private static int stripes() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Tells if the chunks are allocated in direct memory.
+     *
+     * @return {@code true} if the chunks are direct buffers
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Takes a chunk from the pool, or allocates a new one if the pool is empty.
+     *
+     * @return an empty chunk of {@link #CHUNK_SIZE} bytes
+     */
+    public ByteBuffer acquire() {
+        borrowed.add(CHUNK_SIZE);
+        if (maxChunksPerStripe > 0) {
+            int stripe = stripe();
+            int lists = Math.min(STRIPES, 1 + MAX_STEALS);
+            for (int i = 0; i < lists; i++) {
+                ByteBuffer chunk = poll(freeLists.get((stripe + i) & (STRIPES - 1)));
+                if (chunk != null) {
+                    hits.increment();
+                    chunk.clear();
+                    return chunk;
+                }
+            }
+        }
+        misses.increment();
+        return direct ? ByteBuffer.allocateDirect(CHUNK_SIZE) : ByteBuffer.allocate(CHUNK_SIZE);
+    }
+
+    /**
+     * Gives a chunk back to the pool. The chunk must not be used afterwards.
+     *
+     * @param chunk a chunk returned by {@link #acquire()}
+     */
+    public void release(ByteBuffer chunk) {
+        borrowed.add(-CHUNK_SIZE);
+        if (maxChunksPerStripe == 0) {
+            return;
+        }
+        ArrayDeque<ByteBuffer> freeList = freeLists.get(stripe());
+        synchronized (freeList) {
+            if (freeList.size() < maxChunksPerStripe) {
+                freeList.push(chunk);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of chunks taken from the pool.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of chunks allocated because the pool was empty.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the size of the chunks currently holding captured bodies. Chunks of bodies that were never released, e.g.
+     * when a request failed, stay counted.
+     *
+     * @return the size in bytes
+     */
+    public long getBorrowedSize() {
+        return borrowed.get();
+    }
+
+    /**
+     * Gets the size of the free chunks retained by the pool.
+     *
+     * @return the size in bytes
+     */
+    public long getFreeSize() {
+        long chunks = 0L;
+        for (ArrayDeque<ByteBuffer> freeList : freeLists) {
+            synchronized (freeList) {
+                chunks += freeList.size();
+            }
+        }
+        return chunks * CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the maximum size of the free chunks retained by the pool.
+     *
+     * @return the capacity in bytes
+     */
+    public long getCapacity() {
+        return (long) maxChunksPerStripe * STRIPES * CHUNK_SIZE;
+    }
+
+    /**
+     * Drops the free chunks retained by the pool.
+     */
+    public void clear() {
+        for (ArrayDeque<ByteBuffer> freeList : freeLists) {
+            synchronized (freeList) {
+                freeList.clear();
+            }
+        }
+    }
+
+    private static ByteBuffer poll(ArrayDeque<ByteBuffer> freeList) {
+        synchronized (freeList) {
+            return freeList.poll();
+        }
+    }
+}
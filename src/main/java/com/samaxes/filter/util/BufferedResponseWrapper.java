@@ -0,0 +1,564 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>
+ * Response wrapper holding back the response body so that filters can inspect it before it is sent to the client.
+ * </p>
+ * <p>
+ * The body is captured once into chunks taken from a {@link BufferPool} by a {@link CaptureOutputStream} and, when a
+ * {@link MessageDigest} is given, hashed while it is being written. It is sent to the wrapped response with
+ * {@link #writeBodyTo(OutputStream)} without any intermediate copy, and {@link #release()} gives the chunks back to the
+ * pool. The headers set downstream are recorded so that the response can be replayed later, the
+ * {@code Last-Modified} date is kept for conditional request processing, and subclasses can discard headers by
+ * overriding {@link #isDiscarded(String)}.
+ * </p>
+ * <p>
+ * The capture can be bounded: once the body exceeds the capture limit, or when {@link #isCapturing()} tells it is not
+ * needed, the bytes captured so far are sent to the wrapped response and the rest of the body is streamed to it as it
+ * is written.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class BufferedResponseWrapper extends HttpServletResponseWrapper {
+
+    private final CaptureOutputStream capture;
+
+    private final boolean detached;
+
+    private String contentType;
+
+    private String characterEncoding;
+
+    private final List<String> headerNames = new ArrayList<String>();
+
+    private final List<String> headerValues = new ArrayList<String>();
+
+    private PrintWriter writer;
+
+    private int status = SC_OK;
+
+    private long lastModified = -1L;
+
+    private boolean bypassed;
+
+    private final ServletOutputStream outputStream = new BodyOutputStream();
+
+    private final int captureLimit;
+
+    private boolean started;
+
+    private boolean streaming;
+
+    private OutputStream streamTarget;
+
+    private int contentLength = -1;
+
+    /**
+     * Constructs a response wrapper buffering the response body.
+     *
+     * @param response the response to wrap
+     * @param pool the pool the body buffers are taken from
+     * @param digest the digest updated with every written byte, or {@code null}
+     */
+    public BufferedResponseWrapper(HttpServletResponse response, BufferPool pool, MessageDigest digest) {
+        this(response, pool, digest, false);
+    }
+
+    /**
+     * Constructs a response wrapper buffering the response body. A detached wrapper only records the status, headers
+     * and body, without ever modifying the wrapped response, so that the filter chain can run again on behalf of a
+     * response already sent to the client.
+     *
+     * @param response the response to wrap
+     * @param pool the pool the body buffers are taken from
+     * @param digest the digest updated with every written byte, or {@code null}
+     * @param detached whether the wrapped response must be left untouched
+     */
+    public BufferedResponseWrapper(HttpServletResponse response, BufferPool pool, MessageDigest digest,
+            boolean detached) {
+        this(response, pool, digest, detached, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a response wrapper buffering at most {@code captureLimit} bytes of the response body. A larger body
+     * is streamed to the wrapped response, or dropped by a detached wrapper. The digest is only updated with the
+     * captured bytes.
+     *
+     * @param response the response to wrap
+     * @param pool the pool the body buffers are taken from
+     * @param digest the digest updated with every captured byte, or {@code null}
+     * @param detached whether the wrapped response must be left untouched
+     * @param captureLimit the maximum number of bytes captured
+     */
+    public BufferedResponseWrapper(HttpServletResponse response, BufferPool pool, MessageDigest digest,
+            boolean detached, int captureLimit) {
+        super(response);
+        this.capture = new CaptureOutputStream(pool, null, digest, captureLimit);
+        this.detached = detached;
+        this.captureLimit = captureLimit;
+    }
+
+    /**
+     * Gets the response status code.
+     *
+     * @return the status code
+     */
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the {@code Last-Modified} date set downstream.
+     *
+     * @return the date in milliseconds since the epoch, or {@code -1} if none was set or it is not an RFC 1123 date
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Tells if the response was sent directly to the client by {@code sendError} or {@code sendRedirect}, in which case
+     * the buffered body must be discarded.
+     *
+     * @return {@code true} if the response bypassed the buffer
+     */
+    public boolean isBypassed() {
+        return bypassed;
+    }
+
+    /**
+     * Tells if the whole body was captured, rather than streamed to the wrapped response or dropped because it exceeded
+     * the capture limit.
+     *
+     * @return {@code true} if the buffered body is complete
+     */
+    public boolean isCaptured() {
+        flushWriter();
+        return !streaming && capture.getBuffer() != null;
+    }
+
+    /**
+     * Gets the headers set downstream, in the order they were set.
+     *
+     * @return the header names and values, as consecutive name and value elements
+     */
+    public String[] getRecordedHeaders() {
+        String[] headers = new String[headerNames.size() * 2];
+        for (int i = 0; i < headerNames.size(); i++) {
+            headers[i * 2] = headerNames.get(i);
+            headers[i * 2 + 1] = headerValues.get(i);
+        }
+        return headers;
+    }
+
+    /**
+     * Gets the last value of a header set downstream.
+     *
+     * @param name the header name
+     * @return the header value, or {@code null} if the header was not set
+     */
+    public String getRecordedHeader(String name) {
+        for (int i = headerNames.size() - 1; i >= 0; i--) {
+            if (headerNames.get(i).equalsIgnoreCase(name)) {
+                return headerValues.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the digest of the body written so far, after flushing any pending character data. The digest is reset.
+     *
+     * @return the digest bytes, or {@code null} if no digest was given
+     */
+    public byte[] digest() {
+        flushWriter();
+        return capture.digest();
+    }
+
+    /**
+     * Gets the size of the buffered body, after flushing any pending character data.
+     *
+     * @return the body size in bytes
+     */
+    public int getBodySize() {
+        flushWriter();
+        return capture.size();
+    }
+
+    /**
+     * Gets a copy of the buffered body, after flushing any pending character data.
+     *
+     * @return the body bytes
+     */
+    public byte[] getBody() {
+        flushWriter();
+        return capture.getBuffer().toByteArray();
+    }
+
+    /**
+     * Writes the buffered body to the given stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBodyTo(OutputStream out) throws IOException {
+        flushWriter();
+        capture.getBuffer().writeTo(out);
+    }
+
+    /**
+     * Gives the memory holding the buffered body back to the pool, once it is sent or stored.
+     */
+    public void release() {
+        capture.release();
+    }
+
+    /**
+     * Tells if a header set downstream must be dropped. No header is discarded by default.
+     *
+     * @param name the header name
+     * @return {@code true} if the header must not reach the wrapped response
+     */
+    protected boolean isDiscarded(String name) {
+        return false;
+    }
+
+    /**
+     * Tells if the body must be captured, when it starts being written. The body is always captured by default;
+     * subclasses can stream the body of responses they have no use for.
+     *
+     * @return {@code true} if the body must be captured, {@code false} to stream it to the wrapped response
+     */
+    protected boolean isCapturing() {
+        return true;
+    }
+
+    /**
+     * Gets the stream the next bytes of the body are written to, switching to streaming when the capture is not
+     * needed or the bytes would exceed the capture limit.
+     */
+    private OutputStream getStream(int len) throws IOException {
+        if (!started) {
+            started = true;
+            streaming = !detached && !isCapturing();
+        }
+        if (!streaming && !detached && len > captureLimit - capture.size()) {
+            streaming = true;
+        }
+        if (!streaming) {
+            return capture;
+        }
+        if (streamTarget == null) {
+            // Sends the bytes captured so far before the rest of the body
+            streamTarget = super.getOutputStream();
+            if (contentLength >= 0) {
+                super.setContentLength(contentLength);
+            }
+            ChunkedBuffer buffer = capture.getBuffer();
+            if (buffer != null) {
+                buffer.writeTo(streamTarget);
+            }
+            capture.release();
+        }
+        return streamTarget;
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private void recordHeader(String name, String value, boolean replace) {
+        if (replace) {
+            for (int i = headerNames.size() - 1; i >= 0; i--) {
+                if (headerNames.get(i).equalsIgnoreCase(name)) {
+                    headerNames.remove(i);
+                    headerValues.remove(i);
+                }
+            }
+        }
+        headerNames.add(name);
+        headerValues.add(value);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+        if (!detached) {
+            super.setStatus(sc);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        status = sc;
+        if (!detached) {
+            super.setStatus(sc, sm);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        status = sc;
+        bypassed = true;
+        if (!detached) {
+            super.sendError(sc);
+        }
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        status = sc;
+        bypassed = true;
+        if (!detached) {
+            super.sendError(sc, msg);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        status = SC_FOUND;
+        bypassed = true;
+        if (!detached) {
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (detached) {
+            contentType = type;
+            int charset = type == null ? -1 : type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+            if (charset >= 0) {
+                characterEncoding = type.substring(charset + 8).trim();
+            }
+        } else {
+            super.setContentType(type);
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return detached ? contentType : super.getContentType();
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (detached) {
+            characterEncoding = charset;
+        } else {
+            super.setCharacterEncoding(charset);
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        if (detached) {
+            return characterEncoding == null ? "ISO-8859-1" : characterEncoding;
+        }
+        return super.getCharacterEncoding();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return !detached && super.isCommitted();
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return detached ? getRecordedHeader(name) != null : super.containsHeader(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return detached ? getRecordedHeader(name) : super.getHeader(name);
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // the filter sets the actual length when the body is sent, unless it is streamed
+        contentLength = len;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        // nothing must reach the client before the filter has inspected the body, unless it is streamed
+        flushWriter();
+        if (streaming) {
+            getStream(0);
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        flushWriter();
+        capture.reset();
+        started = streamTarget != null;
+        if (!detached) {
+            super.resetBuffer();
+        }
+    }
+
+    @Override
+    public void reset() {
+        flushWriter();
+        capture.reset();
+        started = streamTarget != null;
+        contentLength = -1;
+        headerNames.clear();
+        headerValues.clear();
+        status = SC_OK;
+        lastModified = -1L;
+        if (!detached) {
+            super.reset();
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!isDiscarded(name)) {
+            if (HTTPCacheHeader.LAST_MODIFIED.getName().equalsIgnoreCase(name)) {
+                // Containers and frameworks often set it as a string
+                lastModified = HTTPDateFormat.parse(value);
+            }
+            recordHeader(name, value, true);
+            if (!detached) {
+                super.setHeader(name, value);
+            }
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!isDiscarded(name)) {
+            if (HTTPCacheHeader.LAST_MODIFIED.getName().equalsIgnoreCase(name)) {
+                // Containers and frameworks often set it as a string
+                lastModified = HTTPDateFormat.parse(value);
+            }
+            recordHeader(name, value, false);
+            if (!detached) {
+                super.addHeader(name, value);
+            }
+        }
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        if (!isDiscarded(name)) {
+            if (HTTPCacheHeader.LAST_MODIFIED.getName().equalsIgnoreCase(name)) {
+                lastModified = date;
+            }
+            recordHeader(name, HTTPDateFormat.format(date), true);
+            if (!detached) {
+                super.setDateHeader(name, date);
+            }
+        }
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        if (!isDiscarded(name)) {
+            if (HTTPCacheHeader.LAST_MODIFIED.getName().equalsIgnoreCase(name)) {
+                lastModified = date;
+            }
+            recordHeader(name, HTTPDateFormat.format(date), false);
+            if (!detached) {
+                super.addDateHeader(name, date);
+            }
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!isDiscarded(name)) {
+            recordHeader(name, Integer.toString(value), true);
+            if (!detached) {
+                super.setIntHeader(name, value);
+            }
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!isDiscarded(name)) {
+            recordHeader(name, Integer.toString(value), false);
+            if (!detached) {
+                super.addIntHeader(name, value);
+            }
+        }
+    }
+
+    /**
+     * Body stream capturing the bytes, or streaming them to the wrapped response once the capture is abandoned.
+     */
+    private final class BodyOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            getStream(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            getStream(len).write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (streamTarget != null) {
+                streamTarget.flush();
+            }
+        }
+    }
+}
@@ -18,6 +18,9 @@
  */
 package com.samaxes.filter.util;
 
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+
 /**
  * Enumeration of the possible configuration parameters.
  *
@@ -42,7 +45,162 @@ public enum CacheConfigParameter {
      * Cache directive to instructs proxies to cache different versions of the same resource based on specific
      * request-header fields.
      */
-    VARY("vary");
+    VARY("vary"),
+    /**
+     * Content codings the {@code Accept-Encoding} request header values are normalized to in server side cache keys.
+     */
+    VARY_ENCODINGS("vary-encodings"),
+    /**
+     * Languages the {@code Accept-Language} request header values are normalized to in server side cache keys.
+     */
+    VARY_LANGUAGES("vary-languages"),
+    /**
+     * Whether entity tags generated from the response body are weak validators.
+     */
+    WEAK_ETAG("weak-etag"),
+    /**
+     * Maximum total size, in bytes, of the responses stored on the server side.
+     */
+    MAX_SIZE("max-size"),
+    /**
+     * Maximum time, in milliseconds, a request waits for an identical in-flight request.
+     */
+    COALESCE_TIMEOUT("coalesce-timeout"),
+    /**
+     * Storage for the responses cached on the server side: {@code heap}, {@code off-heap} or {@code disk}.
+     */
+    STORE("store"),
+    /**
+     * Directory of the segment files of the {@code disk} store.
+     */
+    STORE_DIRECTORY("store-directory"),
+    /**
+     * Size, in bytes, of the segment files of the {@code disk} store.
+     */
+    SEGMENT_SIZE("segment-size"),
+    /**
+     * Table of cache policies selected by URL pattern, overriding the filter parameters.
+     */
+    RULES("rules"),
+    /**
+     * Cache directive to indicate that the response will not be updated while it is fresh.
+     */
+    IMMUTABLE("immutable"),
+    /**
+     * Whether resources with a content fingerprint in their path are cached as immutable.
+     */
+    FINGERPRINT("fingerprint"),
+    /**
+     * Cache directive to set an expiration time, in seconds, for shared caches only.
+     */
+    S_MAXAGE("s-maxage"),
+    /**
+     * Cache directive to allow caches to serve a stale response, for the given number of seconds, while they revalidate
+     * it in the background.
+     */
+    STALE_WHILE_REVALIDATE("stale-while-revalidate"),
+    /**
+     * Cache directive to allow caches to serve a stale response, for the given number of seconds, when the origin
+     * server fails.
+     */
+    STALE_IF_ERROR("stale-if-error"),
+    /**
+     * Cache directive to forbid intermediaries from transforming the payload.
+     */
+    NO_TRANSFORM("no-transform"),
+    /**
+     * Whether stale responses are served right away while a single request refreshes them in the background.
+     */
+    BACKGROUND_REFRESH("background-refresh"),
+    /**
+     * Maximum number of background refreshes pending at the same time.
+     */
+    MAX_REFRESHES("max-refreshes"),
+    /**
+     * Comma separated list of the names of the headers removed from the responses.
+     */
+    HEADERS("headers"),
+    /**
+     * Whether the filter statistics are collected and registered as a JMX MBean.
+     */
+    METRICS("metrics"),
+    /**
+     * The duration of one request out of the given number is measured, {@code 0} to measure none.
+     */
+    LATENCY_SAMPLING("latency-sampling"),
+    /**
+     * Comma separated list of the compressible media types, {@code type/*} matching a whole type.
+     */
+    MIME_TYPES("mime-types"),
+    /**
+     * Minimum size, in bytes, of the responses to compress, when their length is known in advance.
+     */
+    MIN_SIZE("min-size"),
+    /**
+     * Directory the static resources are served from, instead of the web application root.
+     */
+    ROOT("root"),
+    /**
+     * Time, in milliseconds, the metadata of a static file is trusted before the file is checked again.
+     */
+    CHECK_INTERVAL("check-interval"),
+    /**
+     * Maximum number of static files whose metadata is cached.
+     */
+    MAX_ENTRIES("max-entries"),
+    /**
+     * Memory holding the response bodies captured by the filters: {@code heap} or {@code off-heap}.
+     */
+    BUFFER_POOL("buffer-pool"),
+    /**
+     * Maximum size, in bytes, of the free capture buffers kept for reuse.
+     */
+    BUFFER_POOL_SIZE("buffer-pool-size"),
+    /**
+     * Whether the cache policies can be changed at runtime through JMX.
+     */
+    RELOADABLE("reloadable"),
+    /**
+     * Properties file whose cache policy parameters override the filter ones, reloaded when it changes.
+     */
+    POLICY_FILE("policy-file"),
+    /**
+     * Time, in milliseconds, between two checks of the policy file modification date.
+     */
+    POLICY_CHECK_INTERVAL("policy-check-interval"),
+    /**
+     * Transport broadcasting the purges of the server side cache to the other nodes of a cluster: {@code local},
+     * {@code multicast} or the name of an {@link InvalidationTransport} class.
+     */
+    INVALIDATION("invalidation"),
+    /**
+     * Group of nodes exchanging invalidations, as understood by the invalidation transport.
+     */
+    INVALIDATION_GROUP("invalidation-group"),
+    /**
+     * Time, in milliseconds, the purges are collected before they are broadcast in a single batch.
+     */
+    INVALIDATION_DELAY("invalidation-delay"),
+    /**
+     * Secret shared by the nodes of a multicast group, authenticating the invalidations they exchange.
+     */
+    INVALIDATION_SECRET("invalidation-secret"),
+    /**
+     * Whether the critical fingerprinted assets of the pages are learned and announced in {@code Link} preload headers.
+     */
+    PRELOAD("preload"),
+    /**
+     * Maximum number of assets preloaded by a page.
+     */
+    PRELOAD_LINKS("preload-links"),
+    /**
+     * Maximum number of pages whose preloaded assets are kept.
+     */
+    PRELOAD_PAGES("preload-pages"),
+    /**
+     * Whether the preload headers are also sent ahead of the response as {@code 103 Early Hints}.
+     */
+    EARLY_HINTS("early-hints");
 
     private final String name;
 
@@ -58,4 +216,56 @@ public enum CacheConfigParameter {
     public String getName() {
         return this.name;
     }
+
+    /**
+     * Gets the parameter value for a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the parameter value, or {@code null} if the parameter is not set
+     */
+    public String getValue(FilterConfig filterConfig) {
+        return filterConfig.getInitParameter(this.name);
+    }
+
+    /**
+     * Gets the parameter value for a filter as a boolean.
+     *
+     * @param filterConfig the filter configuration
+     * @return {@code true} if the parameter is set to {@code true}, ignoring case
+     */
+    public boolean getBooleanValue(FilterConfig filterConfig) {
+        return Boolean.valueOf(getValue(filterConfig));
+    }
+
+    /**
+     * Gets the parameter value for a filter as a long.
+     *
+     * @param filterConfig the filter configuration
+     * @param defaultValue the value to use if the parameter is not set, or {@code null} if the parameter is required
+     * @return the parameter value
+     * @throws ServletException if the parameter is invalid, or missing and required
+     */
+    public long getLongValue(FilterConfig filterConfig, Long defaultValue) throws ServletException {
+        String value = getValue(filterConfig);
+        if (value == null && defaultValue != null) {
+            return defaultValue;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw invalid(filterConfig);
+        }
+    }
+
+    /**
+     * Creates the exception reporting an invalid or missing value for a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the exception to throw
+     */
+    public ServletException invalid(FilterConfig filterConfig) {
+        return new ServletException(new StringBuilder("The initialization parameter ").append(this.name)
+                .append(" is invalid or is missing for the filter ").append(filterConfig.getFilterName()).append(".")
+                .toString());
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * Cache-Control directives, other than the cacheability, that can be set on cacheable responses.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public enum CacheDirective {
+    /**
+     * Indicates that the response is stale after its age is greater than the given number of seconds.
+     */
+    MAX_AGE("max-age"),
+    /**
+     * Overrides the maximum age for shared caches, such as proxies and CDNs.
+     */
+    S_MAXAGE("s-maxage"),
+    /**
+     * Indicates that once the response is stale, a cache MUST NOT use it without successful validation on the origin
+     * server.
+     */
+    MUST_REVALIDATE("must-revalidate"),
+    /**
+     * Indicates that an intermediary MUST NOT transform the payload, e.g. to recompress images.
+     */
+    NO_TRANSFORM("no-transform"),
+    /**
+     * Indicates that the response will not be updated while it is fresh.
+     */
+    IMMUTABLE("immutable"),
+    /**
+     * Indicates that caches MAY serve the response for the given number of seconds after it becomes stale, while they
+     * revalidate it asynchronously.
+     */
+    STALE_WHILE_REVALIDATE("stale-while-revalidate"),
+    /**
+     * Indicates that caches MAY serve the response for the given number of seconds after it becomes stale, when the
+     * origin server answers with an error or cannot be reached.
+     */
+    STALE_IF_ERROR("stale-if-error");
+
+    private final String value;
+
+    private CacheDirective(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the Cache-Control directive value.
+     *
+     * @return the Cache-Control directive value
+     */
+    public String getValue() {
+        return this.value;
+    }
+}
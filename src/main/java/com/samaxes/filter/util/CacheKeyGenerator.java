@@ -0,0 +1,346 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * <p>
+ * Generates server side cache keys from the request method, URI, query string and the request headers listed in a
+ * {@code Vary} header value.
+ * </p>
+ * <p>
+ * Raw {@code Accept-Encoding} and {@code Accept-Language} values differ between nearly every browser version, so
+ * keying on them would store as many copies of a response as there are clients. Their values are normalized to the
+ * variant the application would choose instead: the preferred acceptable content coding among the
+ * {@code vary-encodings} ones, or {@code identity}, and the preferred acceptable language among the
+ * {@code vary-languages} ones, or the first one. Negotiation follows the request quality values, the configured order
+ * breaking ties, and only uses lookup tables built once, when the generator is created. Other headers are keyed on
+ * their raw values.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CacheKeyGenerator {
+
+    /**
+     * Content codings the {@code Accept-Encoding} values are normalized to when none is configured: the one produced
+     * by the {@code CompressionFilter}.
+     */
+    public static final String DEFAULT_ENCODINGS = "gzip";
+
+    private static final String IDENTITY = "identity";
+
+    private final String vary;
+
+    private final String[] varyHeaders;
+
+    private final Negotiation[] negotiations;
+
+    private final boolean varyAll;
+
+    /**
+     * Constructs a key generator normalizing {@code Accept-Encoding} to the default encodings and keying on raw
+     * {@code Accept-Language} values.
+     *
+     * @param vary the {@code Vary} header value, or {@code null}
+     */
+    public CacheKeyGenerator(String vary) {
+        this(vary, DEFAULT_ENCODINGS, null);
+    }
+
+    /**
+     * Constructs a key generator.
+     *
+     * @param vary the {@code Vary} header value, or {@code null}
+     * @param encodings comma separated list of the content codings the responses are negotiated on, in order of
+     *        preference
+     * @param languages comma separated list of the languages the responses are negotiated on, the first one being the
+     *        default, or {@code null} to key on raw {@code Accept-Language} values
+     * @throws IllegalArgumentException if the list of encodings or languages is empty
+     */
+    public CacheKeyGenerator(String vary, String encodings, String languages) {
+        List<String> headers = new ArrayList<String>();
+        Map<String, String> names = new HashMap<String, String>();
+        boolean all = false;
+        if (vary != null) {
+            for (String header : vary.split(",")) {
+                String name = header.trim();
+                if ("*".equals(name)) {
+                    all = true;
+                } else if (!name.isEmpty() && names.put(name.toLowerCase(Locale.ENGLISH), name) == null) {
+                    headers.add(name);
+                }
+            }
+        }
+        varyHeaders = headers.toArray(new String[headers.size()]);
+        varyAll = all;
+
+        StringBuilder canonicalVary = new StringBuilder();
+        negotiations = new Negotiation[varyHeaders.length];
+        for (int i = 0; i < varyHeaders.length; i++) {
+            canonicalVary.append(i == 0 ? "" : ", ").append(varyHeaders[i]);
+            if (HTTPCacheHeader.ACCEPT_ENCODING.getName().equalsIgnoreCase(varyHeaders[i])) {
+                negotiations[i] = new Negotiation(encodings, IDENTITY, false);
+            } else if (languages != null
+                    && HTTPCacheHeader.ACCEPT_LANGUAGE.getName().equalsIgnoreCase(varyHeaders[i])) {
+                negotiations[i] = new Negotiation(languages, null, true);
+            }
+        }
+        this.vary = all ? "*" : canonicalVary.length() == 0 ? null : canonicalVary.toString();
+    }
+
+    /**
+     * Creates a key generator from the {@code vary}, {@code vary-encodings} and {@code vary-languages} initialization
+     * parameters of a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the key generator
+     * @throws ServletException if a parameter is invalid
+     */
+    public static CacheKeyGenerator configure(FilterConfig filterConfig) throws ServletException {
+        String encodings = CacheConfigParameter.VARY_ENCODINGS.getValue(filterConfig);
+        String languages = CacheConfigParameter.VARY_LANGUAGES.getValue(filterConfig);
+        try {
+            return new CacheKeyGenerator(CacheConfigParameter.VARY.getValue(filterConfig),
+                    encodings == null ? DEFAULT_ENCODINGS : encodings, languages);
+        } catch (IllegalArgumentException e) {
+            throw (encodings == null || Negotiation.isValid(encodings) ? CacheConfigParameter.VARY_LANGUAGES
+                    : CacheConfigParameter.VARY_ENCODINGS).invalid(filterConfig);
+        }
+    }
+
+    /**
+     * Gets the {@code Vary} header value the keys are generated from, trimmed and without duplicates.
+     *
+     * @return the {@code Vary} header value, or {@code null} if responses do not vary
+     */
+    public String getVary() {
+        return vary;
+    }
+
+    /**
+     * Tells if the keys are generated from a request header.
+     *
+     * @param header the header name
+     * @return {@code true} if requests differing on the header get different keys
+     */
+    public boolean isKeyedOn(String header) {
+        for (String varyHeader : varyHeaders) {
+            if (varyHeader.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return varyAll;
+    }
+
+    /**
+     * Generates the cache key of a request.
+     *
+     * @param request the request
+     * @return the cache key, or {@code null} if the responses vary on every request ({@code Vary: *})
+     */
+    public String generate(HttpServletRequest request) {
+        if (varyAll) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(128).append(request.getMethod()).append(' ')
+                .append(request.getRequestURI());
+        String query = request.getQueryString();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (int i = 0; i < varyHeaders.length; i++) {
+            String header = varyHeaders[i];
+            key.append('\n').append(header).append(':');
+            Enumeration<String> values = request.getHeaders(header);
+            if (negotiations[i] != null) {
+                key.append(negotiations[i].negotiate(values));
+            } else if (values != null) {
+                while (values.hasMoreElements()) {
+                    key.append(values.nextElement());
+                    if (values.hasMoreElements()) {
+                        key.append(',');
+                    }
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Negotiation of the value of an {@code Accept-*} request header among a fixed list of offers.
+     */
+    private static final class Negotiation {
+
+        private final String[] offers;
+
+        private final Map<String, Integer> lookup = new HashMap<String, Integer>();
+
+        private final String fallback;
+
+        private final boolean truncate;
+
+        /**
+         * Builds the lookup table of the offers.
+         *
+         * @param offers comma separated list of offers, in order of preference
+         * @param fallback the value of the requests accepting no offer, or {@code null} for the first offer
+         * @param truncate whether a tag matches the offer of its prefixes as well, as language ranges do
+         */
+        private Negotiation(String offers, String fallback, boolean truncate) {
+            List<String> values = new ArrayList<String>();
+            for (String offer : offers.split(",")) {
+                String value = offer.trim();
+                String tag = value.toLowerCase(Locale.ENGLISH);
+                if (!value.isEmpty() && !lookup.containsKey(tag)) {
+                    lookup.put(tag, values.size());
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("No offer to negotiate.");
+            }
+            this.offers = values.toArray(new String[values.size()]);
+            this.fallback = fallback == null ? this.offers[0] : fallback;
+            this.truncate = truncate;
+            if (truncate) {
+                // A range without subtags accepts every offer it prefixes, e.g. en accepts en-US
+                for (int i = 0; i < this.offers.length; i++) {
+                    String tag = this.offers[i].toLowerCase(Locale.ENGLISH);
+                    for (int dash = tag.lastIndexOf('-'); dash > 0; dash = tag.lastIndexOf('-', dash - 1)) {
+                        String prefix = tag.substring(0, dash);
+                        if (!lookup.containsKey(prefix)) {
+                            lookup.put(prefix, i);
+                        }
+                    }
+                }
+            } else if (lookup.containsKey("gzip") && !lookup.containsKey("x-gzip")) {
+                lookup.put("x-gzip", lookup.get("gzip"));
+            }
+        }
+
+        private static boolean isValid(String offers) {
+            for (String offer : offers.split(",")) {
+                if (!offer.trim().isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Chooses the preferred offer acceptable to a request.
+         *
+         * @param values the request header values, or {@code null}
+         * @return the chosen offer, or the fallback if the request accepts none
+         */
+        private String negotiate(Enumeration<String> values) {
+            if (values == null || !values.hasMoreElements()) {
+                return fallback;
+            }
+            float[] qualities = new float[offers.length];
+            Arrays.fill(qualities, -1f);
+            float anyQuality = -1f;
+            while (values.hasMoreElements()) {
+                String value = values.nextElement();
+                int length = value.length();
+                for (int start = 0; start < length;) {
+                    int end = value.indexOf(',', start);
+                    if (end < 0) {
+                        end = length;
+                    }
+                    int parameters = value.indexOf(';', start);
+                    int tagEnd = parameters < 0 || parameters > end ? end : parameters;
+                    String tag = value.substring(start, tagEnd).trim().toLowerCase(Locale.ENGLISH);
+                    float quality = tagEnd < end ? parseQuality(value, tagEnd + 1, end) : 1f;
+                    if ("*".equals(tag)) {
+                        anyQuality = Math.max(anyQuality, quality);
+                    } else if (!tag.isEmpty()) {
+                        Integer offer = find(tag);
+                        if (offer != null) {
+                            qualities[offer] = Math.max(qualities[offer], quality);
+                        }
+                    }
+                    start = end + 1;
+                }
+            }
+
+            int chosen = -1;
+            float chosenQuality = 0f;
+            for (int i = 0; i < offers.length; i++) {
+                float quality = qualities[i] < 0f ? anyQuality : qualities[i];
+                if (quality > chosenQuality) {
+                    chosen = i;
+                    chosenQuality = quality;
+                }
+            }
+            return chosen < 0 ? fallback : offers[chosen];
+        }
+
+        private Integer find(String tag) {
+            Integer offer = lookup.get(tag);
+            if (offer == null && truncate) {
+                int dash = tag.lastIndexOf('-');
+                while (offer == null && dash > 0) {
+                    offer = lookup.get(tag.substring(0, dash));
+                    dash = tag.lastIndexOf('-', dash - 1);
+                }
+            }
+            return offer;
+        }
+
+        /**
+         * Parses the {@code q} parameter among the parameters of a list element.
+         *
+         * @return the quality value, {@code 1} if absent, {@code 0} if invalid
+         */
+        private static float parseQuality(String value, int start, int end) {
+            for (int parameter = start; parameter < end;) {
+                int next = value.indexOf(';', parameter);
+                if (next < 0 || next > end) {
+                    next = end;
+                }
+                int equals = value.indexOf('=', parameter);
+                if (equals > 0 && equals < next && "q".equalsIgnoreCase(value.substring(parameter, equals).trim())) {
+                    try {
+                        float quality = Float.parseFloat(value.substring(equals + 1, next).trim());
+                        return quality >= 0f && quality <= 1f ? quality : 0f;
+                    } catch (NumberFormatException e) {
+                        return 0f;
+                    }
+                }
+                parameter = next + 1;
+            }
+            return 1f;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Immutable set of cache directives applied to a response.
+ * </p>
+ * <p>
+ * Every header value that only depends on the directives is built once, when the policy is created, so that applying a
+ * policy to a response does not allocate.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachePolicy {
+
+    /**
+     * Expiration of immutable responses: one year, the maximum recommended by HTTP/1.1.
+     */
+    public static final long IMMUTABLE_EXPIRATION = 31536000L;
+
+    private final Cacheability cacheability;
+
+    private final long expiration;
+
+    private final boolean mustRevalidate;
+
+    private final String vary;
+
+    private final boolean immutable;
+
+    private final long sharedMaxAge;
+
+    private final long staleWhileRevalidate;
+
+    private final long staleIfError;
+
+    private final boolean noTransform;
+
+    private final String cacheControl;
+
+    private final ExpiresClock expiresClock;
+
+    private final CacheKeyGenerator keyGenerator;
+
+    private final CachePolicy immutableVariant;
+
+    /**
+     * Constructs a cache policy.
+     *
+     * @param cacheability where the response may be cached
+     * @param expiration the expiration time, in seconds, relative to the current date
+     * @param mustRevalidate whether stale responses must be revalidated
+     * @param vary the {@code Vary} header value, or {@code null}
+     * @param immutable whether the response will not change while it is fresh
+     * @param sharedMaxAge the expiration time, in seconds, for shared caches, or {@code -1} to use {@code expiration}
+     * @param staleWhileRevalidate the time, in seconds, caches may serve the stale response while revalidating it, or
+     *        {@code -1}
+     * @param staleIfError the time, in seconds, caches may serve the stale response when the origin fails, or
+     *        {@code -1}
+     * @param noTransform whether intermediaries must not transform the payload
+     */
+    public CachePolicy(Cacheability cacheability, long expiration, boolean mustRevalidate, String vary,
+            boolean immutable, long sharedMaxAge, long staleWhileRevalidate, long staleIfError, boolean noTransform) {
+        this(cacheability, expiration, mustRevalidate, new CacheKeyGenerator(vary), immutable, sharedMaxAge,
+                staleWhileRevalidate, staleIfError, noTransform);
+    }
+
+    /**
+     * Constructs a cache policy whose {@code Vary} header value is the one of its key generator.
+     *
+     * @param cacheability where the response may be cached
+     * @param expiration the expiration time, in seconds, relative to the current date
+     * @param mustRevalidate whether stale responses must be revalidated
+     * @param keyGenerator the generator of the server side cache keys, holding the {@code Vary} header value
+     * @param immutable whether the response will not change while it is fresh
+     * @param sharedMaxAge the expiration time, in seconds, for shared caches, or {@code -1} to use {@code expiration}
+     * @param staleWhileRevalidate the time, in seconds, caches may serve the stale response while revalidating it, or
+     *        {@code -1}
+     * @param staleIfError the time, in seconds, caches may serve the stale response when the origin fails, or
+     *        {@code -1}
+     * @param noTransform whether intermediaries must not transform the payload
+     */
+    public CachePolicy(Cacheability cacheability, long expiration, boolean mustRevalidate,
+            CacheKeyGenerator keyGenerator, boolean immutable, long sharedMaxAge, long staleWhileRevalidate,
+            long staleIfError, boolean noTransform) {
+        this.cacheability = cacheability;
+        this.expiration = expiration;
+        this.mustRevalidate = mustRevalidate;
+        this.vary = keyGenerator.getVary();
+        this.immutable = immutable;
+        this.sharedMaxAge = sharedMaxAge;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.staleIfError = staleIfError;
+        this.noTransform = noTransform;
+
+        StringBuilder cacheControlBuilder = new StringBuilder(cacheability.getValue());
+        appendDirective(cacheControlBuilder, CacheDirective.MAX_AGE, expiration);
+        appendDirective(cacheControlBuilder, CacheDirective.S_MAXAGE, sharedMaxAge);
+        appendDirective(cacheControlBuilder, CacheDirective.MUST_REVALIDATE, mustRevalidate);
+        appendDirective(cacheControlBuilder, CacheDirective.NO_TRANSFORM, noTransform);
+        appendDirective(cacheControlBuilder, CacheDirective.IMMUTABLE, immutable);
+        appendDirective(cacheControlBuilder, CacheDirective.STALE_WHILE_REVALIDATE, staleWhileRevalidate);
+        appendDirective(cacheControlBuilder, CacheDirective.STALE_IF_ERROR, staleIfError);
+        this.cacheControl = cacheControlBuilder.toString();
+        this.expiresClock = new ExpiresClock(expiration);
+        this.keyGenerator = keyGenerator;
+        this.immutableVariant = immutable ? this : new CachePolicy(cacheability, IMMUTABLE_EXPIRATION, false,
+                keyGenerator, true, -1L, -1L, staleIfError, noTransform);
+    }
+
+    /**
+     * Creates a cache policy from the {@code expiration}, {@code private}, {@code must-revalidate}, {@code vary},
+     * {@code vary-encodings}, {@code vary-languages}, {@code immutable}, {@code s-maxage},
+     * {@code stale-while-revalidate}, {@code stale-if-error} and {@code no-transform} initialization parameters of a
+     * filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the cache policy
+     * @throws ServletException if a parameter is invalid, or the {@code expiration} parameter is missing
+     */
+    public static CachePolicy configure(FilterConfig filterConfig) throws ServletException {
+        return new CachePolicy(CacheConfigParameter.PRIVATE.getBooleanValue(filterConfig) ? Cacheability.PRIVATE
+                : Cacheability.PUBLIC, CacheConfigParameter.EXPIRATION.getLongValue(filterConfig, null),
+                CacheConfigParameter.MUST_REVALIDATE.getBooleanValue(filterConfig),
+                CacheKeyGenerator.configure(filterConfig),
+                CacheConfigParameter.IMMUTABLE.getBooleanValue(filterConfig), getSeconds(filterConfig,
+                        CacheConfigParameter.S_MAXAGE), getSeconds(filterConfig,
+                        CacheConfigParameter.STALE_WHILE_REVALIDATE), getSeconds(filterConfig,
+                        CacheConfigParameter.STALE_IF_ERROR),
+                CacheConfigParameter.NO_TRANSFORM.getBooleanValue(filterConfig));
+    }
+
+    private static long getSeconds(FilterConfig filterConfig, CacheConfigParameter parameter) throws ServletException {
+        long seconds = parameter.getLongValue(filterConfig, -1L);
+        if (seconds < -1L || seconds == -1L && parameter.getValue(filterConfig) != null) {
+            throw parameter.invalid(filterConfig);
+        }
+        return seconds;
+    }
+
+    private static void appendDirective(StringBuilder cacheControl, CacheDirective directive, long seconds) {
+        if (seconds >= 0) {
+            cacheControl.append(", ").append(directive.getValue()).append('=').append(seconds);
+        }
+    }
+
+    private static void appendDirective(StringBuilder cacheControl, CacheDirective directive, boolean enabled) {
+        if (enabled) {
+            cacheControl.append(", ").append(directive.getValue());
+        }
+    }
+
+    /**
+     * Gets where the response may be cached.
+     *
+     * @return the cacheability
+     */
+    public Cacheability getCacheability() {
+        return cacheability;
+    }
+
+    /**
+     * Gets the expiration time, in seconds, relative to the current date.
+     *
+     * @return the expiration time in seconds
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Tells whether stale responses must be revalidated.
+     *
+     * @return {@code true} if the {@code must-revalidate} directive is set
+     */
+    public boolean isMustRevalidate() {
+        return mustRevalidate;
+    }
+
+    /**
+     * Gets the {@code Vary} header value, trimmed and without duplicates.
+     *
+     * @return the {@code Vary} header value, or {@code null} if responses do not vary
+     */
+    public String getVary() {
+        return vary;
+    }
+
+    /**
+     * Gets the expiration time for shared caches.
+     *
+     * @return the expiration time in seconds, or {@code -1} if shared caches use the {@code max-age} directive
+     */
+    public long getSharedMaxAge() {
+        return sharedMaxAge;
+    }
+
+    /**
+     * Gets the time caches may serve the stale response while they revalidate it.
+     *
+     * @return the time in seconds, or {@code -1} if the directive is not set
+     */
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * Gets the time caches may serve the stale response when the origin server fails.
+     *
+     * @return the time in seconds, or {@code -1} if the directive is not set
+     */
+    public long getStaleIfError() {
+        return staleIfError;
+    }
+
+    /**
+     * Tells whether intermediaries must not transform the payload.
+     *
+     * @return {@code true} if the {@code no-transform} directive is set
+     */
+    public boolean isNoTransform() {
+        return noTransform;
+    }
+
+    /**
+     * Tells whether the response will not change while it is fresh, so that clients never need to revalidate it.
+     *
+     * @return {@code true} if the {@code immutable} directive is set
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    /**
+     * Gets the policy of the fingerprinted resources otherwise matching this policy: same cacheability, {@code Vary}
+     * header, {@code no-transform} and {@code stale-if-error} directives, {@code immutable} and fresh for one year.
+     *
+     * @return the immutable variant of this policy
+     */
+    public CachePolicy getImmutableVariant() {
+        return immutableVariant;
+    }
+
+    /**
+     * Gets the {@code Cache-Control} header value.
+     *
+     * @return the {@code Cache-Control} header value
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * Gets the {@code Expires} header value for the current time.
+     *
+     * @return the {@code Expires} header value
+     */
+    public String getExpires() {
+        return expiresClock.getValue();
+    }
+
+    /**
+     * Gets the generator of the server side cache keys, based on the {@code Vary} header value.
+     *
+     * @return the cache key generator
+     */
+    public CacheKeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+}
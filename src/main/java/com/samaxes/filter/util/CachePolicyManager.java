@@ -0,0 +1,363 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+import javax.servlet.Filter;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Holder of the cache policies of a filter, which can be replaced while the filter is running.
+ * </p>
+ * <p>
+ * The policies are kept in an immutable {@link CachePolicySnapshot} behind a volatile reference: requests read it
+ * without locking, and a change builds a complete new snapshot before publishing it. Changes come from a properties
+ * file, whose modification date is checked at most once per {@code policy-check-interval} by the first request past
+ * the interval, and from the {@link CachePolicyManagerMXBean} operations when the {@code reloadable} parameter is set.
+ * An invalid change is reported and ignored, the previous snapshot staying in effect.
+ * </p>
+ * <p>
+ * The policy file holds the parameters overriding the filter ones, one per line, e.g.:
+ * </p>
+ *
+ * <pre>
+ * expiration=600
+ * rules=/img/* expiration=2592000\n\
+ *       *.css expiration=604800; vary=Accept-Encoding
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachePolicyManager implements CachePolicyManagerMXBean {
+
+    private static final long DEFAULT_CHECK_INTERVAL = 5000L;
+
+    private final FilterConfig filterConfig;
+
+    private final File policyFile;
+
+    private final long checkInterval;
+
+    private final AtomicLong nextCheck = new AtomicLong();
+
+    private volatile CachePolicySnapshot snapshot;
+
+    private volatile long fileLastModified;
+
+    private volatile long reloadCount;
+
+    private volatile long lastReloadTime;
+
+    private volatile String lastReloadError;
+
+    private Properties fileParameters = new Properties();
+
+    private Map<String, String> overrides = Collections.emptyMap();
+
+    private FilterMetrics metrics;
+
+    private ObjectName objectName;
+
+    /**
+     * Constructs a policy manager, reading the policy file if there is one.
+     *
+     * @param filterConfig the filter configuration
+     * @param policyFile the properties file overriding the filter parameters, or {@code null}
+     * @param checkInterval the time, in milliseconds, between two checks of the policy file modification date
+     * @throws ServletException if the policy file cannot be read, or a parameter is invalid
+     */
+    public CachePolicyManager(FilterConfig filterConfig, File policyFile, long checkInterval) throws ServletException {
+        this.filterConfig = filterConfig;
+        this.policyFile = policyFile;
+        this.checkInterval = checkInterval;
+        try {
+            if (policyFile != null) {
+                fileLastModified = policyFile.lastModified();
+                fileParameters = readPolicyFile();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ServletException(e.getMessage(), e);
+        }
+        snapshot = build(fileParameters, overrides);
+        nextCheck.set(System.currentTimeMillis() + checkInterval);
+    }
+
+    /**
+     * Creates a policy manager from the {@code policy-file}, {@code policy-check-interval} and {@code reloadable}
+     * initialization parameters of a filter, along with the cache policy parameters.
+     *
+     * @param filterConfig the filter configuration
+     * @param filter the filter
+     * @return the policy manager, registered with the platform MBean server if the {@code reloadable} parameter is set
+     * @throws ServletException if a parameter is invalid, or the policy manager cannot be registered
+     */
+    public static CachePolicyManager configure(FilterConfig filterConfig, Filter filter) throws ServletException {
+        String policyFileValue = CacheConfigParameter.POLICY_FILE.getValue(filterConfig);
+        long checkInterval = CacheConfigParameter.POLICY_CHECK_INTERVAL.getLongValue(filterConfig,
+                DEFAULT_CHECK_INTERVAL);
+        if (checkInterval < 0L) {
+            throw CacheConfigParameter.POLICY_CHECK_INTERVAL.invalid(filterConfig);
+        }
+
+        CachePolicyManager manager = new CachePolicyManager(filterConfig, policyFileValue == null ? null : new File(
+                policyFileValue), checkInterval);
+        if (CacheConfigParameter.RELOADABLE.getBooleanValue(filterConfig)) {
+            manager.objectName = FilterMBeans.register(manager, filterConfig, filter, "policy");
+        }
+        return manager;
+    }
+
+    /**
+     * Gets the current cache policies, after checking the policy file if the check interval has elapsed.
+     *
+     * @return the current snapshot of the cache policies
+     */
+    public CachePolicySnapshot getSnapshot() {
+        if (policyFile != null) {
+            long now = System.currentTimeMillis();
+            long next = nextCheck.get();
+            // A single request checks the file once the interval has elapsed
+            if (now >= next && nextCheck.compareAndSet(next, now + checkInterval)
+                    && policyFile.lastModified() != fileLastModified) {
+                try {
+                    reload();
+                } catch (IllegalArgumentException e) {
+                    ServletContext servletContext = filterConfig.getServletContext();
+                    if (servletContext != null) {
+                        servletContext.log(e.getMessage());
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Sets the statistics counting the responses tagged by each policy, which follow the policy changes.
+     *
+     * @param metrics the filter statistics, or {@code null}
+     */
+    public synchronized void setMetrics(FilterMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.setPolicies(snapshot.getPolicies());
+        }
+    }
+
+    /**
+     * Unregisters the policy manager from the platform MBean server.
+     */
+    public void unregister() {
+        FilterMBeans.unregister(objectName);
+        objectName = null;
+    }
+
+    @Override
+    public String getDefaultCacheControl() {
+        return snapshot.getDefaultPolicy().getCacheControl();
+    }
+
+    @Override
+    public Map<String, String> getCacheControls() {
+        Map<String, String> cacheControls = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, CachePolicy> policy : snapshot.getPolicies().entrySet()) {
+            cacheControls.put(policy.getKey(), policy.getValue().getCacheControl());
+        }
+        return cacheControls;
+    }
+
+    @Override
+    public synchronized Map<String, String> getParameters() {
+        return overrides;
+    }
+
+    @Override
+    public String getPolicyFile() {
+        return policyFile == null ? null : policyFile.getPath();
+    }
+
+    @Override
+    public long getReloadCount() {
+        return reloadCount;
+    }
+
+    @Override
+    public long getLastReloadTime() {
+        return lastReloadTime;
+    }
+
+    @Override
+    public String getLastReloadError() {
+        return lastReloadError;
+    }
+
+    @Override
+    public synchronized void setParameter(String name, String value) {
+        if (!CachePolicySnapshot.isPolicyParameter(name)) {
+            throw rejected(new StringBuilder("The parameter ").append(name).append(" of the filter ")
+                    .append(filterConfig.getFilterName()).append(" is not a cache policy parameter.").toString());
+        }
+        Map<String, String> newOverrides = new LinkedHashMap<String, String>(overrides);
+        if (value == null) {
+            newOverrides.remove(name);
+        } else {
+            newOverrides.put(name, value);
+        }
+        apply(fileParameters, newOverrides);
+        overrides = Collections.unmodifiableMap(newOverrides);
+    }
+
+    @Override
+    public void removeParameter(String name) {
+        setParameter(name, null);
+    }
+
+    @Override
+    public synchronized void resetParameters() {
+        Map<String, String> newOverrides = Collections.emptyMap();
+        apply(fileParameters, newOverrides);
+        overrides = newOverrides;
+    }
+
+    @Override
+    public synchronized void reload() {
+        Properties newFileParameters = fileParameters;
+        if (policyFile != null) {
+            fileLastModified = policyFile.lastModified();
+            try {
+                newFileParameters = readPolicyFile();
+            } catch (IllegalArgumentException e) {
+                throw rejected(e.getMessage());
+            }
+        }
+        apply(newFileParameters, overrides);
+        fileParameters = newFileParameters;
+    }
+
+    private void apply(Properties newFileParameters, Map<String, String> newOverrides) {
+        CachePolicySnapshot newSnapshot;
+        try {
+            newSnapshot = build(newFileParameters, newOverrides);
+        } catch (ServletException e) {
+            throw rejected(e.getMessage());
+        }
+        snapshot = newSnapshot;
+        reloadCount++;
+        lastReloadTime = System.currentTimeMillis();
+        lastReloadError = null;
+        if (metrics != null) {
+            metrics.setPolicies(newSnapshot.getPolicies());
+        }
+    }
+
+    private IllegalArgumentException rejected(String message) {
+        lastReloadError = message;
+        return new IllegalArgumentException(message);
+    }
+
+    private CachePolicySnapshot build(Properties newFileParameters, Map<String, String> newOverrides)
+            throws ServletException {
+        return CachePolicySnapshot.configure(overlay(newFileParameters, newOverrides));
+    }
+
+    /**
+     * Reads the policy file. A missing file overrides no parameter, so that it can be created later on.
+     */
+    private Properties readPolicyFile() {
+        Properties properties = new Properties();
+        if (!policyFile.isFile()) {
+            return properties;
+        }
+        try {
+            InputStream in = new FileInputStream(policyFile);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(new StringBuilder("The policy file ").append(policyFile)
+                    .append(" of the filter ").append(filterConfig.getFilterName()).append(" cannot be read: ")
+                    .append(e.getMessage()).toString(), e);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            if (!CachePolicySnapshot.isPolicyParameter(name)) {
+                throw new IllegalArgumentException(new StringBuilder("The parameter ").append(name)
+                        .append(" of the policy file ").append(policyFile).append(" of the filter ")
+                        .append(filterConfig.getFilterName()).append(" is not a cache policy parameter.")
+                        .toString());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Gets the filter configuration seen through the parameters overriding it.
+     */
+    private FilterConfig overlay(final Properties newFileParameters, final Map<String, String> newOverrides) {
+        return new FilterConfig() {
+            @Override
+            public String getFilterName() {
+                return filterConfig.getFilterName();
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return filterConfig.getServletContext();
+            }
+
+            @Override
+            public String getInitParameter(String name) {
+                if (newOverrides.containsKey(name)) {
+                    return newOverrides.get(name);
+                }
+                String value = newFileParameters.getProperty(name);
+                return value == null ? filterConfig.getInitParameter(name) : value;
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames() {
+                Set<String> names = new LinkedHashSet<String>();
+                for (Enumeration<String> e = filterConfig.getInitParameterNames(); e.hasMoreElements();) {
+                    names.add(e.nextElement());
+                }
+                names.addAll(newFileParameters.stringPropertyNames());
+                names.addAll(newOverrides.keySet());
+                return Collections.enumeration(names);
+            }
+        };
+    }
+}
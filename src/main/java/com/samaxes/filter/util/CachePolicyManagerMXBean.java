@@ -0,0 +1,113 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Management interface of the cache policies of a filter, registered as
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>,component=policy} when the
+ * {@code reloadable} parameter is set.
+ * </p>
+ * <p>
+ * Parameters set through this interface override the ones of the policy file, which override the initialization
+ * parameters of the filter. A change taking effect replaces all the policies at once; an invalid change is rejected
+ * and the current policies are kept.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface CachePolicyManagerMXBean {
+
+    /**
+     * Gets the {@code Cache-Control} header value of the policy built from the filter parameters.
+     *
+     * @return the default {@code Cache-Control} header value
+     */
+    String getDefaultCacheControl();
+
+    /**
+     * Gets the {@code Cache-Control} header value of every policy, keyed by rule pattern.
+     *
+     * @return the {@code Cache-Control} header value per policy
+     */
+    Map<String, String> getCacheControls();
+
+    /**
+     * Gets the parameters set through this interface.
+     *
+     * @return the overriding parameter values keyed by parameter name
+     */
+    Map<String, String> getParameters();
+
+    /**
+     * Gets the path of the properties file overriding the filter parameters.
+     *
+     * @return the policy file path, or {@code null} if there is none
+     */
+    String getPolicyFile();
+
+    /**
+     * Gets the number of times the policies were replaced since the filter started.
+     *
+     * @return the reload count
+     */
+    long getReloadCount();
+
+    /**
+     * Gets the time the policies were last replaced.
+     *
+     * @return the time in milliseconds since the epoch, or {@code 0} if they were never replaced
+     */
+    long getLastReloadTime();
+
+    /**
+     * Gets the reason the last change was rejected.
+     *
+     * @return the error message, or {@code null} if the last change took effect
+     */
+    String getLastReloadError();
+
+    /**
+     * Overrides a parameter, e.g. {@code expiration} or {@code rules}, and replaces the policies.
+     *
+     * @param name the parameter name
+     * @param value the parameter value, or {@code null} to remove the override
+     */
+    void setParameter(String name, String value);
+
+    /**
+     * Removes the override of a parameter and replaces the policies.
+     *
+     * @param name the parameter name
+     */
+    void removeParameter(String name);
+
+    /**
+     * Removes all the parameters set through this interface and replaces the policies.
+     */
+    void resetParameters();
+
+    /**
+     * Reads the policy file again and replaces the policies.
+     */
+    void reload();
+}
@@ -0,0 +1,145 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Immutable set of the cache policies of a filter: the policy built from the filter parameters, the policies selected
+ * by the {@code rules}, and whether fingerprinted resources are cached as immutable.
+ * </p>
+ * <p>
+ * A snapshot is never modified once built. Changing the policies of a running filter builds a new snapshot, which
+ * replaces the previous one at once, so that requests always apply a consistent set of policies without locking.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachePolicySnapshot {
+
+    /**
+     * The initialization parameters a snapshot is built from.
+     */
+    public static final CacheConfigParameter[] PARAMETERS = { CacheConfigParameter.EXPIRATION,
+            CacheConfigParameter.PRIVATE, CacheConfigParameter.MUST_REVALIDATE, CacheConfigParameter.VARY,
+            CacheConfigParameter.VARY_ENCODINGS, CacheConfigParameter.VARY_LANGUAGES, CacheConfigParameter.IMMUTABLE,
+            CacheConfigParameter.S_MAXAGE, CacheConfigParameter.STALE_WHILE_REVALIDATE,
+            CacheConfigParameter.STALE_IF_ERROR, CacheConfigParameter.NO_TRANSFORM, CacheConfigParameter.RULES,
+            CacheConfigParameter.FINGERPRINT };
+
+    private final CachePolicy defaultPolicy;
+
+    private final CachePolicyTable policyTable;
+
+    private final boolean fingerprint;
+
+    /**
+     * Constructs a snapshot of the cache policies.
+     *
+     * @param defaultPolicy the policy of the requests matching no rule
+     * @param policyTable the policies selected by URL pattern or media type, or {@code null} if there are no rules
+     * @param fingerprint whether fingerprinted resources are cached as immutable
+     */
+    public CachePolicySnapshot(CachePolicy defaultPolicy, CachePolicyTable policyTable, boolean fingerprint) {
+        this.defaultPolicy = defaultPolicy;
+        this.policyTable = policyTable;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Builds a snapshot of the cache policies from the initialization parameters of a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the snapshot
+     * @throws ServletException if a parameter or a rule is invalid, or the {@code expiration} parameter is missing
+     */
+    public static CachePolicySnapshot configure(FilterConfig filterConfig) throws ServletException {
+        CachePolicy defaultPolicy = CachePolicy.configure(filterConfig);
+        return new CachePolicySnapshot(defaultPolicy, CachePolicyTable.compile(filterConfig, defaultPolicy),
+                CacheConfigParameter.FINGERPRINT.getBooleanValue(filterConfig));
+    }
+
+    /**
+     * Tells if a parameter is one of the parameters a snapshot is built from.
+     *
+     * @param name the parameter name
+     * @return {@code true} if the parameter defines the cache policies
+     */
+    public static boolean isPolicyParameter(String name) {
+        for (CacheConfigParameter parameter : PARAMETERS) {
+            if (parameter.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the policy built from the filter parameters.
+     *
+     * @return the policy of the requests matching no rule
+     */
+    public CachePolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Gets the policies selected by URL pattern or media type.
+     *
+     * @return the policy table, or {@code null} if there are no rules
+     */
+    public CachePolicyTable getPolicyTable() {
+        return policyTable;
+    }
+
+    /**
+     * Tells if fingerprinted resources are cached as immutable.
+     *
+     * @return {@code true} if fingerprinted resources matching no URL rule get the immutable variant of the default
+     *         policy
+     */
+    public boolean isFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets all the policies a request can be tagged with, named after their rule pattern, {@code default} for the
+     * policy built from the filter parameters, and {@code default (fingerprinted)} for its immutable variant.
+     *
+     * @return the policies keyed by name, in declaration order
+     */
+    public Map<String, CachePolicy> getPolicies() {
+        Map<String, CachePolicy> policies = new LinkedHashMap<String, CachePolicy>();
+        policies.put("default", defaultPolicy);
+        if (policyTable != null) {
+            policies.putAll(policyTable.getRules());
+        }
+        if (fingerprint) {
+            policies.put("default (fingerprinted)", defaultPolicy.getImmutableVariant());
+        }
+        return Collections.unmodifiableMap(policies);
+    }
+}
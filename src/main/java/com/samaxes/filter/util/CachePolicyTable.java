@@ -0,0 +1,362 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Table of cache policies selected by request path, compiled once so that looking up the policy of a request takes a
+ * single pass over its URI and does not allocate.
+ * </p>
+ * <p>
+ * The table is declared with the {@code rules} initialization parameter, one rule per line. A rule is a URL pattern
+ * followed by the parameters overriding the filter ones, separated by semicolons:
+ * </p>
+ *
+ * <pre>
+ * /img/*       expiration=2592000
+ * *.css        expiration=604800; vary=Accept-Encoding
+ * /api/*       expiration=0; private=true; must-revalidate=true
+ * /index.html  expiration=60
+ * text/html    expiration=300
+ * image/*      expiration=2592000
+ * </pre>
+ * <p>
+ * URL patterns follow the Servlet mapping syntax and precedence: an exact path wins over the longest matching
+ * {@code /path/*} prefix, which wins over a {@code *.extension} pattern. Patterns are relative to the context path and
+ * matched against the undecoded request URI; path parameters (e.g. {@code ;jsessionid=}) are ignored.
+ * </p>
+ * <p>
+ * Media type patterns ({@code type/subtype} or {@code type/*}) select the policy of the requests matching no URL
+ * pattern from the response content type, ignoring case and parameters; an exact media type wins over a wildcard.
+ * Requests matching no rule at all use the filter parameters.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachePolicyTable {
+
+    private static final CacheConfigParameter[] RULE_PARAMETERS = { CacheConfigParameter.EXPIRATION,
+            CacheConfigParameter.PRIVATE, CacheConfigParameter.MUST_REVALIDATE, CacheConfigParameter.VARY,
+            CacheConfigParameter.VARY_ENCODINGS, CacheConfigParameter.VARY_LANGUAGES, CacheConfigParameter.IMMUTABLE,
+            CacheConfigParameter.S_MAXAGE, CacheConfigParameter.STALE_WHILE_REVALIDATE,
+            CacheConfigParameter.STALE_IF_ERROR, CacheConfigParameter.NO_TRANSFORM };
+
+    private final CachePolicy defaultPolicy;
+
+    private final Map<String, CachePolicy> rules = new LinkedHashMap<String, CachePolicy>();
+
+    private final Map<String, CachePolicy> exactPolicies = new HashMap<String, CachePolicy>();
+
+    private final Node prefixes = new Node();
+
+    private final Node extensions = new Node();
+
+    private final Node mediaTypes = new Node();
+
+    private CachePolicyTable(CachePolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * Compiles the {@code rules} initialization parameter of a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @param defaultPolicy the policy of the requests matching no rule
+     * @return the compiled table, or {@code null} if the filter has no rules
+     * @throws ServletException if a rule is invalid
+     */
+    public static CachePolicyTable compile(FilterConfig filterConfig, CachePolicy defaultPolicy)
+            throws ServletException {
+        String rules = CacheConfigParameter.RULES.getValue(filterConfig);
+        if (rules == null || rules.trim().isEmpty()) {
+            return null;
+        }
+
+        ServletContext servletContext = filterConfig.getServletContext();
+        String contextPath = servletContext == null ? "" : servletContext.getContextPath();
+        CachePolicyTable table = new CachePolicyTable(defaultPolicy);
+        for (String line : rules.split("[\r\n]+")) {
+            String rule = line.trim();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+
+            int separator = indexOfWhitespace(rule);
+            String pattern = separator < 0 ? rule : rule.substring(0, separator);
+            CachePolicy policy = CachePolicy.configure(ruleConfig(filterConfig, pattern,
+                    separator < 0 ? "" : rule.substring(separator + 1)));
+
+            if (pattern.startsWith("*.") && pattern.length() > 2) {
+                table.extensions.put(pattern, 2, policy);
+            } else if (pattern.equals("/*")) {
+                table.prefixes.put(contextPath, 0, policy);
+            } else if (pattern.startsWith("/") && pattern.endsWith("/*")) {
+                table.prefixes.put(contextPath + pattern.substring(0, pattern.length() - 2), 0, policy);
+            } else if (pattern.startsWith("/") && pattern.indexOf('*') < 0) {
+                table.exactPolicies.put(contextPath + pattern, policy);
+            } else if (isMediaType(pattern)) {
+                table.mediaTypes.put(pattern.toLowerCase(Locale.ENGLISH), 0, policy);
+            } else {
+                throw CacheConfigParameter.RULES.invalid(filterConfig);
+            }
+            table.rules.put(pattern, policy);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the policies of the rules, in declaration order.
+     *
+     * @return the policies keyed by rule pattern
+     */
+    public Map<String, CachePolicy> getRules() {
+        return Collections.unmodifiableMap(rules);
+    }
+
+    /**
+     * Gets the policy of a request.
+     *
+     * @param requestURI the request URI, as returned by {@code HttpServletRequest.getRequestURI()}
+     * @return the policy of the most specific matching URL pattern, or the default policy if no URL pattern matches
+     */
+    public CachePolicy lookup(String requestURI) {
+        CachePolicy policy = match(requestURI);
+        return policy == null ? defaultPolicy : policy;
+    }
+
+    /**
+     * Tells if the table has media type rules, in which case the policy of the requests matching no URL pattern depends
+     * on the response content type.
+     *
+     * @return {@code true} if the table has media type rules
+     */
+    public boolean hasMediaTypeRules() {
+        return mediaTypes.labels.length > 0;
+    }
+
+    /**
+     * Gets the policy of a response from its content type.
+     *
+     * @param contentType the response content type, possibly with parameters, or {@code null}
+     * @return the policy of the most specific matching media type, or the default policy if no media type matches
+     */
+    public CachePolicy lookupMediaType(String contentType) {
+        if (contentType == null) {
+            return defaultPolicy;
+        }
+
+        CachePolicy wildcard = null;
+        Node node = mediaTypes;
+        int length = contentType.length();
+        for (int i = 0; i < length && node != null; i++) {
+            char c = contentType.charAt(i);
+            if (c == ';' || c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                Node any = node.child('/');
+                any = any == null ? null : any.child('*');
+                wildcard = any == null ? null : any.policy;
+            }
+            node = node.child(Character.toLowerCase(c));
+        }
+        if (node != null && node.policy != null && node != mediaTypes) {
+            return node.policy;
+        }
+        return wildcard == null ? defaultPolicy : wildcard;
+    }
+
+    /**
+     * Gets the policy of the most specific URL pattern matching a request.
+     *
+     * @param requestURI the request URI, as returned by {@code HttpServletRequest.getRequestURI()}
+     * @return the matching policy, or {@code null} if no URL pattern matches
+     */
+    public CachePolicy match(String requestURI) {
+        int end = requestURI.indexOf(';');
+        if (end < 0) {
+            end = requestURI.length();
+            CachePolicy policy = exactPolicies.get(requestURI);
+            if (policy != null) {
+                return policy;
+            }
+        } else if (!exactPolicies.isEmpty()) {
+            for (Map.Entry<String, CachePolicy> exact : exactPolicies.entrySet()) {
+                if (exact.getKey().length() == end && requestURI.startsWith(exact.getKey())) {
+                    return exact.getValue();
+                }
+            }
+        }
+
+        // Longest prefix ending at a path segment boundary
+        CachePolicy policy = null;
+        Node node = prefixes;
+        for (int i = 0; node != null; i++) {
+            if (node.policy != null && (i == end || requestURI.charAt(i) == '/')) {
+                policy = node.policy;
+            }
+            node = i < end ? node.child(requestURI.charAt(i)) : null;
+        }
+        if (policy != null) {
+            return policy;
+        }
+
+        // Extension of the last path segment
+        int dot = -1;
+        for (int i = end - 1; i >= 0 && requestURI.charAt(i) != '/'; i--) {
+            if (requestURI.charAt(i) == '.') {
+                dot = i;
+                break;
+            }
+        }
+        if (dot >= 0) {
+            node = extensions;
+            for (int i = dot + 1; i < end && node != null; i++) {
+                node = node.child(requestURI.charAt(i));
+            }
+            if (node != null && node.policy != null) {
+                return node.policy;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isMediaType(String pattern) {
+        int slash = pattern.indexOf('/');
+        int wildcard = pattern.indexOf('*');
+        return slash > 0 && slash < pattern.length() - 1 && pattern.indexOf('/', slash + 1) < 0
+                && (wildcard < 0 || wildcard == slash + 1 && wildcard == pattern.length() - 1);
+    }
+
+    private static int indexOfWhitespace(String rule) {
+        for (int i = 0; i < rule.length(); i++) {
+            if (Character.isWhitespace(rule.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Configuration of a rule: its own parameters, falling back to the filter ones.
+     */
+    private static FilterConfig ruleConfig(final FilterConfig filterConfig, final String pattern, String parameters)
+            throws ServletException {
+        final Map<String, String> ruleParameters = new HashMap<String, String>();
+        for (String parameter : parameters.split(";")) {
+            if (parameter.trim().isEmpty()) {
+                continue;
+            }
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? "" : parameter.substring(0, equals).trim();
+            if (!isRuleParameter(name)) {
+                throw CacheConfigParameter.RULES.invalid(filterConfig);
+            }
+            ruleParameters.put(name, parameter.substring(equals + 1).trim());
+        }
+
+        return new FilterConfig() {
+            @Override
+            public String getFilterName() {
+                return new StringBuilder(filterConfig.getFilterName()).append(" (rule ").append(pattern).append(")")
+                        .toString();
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return filterConfig.getServletContext();
+            }
+
+            @Override
+            public String getInitParameter(String name) {
+                return ruleParameters.containsKey(name) ? ruleParameters.get(name) : filterConfig
+                        .getInitParameter(name);
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames() {
+                return Collections.enumeration(ruleParameters.keySet());
+            }
+        };
+    }
+
+    private static boolean isRuleParameter(String name) {
+        for (CacheConfigParameter parameter : RULE_PARAMETERS) {
+            if (parameter.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Trie node, with its children in small parallel arrays scanned linearly.
+     */
+    private static final class Node {
+
+        private char[] labels = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private CachePolicy policy;
+
+        private Node child(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(String key, int start, CachePolicy value) {
+            Node node = this;
+            for (int i = start; i < key.length(); i++) {
+                Node next = node.child(key.charAt(i));
+                if (next == null) {
+                    next = new Node();
+                    int length = node.labels.length;
+                    char[] labels = new char[length + 1];
+                    System.arraycopy(node.labels, 0, labels, 0, length);
+                    labels[length] = key.charAt(i);
+                    Node[] children = new Node[length + 1];
+                    System.arraycopy(node.children, 0, children, 0, length);
+                    children[length] = next;
+                    node.labels = labels;
+                    node.children = children;
+                }
+                node = next;
+            }
+            node.policy = value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * <p>
+ * Removes responses from the server side cache of a filter before they expire, e.g. once the content they were
+ * generated from changes.
+ * </p>
+ * <p>
+ * The purger of a filter keeping responses on the server side is published as the servlet context attribute
+ * {@code com.samaxes.filter.util.CachePurger.<filter name>}, so that the application can purge the responses it
+ * updates:
+ * </p>
+ *
+ * <pre>
+ * CachePurger purger = (CachePurger) servletContext.getAttribute(CachePurger.ATTRIBUTE_PREFIX + &quot;pageCache&quot;);
+ * purger.purgeTag(&quot;product-42&quot;);
+ * </pre>
+ * <p>
+ * Responses are filed under the tags listed in their {@code Surrogate-Key} header, separated by spaces, and in their
+ * {@code Cache-Tag} header, separated by commas.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface CachePurger {
+
+    /**
+     * Prefix of the servlet context attribute the purger of a filter is published as, followed by the filter name.
+     */
+    String ATTRIBUTE_PREFIX = CachePurger.class.getName() + ".";
+
+    /**
+     * Removes the responses generated for a path, with any query string and in every variant.
+     *
+     * @param path the request URI relative to the context path, without query string, e.g. {@code /index.html}
+     * @return the number of removed responses
+     */
+    int purgePath(String path);
+
+    /**
+     * Removes the responses generated for the paths starting with a prefix.
+     *
+     * @param prefix the beginning of the request URIs relative to the context path, e.g. {@code /products/}
+     * @return the number of removed responses
+     */
+    int purgePathPrefix(String prefix);
+
+    /**
+     * Removes the responses filed under a tag.
+     *
+     * @param tag the tag
+     * @return the number of removed responses
+     */
+    int purgeTag(String tag);
+
+    /**
+     * Removes all the responses.
+     */
+    void purgeAll();
+}
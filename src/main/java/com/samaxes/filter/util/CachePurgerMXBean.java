@@ -0,0 +1,30 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * Management interface of the server side cache of a filter, registered as
+ * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>,component=cache} when the
+ * filter keeps responses on the server side.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface CachePurgerMXBean extends CachePurger {
+}
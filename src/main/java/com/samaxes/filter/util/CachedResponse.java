@@ -0,0 +1,215 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Complete response held by a server side cache: status, headers and body.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachedResponse {
+
+    private final String key;
+
+    private final String path;
+
+    private final String[] tags;
+
+    private final int status;
+
+    private final String contentType;
+
+    private final String[] headers;
+
+    private final ResponseBody body;
+
+    private final long created;
+
+    private final long expires;
+
+    /**
+     * Constructs a cached response.
+     *
+     * @param key the cache key
+     * @param path the request URI relative to the context path, without query string
+     * @param tags the tags the response is filed under, see {@link HTTPCacheHeader#SURROGATE_KEY}
+     * @param status the response status code
+     * @param contentType the response content type, or {@code null}
+     * @param headers the header names and values, as consecutive name and value elements
+     * @param body the response body, whose reference is owned by the new instance
+     * @param created the time the response was generated, in milliseconds since the epoch
+     * @param expires the time the response becomes stale, in milliseconds since the epoch
+     */
+    public CachedResponse(String key, String path, String[] tags, int status, String contentType, String[] headers,
+            ResponseBody body, long created, long expires) {
+        this.key = key;
+        this.path = path;
+        this.tags = tags;
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+        this.created = created;
+        this.expires = expires;
+    }
+
+    /**
+     * Gets the cache key.
+     *
+     * @return the cache key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the request URI the response was generated for.
+     *
+     * @return the request URI relative to the context path, without query string
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the tags the response is filed under.
+     *
+     * @return the tags, possibly none
+     */
+    public String[] getTags() {
+        return tags;
+    }
+
+    /**
+     * Gets the response status code.
+     *
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the response content type.
+     *
+     * @return the content type, or {@code null}
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the response headers.
+     *
+     * @return the header names and values, as consecutive name and value elements
+     */
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the response body.
+     *
+     * @return the response body
+     */
+    public ResponseBody getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the time the response was generated.
+     *
+     * @return the creation time in milliseconds since the epoch
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Gets the time the response becomes stale.
+     *
+     * @return the expiration time in milliseconds since the epoch
+     */
+    public long getExpires() {
+        return expires;
+    }
+
+    /**
+     * Tells if the response can still be served without going to the origin.
+     *
+     * @param now the current time in milliseconds since the epoch
+     * @return {@code true} if the response is fresh
+     */
+    public boolean isFresh(long now) {
+        return now < expires;
+    }
+
+    /**
+     * Writes the cached status, headers and body to a response. The {@code Age} header is set to the time elapsed since
+     * the response was generated.
+     *
+     * @param response the response to write to
+     * @param now the current time in milliseconds since the epoch
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(HttpServletResponse response, long now) throws IOException {
+        response.setStatus(status);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        for (int i = 0; i < headers.length; i += 2) {
+            if (isFirstOccurrence(i)) {
+                response.setHeader(headers[i], headers[i + 1]);
+            } else {
+                response.addHeader(headers[i], headers[i + 1]);
+            }
+        }
+        response.setHeader(HTTPCacheHeader.AGE.getName(), Long.toString(Math.max(0L, (now - created) / 1000L)));
+        response.setContentLength(body.length());
+        body.writeTo(response.getOutputStream());
+    }
+
+    /**
+     * Acquires a reference to the response body, see {@link ResponseBody#retain()}.
+     */
+    public void retain() {
+        body.retain();
+    }
+
+    /**
+     * Releases a reference to the response body, see {@link ResponseBody#release()}.
+     */
+    public void release() {
+        body.release();
+    }
+
+    private boolean isFirstOccurrence(int index) {
+        for (int i = 0; i < index; i += 2) {
+            if (headers[i].equalsIgnoreCase(headers[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
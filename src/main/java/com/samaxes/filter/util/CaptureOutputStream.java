@@ -0,0 +1,160 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+import javax.servlet.ServletOutputStream;
+
+/**
+ * <p>
+ * Servlet output stream capturing the bytes written to it, shared by the filters that need to hold, hash or measure a
+ * response body.
+ * </p>
+ * <p>
+ * The bytes are kept in a {@link ChunkedBuffer}, up to a limit past which the captured bytes are dropped. They can
+ * also be forwarded to a target stream as they are written, and hashed with a {@link MessageDigest}; forwarding and
+ * hashing go on once the limit is exceeded. Writing to the stream never blocks unless the target does, so a body
+ * written by an asynchronous request is captured without holding a container thread.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CaptureOutputStream extends ServletOutputStream {
+
+    private final ChunkedBuffer buffer;
+
+    private final OutputStream target;
+
+    private final MessageDigest digest;
+
+    private final int limit;
+
+    private boolean overflowed;
+
+    /**
+     * Constructs a capturing stream.
+     *
+     * @param pool the pool the capture buffers are taken from
+     * @param target the stream the bytes are forwarded to, or {@code null} to only capture them
+     * @param digest the digest updated with every written byte, or {@code null}
+     * @param limit the maximum number of bytes captured, or {@code 0} to capture none
+     */
+    public CaptureOutputStream(BufferPool pool, OutputStream target, MessageDigest digest, int limit) {
+        this.buffer = new ChunkedBuffer(pool);
+        this.target = target;
+        this.digest = digest;
+        this.limit = limit;
+        this.overflowed = limit <= 0;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (target != null) {
+            target.write(b);
+        }
+        if (!overflowed) {
+            if (buffer.size() < limit) {
+                buffer.write(b);
+            } else {
+                overflow();
+            }
+        }
+        if (digest != null) {
+            digest.update((byte) b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target != null) {
+            target.write(b, off, len);
+        }
+        if (!overflowed) {
+            if (len <= limit - buffer.size()) {
+                buffer.write(b, off, len);
+            } else {
+                overflow();
+            }
+        }
+        if (digest != null) {
+            digest.update(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Gets the captured bytes.
+     *
+     * @return the buffer holding the captured bytes, or {@code null} if they exceeded the limit or none are captured
+     */
+    public ChunkedBuffer getBuffer() {
+        return overflowed ? null : buffer;
+    }
+
+    /**
+     * Gets the number of captured bytes.
+     *
+     * @return the size in bytes, {@code 0} if they exceeded the limit
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    /**
+     * Gets the digest of the bytes written since the stream was created or last reset, and resets the digest.
+     *
+     * @return the digest, or {@code null} if the bytes are not hashed
+     */
+    public byte[] digest() {
+        return digest == null ? null : digest.digest();
+    }
+
+    /**
+     * Discards the captured bytes and the digest, so that the body can be written again.
+     */
+    public void reset() {
+        buffer.reset();
+        overflowed = limit <= 0;
+        if (digest != null) {
+            digest.reset();
+        }
+    }
+
+    /**
+     * Discards the captured bytes and gives the memory holding them back to the pool, once they are no longer needed.
+     */
+    public void release() {
+        buffer.release();
+    }
+
+    private void overflow() {
+        overflowed = true;
+        buffer.release();
+    }
+}
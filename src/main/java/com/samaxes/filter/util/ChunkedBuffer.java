@@ -0,0 +1,173 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * In-memory byte buffer made of fixed-size chunks taken from a {@link BufferPool}.
+ * </p>
+ * <p>
+ * Unlike a {@code ByteArrayOutputStream}, growing the buffer never copies the bytes already written, and no array
+ * larger than a chunk is ever allocated, so that large bodies do not need large contiguous allocations. The content is
+ * written out chunk by chunk, without being copied into a single array first. The chunks go back to the pool when the
+ * buffer is reset or released.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ChunkedBuffer extends OutputStream {
+
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BufferPool.CHUNK_SIZE];
+        }
+    };
+
+    private final BufferPool pool;
+
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+    private ByteBuffer current;
+
+    private int size;
+
+    /**
+     * Constructs a buffer.
+     *
+     * @param pool the pool the chunks are taken from
+     */
+    public ChunkedBuffer(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) {
+        if (current == null || !current.hasRemaining()) {
+            nextChunk();
+        }
+        current.put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (current == null || !current.hasRemaining()) {
+                nextChunk();
+            }
+            int count = Math.min(remaining, current.remaining());
+            current.put(b, offset, count);
+            offset += count;
+            remaining -= count;
+        }
+        size += len;
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the size in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the content to a stream. Chunks in direct memory are copied through a per-thread transfer buffer.
+     *
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (ByteBuffer chunk : chunks) {
+            int count = chunk.position();
+            if (count == 0) {
+                continue;
+            }
+            if (chunk.hasArray()) {
+                out.write(chunk.array(), chunk.arrayOffset(), count);
+            } else {
+                byte[] transfer = TRANSFER_BUFFER.get();
+                ByteBuffer source = chunk.duplicate();
+                source.flip();
+                source.get(transfer, 0, count);
+                out.write(transfer, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Copies the content into a new array.
+     *
+     * @return the content
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer source = chunk.duplicate();
+            source.flip();
+            int count = source.remaining();
+            source.get(bytes, offset, count);
+            offset += count;
+        }
+        return bytes;
+    }
+
+    /**
+     * Empties the buffer, keeping its first chunk for the next writes and giving the others back to the pool.
+     */
+    public void reset() {
+        for (int i = chunks.size() - 1; i > 0; i--) {
+            pool.release(chunks.remove(i));
+        }
+        current = chunks.isEmpty() ? null : chunks.get(0);
+        if (current != null) {
+            current.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * Empties the buffer and gives all its chunks back to the pool. The buffer can still be written to afterwards.
+     */
+    public void release() {
+        for (ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        current = null;
+        size = 0;
+    }
+
+    private void nextChunk() {
+        current = pool.acquire();
+        chunks.add(current);
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Server side cache whose purges are applied locally and broadcast to the other nodes of a cluster through an
+ * {@link InvalidationTransport}, while the invalidations received from the other nodes are applied locally only.
+ * </p>
+ * <p>
+ * Purges are collected for {@code invalidation-delay} milliseconds and sent in a single batch, so that a burst of
+ * purges costs a single message: duplicates are sent once, paths covered by a pending path prefix are dropped, and a
+ * purge of all the responses replaces every other pending invalidation. Batches are sent by a single daemon thread,
+ * never by the purging one.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ClusterCachePurger implements ClusterCachePurgerMXBean, InvalidationTransport.Receiver {
+
+    /**
+     * Broadcasts invalidations to the other applications of the JVM, see {@link LocalInvalidationTransport}.
+     */
+    public static final String LOCAL_TRANSPORT = "local";
+
+    /**
+     * Broadcasts invalidations over UDP multicast, see {@link MulticastInvalidationTransport}.
+     */
+    public static final String MULTICAST_TRANSPORT = "multicast";
+
+    private static final long DEFAULT_DELAY = 100L;
+
+    private final CachePurger cache;
+
+    private final InvalidationTransport transport;
+
+    private final long delay;
+
+    private final ServletContext servletContext;
+
+    private final ScheduledExecutorService executor;
+
+    private final Runnable flushTask = new Runnable() {
+
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Set<Invalidation> pending = new LinkedHashSet<Invalidation>();
+
+    private boolean flushScheduled;
+
+    private final StripedCounter sentBatches = new StripedCounter();
+
+    private final StripedCounter sentInvalidations = new StripedCounter();
+
+    private final StripedCounter receivedInvalidations = new StripedCounter();
+
+    private final StripedCounter sendFailures = new StripedCounter();
+
+    /**
+     * Constructs a cluster cache purger.
+     *
+     * @param cache the local cache
+     * @param transport the transport, not started yet
+     * @param delay the time, in milliseconds, purges are collected before they are sent
+     * @param servletContext the context logging the send failures, or {@code null}
+     * @param threadName the name of the thread sending the batches
+     */
+    public ClusterCachePurger(CachePurger cache, InvalidationTransport transport, long delay,
+            ServletContext servletContext, final String threadName) {
+        this.cache = cache;
+        this.transport = transport;
+        this.delay = delay;
+        this.servletContext = servletContext;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Creates a cluster cache purger from the {@code invalidation}, {@code invalidation-group},
+     * {@code invalidation-delay} and {@code invalidation-secret} initialization parameters of a filter, and joins its
+     * group.
+     *
+     * @param filterConfig the filter configuration
+     * @param cache the local cache
+     * @return the cluster cache purger, or {@code null} if the filter does not broadcast its purges
+     * @throws ServletException if a parameter is invalid, or the group cannot be joined
+     */
+    public static ClusterCachePurger configure(FilterConfig filterConfig, CachePurger cache) throws ServletException {
+        String transportName = CacheConfigParameter.INVALIDATION.getValue(filterConfig);
+        if (transportName == null || transportName.trim().length() == 0) {
+            return null;
+        }
+        transportName = transportName.trim();
+
+        long delay = CacheConfigParameter.INVALIDATION_DELAY.getLongValue(filterConfig, DEFAULT_DELAY);
+        if (delay < 0L) {
+            throw CacheConfigParameter.INVALIDATION_DELAY.invalid(filterConfig);
+        }
+
+        InvalidationTransport transport;
+        if (LOCAL_TRANSPORT.equals(transportName)) {
+            transport = new LocalInvalidationTransport();
+        } else if (MULTICAST_TRANSPORT.equals(transportName)) {
+            String secret = CacheConfigParameter.INVALIDATION_SECRET.getValue(filterConfig);
+            if (secret != null && secret.length() == 0) {
+                throw CacheConfigParameter.INVALIDATION_SECRET.invalid(filterConfig);
+            }
+            transport = new MulticastInvalidationTransport(secret);
+        } else {
+            transport = newTransport(transportName, filterConfig);
+        }
+
+        ClusterCachePurger purger = new ClusterCachePurger(cache, transport, delay,
+                filterConfig.getServletContext(), "cache-invalidation-" + filterConfig.getFilterName());
+        try {
+            transport.start(CacheConfigParameter.INVALIDATION_GROUP.getValue(filterConfig), purger);
+        } catch (IllegalArgumentException e) {
+            purger.executor.shutdownNow();
+            throw CacheConfigParameter.INVALIDATION_GROUP.invalid(filterConfig);
+        } catch (IOException e) {
+            purger.executor.shutdownNow();
+            throw new ServletException("The invalidation group of the filter " + filterConfig.getFilterName()
+                    + " cannot be joined.", e);
+        }
+        return purger;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int purgePath(String path) {
+        int count = cache.purgePath(path);
+        publish(new Invalidation(Invalidation.Type.PATH, path));
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int purgePathPrefix(String prefix) {
+        int count = cache.purgePathPrefix(prefix);
+        publish(new Invalidation(Invalidation.Type.PATH_PREFIX, prefix));
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int purgeTag(String tag) {
+        int count = cache.purgeTag(tag);
+        publish(new Invalidation(Invalidation.Type.TAG, tag));
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void purgeAll() {
+        cache.purgeAll();
+        publish(Invalidation.ALL);
+    }
+
+    /**
+     * Applies the invalidations sent by another node to the local cache, without broadcasting them again.
+     *
+     * @param invalidations the invalidations
+     */
+    @Override
+    public void receive(List<Invalidation> invalidations) {
+        for (Invalidation invalidation : invalidations) {
+            invalidation.applyTo(cache);
+        }
+        receivedInvalidations.add(invalidations.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getTransport() {
+        return transport.getClass().getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getPendingInvalidationCount() {
+        return pending.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSentBatchCount() {
+        return sentBatches.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSentInvalidationCount() {
+        return sentInvalidations.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getReceivedInvalidationCount() {
+        return receivedInvalidations.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSendFailureCount() {
+        return sendFailures.get();
+    }
+
+    /**
+     * Sends the pending invalidations, and leaves the group.
+     */
+    public void stop() {
+        executor.shutdownNow();
+        flush();
+        transport.stop();
+    }
+
+    private void publish(Invalidation invalidation) {
+        synchronized (this) {
+            if (!coalesce(invalidation) || flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        try {
+            executor.schedule(flushTask, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Stopped: the pending invalidations were sent by stop
+        }
+    }
+
+    /**
+     * Adds an invalidation to the pending ones, unless a pending invalidation covers it. Must be called holding the
+     * lock of this purger.
+     *
+     * @param invalidation the invalidation
+     * @return {@code true} if the invalidation was added, {@code false} if a pending invalidation covers it
+     */
+    private boolean coalesce(Invalidation invalidation) {
+        if (pending.contains(Invalidation.ALL)) {
+            return false;
+        }
+        if (invalidation.getType() == Invalidation.Type.ALL) {
+            pending.clear();
+        } else if (invalidation.getType() == Invalidation.Type.PATH
+                || invalidation.getType() == Invalidation.Type.PATH_PREFIX) {
+            for (Iterator<Invalidation> iterator = pending.iterator(); iterator.hasNext();) {
+                Invalidation other = iterator.next();
+                if (other.getType() == Invalidation.Type.PATH_PREFIX
+                        && invalidation.getValue().startsWith(other.getValue())) {
+                    return false;
+                }
+                if (invalidation.getType() == Invalidation.Type.PATH_PREFIX
+                        && other.getType() != Invalidation.Type.TAG
+                        && other.getValue().startsWith(invalidation.getValue())) {
+                    iterator.remove();
+                }
+            }
+        }
+        return pending.add(invalidation);
+    }
+
+    private void flush() {
+        List<Invalidation> batch;
+        synchronized (this) {
+            batch = new ArrayList<Invalidation>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transport.send(batch);
+            sentBatches.increment();
+            sentInvalidations.add(batch.size());
+        } catch (IOException e) {
+            sendFailures.increment();
+            if (servletContext != null) {
+                servletContext.log("Cache invalidations cannot be broadcast.", e);
+            }
+        }
+    }
+
+    private static InvalidationTransport newTransport(String className, FilterConfig filterConfig)
+            throws ServletException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = ClusterCachePurger.class.getClassLoader();
+        }
+        try {
+            return Class.forName(className, true, classLoader).asSubclass(InvalidationTransport.class).newInstance();
+        } catch (Exception e) {
+            throw CacheConfigParameter.INVALIDATION.invalid(filterConfig);
+        }
+    }
+}
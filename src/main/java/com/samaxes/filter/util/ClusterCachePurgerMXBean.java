@@ -0,0 +1,71 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * Management interface of a server side cache whose purges are broadcast to the other nodes of a cluster, registered
+ * in place of the {@link CachePurgerMXBean} when the filter sets the {@code invalidation} parameter.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface ClusterCachePurgerMXBean extends CachePurgerMXBean {
+
+    /**
+     * Gets the class name of the transport broadcasting the invalidations.
+     *
+     * @return the transport class name
+     */
+    String getTransport();
+
+    /**
+     * Gets the number of invalidations waiting for the next batch.
+     *
+     * @return the pending invalidation count
+     */
+    int getPendingInvalidationCount();
+
+    /**
+     * Gets the number of batches sent to the other nodes.
+     *
+     * @return the sent batch count
+     */
+    long getSentBatchCount();
+
+    /**
+     * Gets the number of invalidations sent to the other nodes, after coalescing.
+     *
+     * @return the sent invalidation count
+     */
+    long getSentInvalidationCount();
+
+    /**
+     * Gets the number of invalidations received from the other nodes and applied to the local cache.
+     *
+     * @return the received invalidation count
+     */
+    long getReceivedInvalidationCount();
+
+    /**
+     * Gets the number of batches the transport failed to send.
+     *
+     * @return the send failure count
+     */
+    long getSendFailureCount();
+}
@@ -0,0 +1,442 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>
+ * Response wrapper compressing the body with gzip while it is written.
+ * </p>
+ * <p>
+ * Whether the body is compressed is decided when it is first written: the response must have a compressible media
+ * type, no content coding, a body-bearing status, and a {@code Content-Length}, if known, not smaller than the minimum
+ * size. The {@code Content-Length} is held back until then, and dropped when the body is compressed. Compressible
+ * responses get {@code Accept-Encoding} in their {@code Vary} header, compressed or not, since they depend on it.
+ * Strong entity tags of compressed responses get a {@code -gzip} suffix, because the compressed bytes differ from the
+ * identity ones.
+ * </p>
+ * <p>
+ * The compressed bytes can also be captured, up to a limit, so that they can be cached. {@link #finish()} must be
+ * called once the filter chain returns.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CompressionResponseWrapper extends HttpServletResponseWrapper {
+
+    private static final String GZIP = "gzip";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final boolean gzipAccepted;
+
+    private final String[] mimeTypes;
+
+    private final int minSize;
+
+    private final int captureLimit;
+
+    private final BufferPool pool;
+
+    private int contentLength = -1;
+
+    private boolean decided;
+
+    private boolean compressible;
+
+    private CompressingOutputStream compressingStream;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    /**
+     * Constructs a compression response wrapper.
+     *
+     * @param response the response to compress
+     * @param gzipAccepted whether the client accepts gzip content coding
+     * @param mimeTypes the compressible media types in lower case, {@code type/*} matching a whole type
+     * @param minSize the minimum size, in bytes, of the responses whose {@code Content-Length} is known
+     * @param captureLimit the maximum number of compressed bytes captured, or {@code 0} to capture none
+     * @param pool the pool the capture buffers are taken from
+     */
+    public CompressionResponseWrapper(HttpServletResponse response, boolean gzipAccepted, String[] mimeTypes,
+            int minSize, int captureLimit, BufferPool pool) {
+        super(response);
+        this.gzipAccepted = gzipAccepted;
+        this.mimeTypes = mimeTypes;
+        this.minSize = minSize;
+        this.captureLimit = captureLimit;
+        this.pool = pool;
+    }
+
+    /**
+     * Tells if a content type is one of the compressible media types.
+     *
+     * @param contentType the content type, possibly with parameters, or {@code null}
+     * @param mimeTypes the compressible media types in lower case, {@code type/*} matching a whole type
+     * @return {@code true} if responses of this content type can be compressed
+     */
+    public static boolean isCompressible(String contentType, String[] mimeTypes) {
+        if (contentType == null) {
+            return false;
+        }
+        int end = contentType.indexOf(';');
+        String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ENGLISH);
+        for (String mimeType : mimeTypes) {
+            if (mimeType.endsWith("/*") ? mediaType.startsWith(mimeType.substring(0, mimeType.length() - 1))
+                    : mediaType.equals(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells if the body is compressed.
+     *
+     * @return {@code true} if the body was written compressed
+     */
+    public boolean isCompressed() {
+        return compressingStream != null;
+    }
+
+    /**
+     * Gets the captured compressed body.
+     *
+     * @return the compressed bytes, or {@code null} if the body was not compressed, not captured, or exceeded the
+     *         capture limit
+     */
+    public ChunkedBuffer getCompressedBody() {
+        return compressingStream == null ? null : compressingStream.capture.getBuffer();
+    }
+
+    /**
+     * Completes the compressed body, or sets the held back {@code Content-Length} if the body was never written.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (compressingStream != null) {
+            if (writer != null) {
+                writer.flush();
+            }
+            compressingStream.finish();
+        } else if (!decided && contentLength >= 0) {
+            super.setContentLength(contentLength);
+        }
+    }
+
+    /**
+     * Gives the memory holding the captured compressed body back to the pool, once it is stored.
+     */
+    public void release() {
+        if (compressingStream != null) {
+            // Nothing can be written after, the trailer included
+            compressingStream.finished = true;
+            compressingStream.gzip.end();
+            compressingStream.capture.release();
+        }
+    }
+
+    private void decide() {
+        if (decided) {
+            return;
+        }
+        decided = true;
+
+        int status = getStatus();
+        compressible = status >= HttpServletResponse.SC_OK && status != HttpServletResponse.SC_NO_CONTENT
+                && status != HttpServletResponse.SC_PARTIAL_CONTENT && status != HttpServletResponse.SC_NOT_MODIFIED
+                && (contentLength < 0 || contentLength >= minSize)
+                && getHeader(HTTPCacheHeader.CONTENT_ENCODING.getName()) == null
+                && isCompressible(getContentType(), mimeTypes);
+        if (compressible) {
+            addVary();
+        }
+        if (!compressible || !gzipAccepted) {
+            if (contentLength >= 0) {
+                super.setContentLength(contentLength);
+            }
+            return;
+        }
+
+        super.setHeader(HTTPCacheHeader.CONTENT_ENCODING.getName(), GZIP);
+        String eTag = getHeader(HTTPCacheHeader.ETAG.getName());
+        if (eTag != null && eTag.endsWith("\"") && !eTag.startsWith("W/")) {
+            super.setHeader(HTTPCacheHeader.ETAG.getName(), new StringBuilder(eTag.length() + 5)
+                    .append(eTag, 0, eTag.length() - 1).append("-gzip\"").toString());
+        }
+        compressingStream = new CompressingOutputStream();
+    }
+
+    private void addVary() {
+        String vary = getHeader(HTTPCacheHeader.VARY.getName());
+        if (vary == null) {
+            super.setHeader(HTTPCacheHeader.VARY.getName(), HTTPCacheHeader.ACCEPT_ENCODING.getName());
+        } else if (!containsToken(vary, HTTPCacheHeader.ACCEPT_ENCODING.getName()) && !"*".equals(vary.trim())) {
+            super.setHeader(HTTPCacheHeader.VARY.getName(), vary + ", " + HTTPCacheHeader.ACCEPT_ENCODING.getName());
+        }
+    }
+
+    private static boolean containsToken(String list, String token) {
+        for (String element : list.split(",")) {
+            if (element.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        if (decided) {
+            if (compressingStream == null) {
+                super.setContentLength(len);
+            }
+        } else {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLength(value == null ? -1 : Integer.parseInt(value.trim()));
+            return;
+        }
+        super.setHeader(name, value);
+        if (compressible && HTTPCacheHeader.VARY.getName().equalsIgnoreCase(name)) {
+            addVary();
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLength(value == null ? -1 : Integer.parseInt(value.trim()));
+            return;
+        }
+        super.addHeader(name, value);
+        if (compressible && HTTPCacheHeader.VARY.getName().equalsIgnoreCase(name)) {
+            addVary();
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLength(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLength(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called on this response.");
+        }
+        if (outputStream == null) {
+            decide();
+            outputStream = compressingStream == null ? super.getOutputStream() : compressingStream;
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called on this response.");
+        }
+        if (writer == null) {
+            decide();
+            writer = compressingStream == null ? super.getWriter() : new PrintWriter(new OutputStreamWriter(
+                    compressingStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        decide();
+        if (writer != null) {
+            writer.flush();
+        } else if (compressingStream != null) {
+            compressingStream.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        decided = true;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        decided = true;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        decided = true;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (compressingStream != null) {
+            // The gzip stream starts over, with the headers describing it
+            compressingStream.restart();
+            super.setHeader(HTTPCacheHeader.CONTENT_ENCODING.getName(), GZIP);
+            addVary();
+        } else if (outputStream == null && writer == null) {
+            decided = false;
+            compressible = false;
+            contentLength = -1;
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (compressingStream != null) {
+            compressingStream.restart();
+        }
+    }
+
+    /**
+     * Stream compressing the body into the wrapped response, and capturing the compressed bytes.
+     */
+    private final class CompressingOutputStream extends ServletOutputStream {
+
+        private final OutputStream target = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressionResponseWrapper.super.getOutputStream().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressionResponseWrapper.super.getOutputStream().flush();
+            }
+        };
+
+        private final CaptureOutputStream capture = new CaptureOutputStream(pool, target, null, captureLimit);
+
+        private GzipStream gzip;
+
+        private boolean finished;
+
+        private CompressingOutputStream() {
+            restart();
+        }
+
+        private void restart() {
+            if (gzip != null) {
+                gzip.end();
+            }
+            capture.reset();
+            finished = false;
+            try {
+                gzip = new GzipStream(capture);
+            } catch (IOException e) {
+                // Only writes the gzip header, which fails when the response is already closed
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gzip.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        private void finish() throws IOException {
+            if (!finished) {
+                finished = true;
+                try {
+                    gzip.finish();
+                } finally {
+                    gzip.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gzip stream whose deflater can be ended once the stream is finished, without closing the response.
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+
+        private GzipStream(OutputStream out) throws IOException {
+            super(out, 8192);
+        }
+
+        /**
+         * Frees the native memory of the deflater, instead of waiting for its finalizer.
+         */
+        private void end() {
+            def.end();
+        }
+    }
+}
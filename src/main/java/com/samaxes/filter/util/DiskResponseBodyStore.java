@@ -0,0 +1,736 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * <p>
+ * Stores response bodies, along with the rest of the responses, in a log of segment files on the local disk, so that
+ * the responses kept by a filter survive a restart.
+ * </p>
+ * <p>
+ * Segments are files of a fixed size, mapped in memory, to which complete responses are appended as records; bodies
+ * are written to clients from the mapped files, through a per-thread transfer buffer, and the {@link ResponseCache}
+ * keeping the responses is the only index. A body is staged on the Java heap until its response is
+ * {@link #persist(CachedResponse) persisted}, and its record is marked dead once the cache and every reader have
+ * released it. A background thread compacts the segments holding as many dead bytes as live ones, moving their live
+ * records to the end of the log, and deletes the segments left without live records.
+ * </p>
+ * <p>
+ * When the store is opened, the segments left by the previous run are scanned in the background by
+ * {@link #recover(ResponseCache)}, which reads the headers of the records only, so that the responses still fresh are
+ * served again as soon as their segment is scanned, while new responses are appended to a new segment. A record is
+ * committed by writing its first bytes last, so that a record torn by a crash ends the scan of its segment.
+ * </p>
+ * <p>
+ * The directory is locked while the store is open. Deleted segments are unmapped by the garbage collector, which may
+ * delay the release of their disk space.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class DiskResponseBodyStore implements ResponseBodyStore {
+
+    /**
+     * Size of the segment files when none is configured, in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final String LOCK_FILE = "store.lock";
+
+    private static final int MAGIC = 0x53434631;
+
+    private static final byte LIVE = 0;
+
+    private static final byte DEAD = 1;
+
+    /**
+     * Magic number, state, record length and metadata length.
+     */
+    private static final int HEADER_SIZE = 13;
+
+    private static final int STATE_OFFSET = 4;
+
+    private static final long COMPACTION_INTERVAL = 10000L;
+
+    private static final int TRANSFER_SIZE = 16 * 1024;
+
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[TRANSFER_SIZE];
+        }
+    };
+
+    private final File directory;
+
+    private final long capacity;
+
+    private final int segmentSize;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+
+    private final CountDownLatch recovered = new CountDownLatch(1);
+
+    private final ScheduledExecutorService executor;
+
+    private RandomAccessFile lockFile;
+
+    private FileLock lock;
+
+    private Segment active;
+
+    private boolean closed;
+
+    /**
+     * Opens a disk store, locking its directory. The segments left by a previous run are kept until
+     * {@link #recover(ResponseCache)} scans them.
+     *
+     * @param directory the directory of the segment files, created if needed
+     * @param capacity the maximum total size of the bodies, in bytes
+     * @param segmentSize the size of the segment files, in bytes, which bounds the size of the stored responses
+     * @throws IOException if the directory cannot be used, or is locked by another store
+     */
+    public DiskResponseBodyStore(File directory, long capacity, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.capacity = capacity;
+        this.segmentSize = segmentSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the directory " + directory + ".");
+        }
+        lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+        try {
+            lock = lockFile.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked by another store of this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            lockFile.close();
+            throw new IOException("The directory " + directory + " is used by another store.");
+        }
+
+        File[] files = directory.listFiles();
+        long lastSequence = 0L;
+        for (File file : files == null ? new File[0] : files) {
+            String name = file.getName();
+            if (name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    long sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(sequence, new Segment(sequence, file, false));
+                    lastSequence = Math.max(lastSequence, sequence);
+                } catch (NumberFormatException e) {
+                    // Not a segment
+                } catch (IOException e) {
+                    // Unreadable, dropped with its responses
+                    file.delete();
+                }
+            }
+        }
+        try {
+            active = newSegment(lastSequence + 1L);
+        } catch (IOException e) {
+            lock.release();
+            lockFile.close();
+            throw e;
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "cache-store-" + DiskResponseBodyStore.this.directory.getName());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Opens a disk store from the {@code store-directory} and {@code segment-size} initialization parameters of a
+     * filter. The directory defaults to a subdirectory, named after the filter, of the temporary directory of the web
+     * application.
+     *
+     * @param filterConfig the filter configuration
+     * @param capacity the maximum total size of the bodies, in bytes
+     * @return the disk store
+     * @throws ServletException if a parameter is invalid, or the directory cannot be used
+     */
+    public static DiskResponseBodyStore configure(FilterConfig filterConfig, long capacity) throws ServletException {
+        long segmentSize = CacheConfigParameter.SEGMENT_SIZE.getLongValue(filterConfig, (long) DEFAULT_SEGMENT_SIZE);
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw CacheConfigParameter.SEGMENT_SIZE.invalid(filterConfig);
+        }
+
+        String directoryName = CacheConfigParameter.STORE_DIRECTORY.getValue(filterConfig);
+        File directory;
+        if (directoryName != null) {
+            directory = new File(directoryName);
+        } else {
+            ServletContext servletContext = filterConfig.getServletContext();
+            Object tempDirectory = servletContext == null ? null : servletContext
+                    .getAttribute(ServletContext.TEMPDIR);
+            if (!(tempDirectory instanceof File)) {
+                throw CacheConfigParameter.STORE_DIRECTORY.invalid(filterConfig);
+            }
+            directory = new File((File) tempDirectory, filterConfig.getFilterName() + "-store");
+        }
+
+        try {
+            return new DiskResponseBodyStore(directory, capacity, (int) segmentSize);
+        } catch (IOException e) {
+            throw new ServletException(new StringBuilder("The store directory of the filter ")
+                    .append(filterConfig.getFilterName()).append(" cannot be used.").toString(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long weigh(int length) {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseBody allocate(int length) {
+        return new DiskResponseBody(new byte[length], length);
+    }
+
+    /**
+     * Scans, in the background, the segments left by the previous run, storing the responses still fresh in a cache
+     * unless it holds a newer response for their key, and starts the periodic compaction of the segments.
+     *
+     * @param cache the cache of the responses
+     */
+    public void recover(final ResponseCache cache) {
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    List<Segment> previous;
+                    synchronized (DiskResponseBodyStore.this) {
+                        previous = new ArrayList<Segment>(segments.headMap(active.sequence).values());
+                    }
+                    for (Segment segment : previous) {
+                        scan(segment, cache);
+                    }
+                } finally {
+                    recovered.countDown();
+                }
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                compact();
+            }
+        }, COMPACTION_INTERVAL, COMPACTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits until the segments left by the previous run are scanned, so that a purge also removes the responses they
+     * hold.
+     */
+    public void awaitRecovery() {
+        try {
+            recovered.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends a response to the log. Its body must have been allocated by this store, and is read from the log
+     * afterwards. Responses larger than a segment, or that cannot be written, stay on the Java heap and are lost on
+     * restart.
+     *
+     * @param response the response to persist, not yet visible to other threads
+     */
+    public void persist(CachedResponse response) {
+        if (!(response.getBody() instanceof DiskResponseBody)) {
+            return;
+        }
+        DiskResponseBody body = (DiskResponseBody) response.getBody();
+        byte[] bytes = body.pending;
+        byte[] metadata;
+        try {
+            metadata = encode(response);
+        } catch (IOException e) {
+            return;
+        }
+        int recordLength = HEADER_SIZE + metadata.length + body.length;
+        if (bytes == null || recordLength > segmentSize) {
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Segment segment;
+            try {
+                segment = reserve(recordLength);
+            } catch (IOException e) {
+                return;
+            }
+            int offset = segment.end;
+            ByteBuffer record = segment.buffer.duplicate();
+            record.position(offset + STATE_OFFSET);
+            record.put(LIVE).putInt(recordLength).putInt(metadata.length).put(metadata).put(bytes, 0, body.length);
+            commit(segment, offset, recordLength, body);
+            body.location = new Location(segment, offset, recordLength, HEADER_SIZE + metadata.length);
+            body.pending = null;
+        }
+    }
+
+    /**
+     * Stops the compaction and flushes the segments. The responses of the store stay in the log for the next run, and
+     * can still be read until the cache releases them.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        }
+        executor.shutdownNow();
+        try {
+            lock.release();
+            lockFile.close();
+        } catch (IOException e) {
+            // Released when the JVM exits
+        }
+    }
+
+    /**
+     * Gets the number of segment files.
+     *
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void scan(Segment segment, ResponseCache cache) {
+        int offset = 0;
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer = segment.buffer;
+        while (offset + HEADER_SIZE <= buffer.capacity() && buffer.getInt(offset) == MAGIC) {
+            byte state = buffer.get(offset + STATE_OFFSET);
+            int recordLength = buffer.getInt(offset + STATE_OFFSET + 1);
+            int metadataLength = buffer.getInt(offset + STATE_OFFSET + 5);
+            if (metadataLength < 0 || recordLength < HEADER_SIZE + metadataLength
+                    || recordLength > buffer.capacity() - offset) {
+                break;
+            }
+
+            CachedResponse response = null;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (state == LIVE) {
+                    DiskResponseBody body = new DiskResponseBody(null, recordLength - HEADER_SIZE - metadataLength);
+                    body.location = new Location(segment, offset, recordLength, HEADER_SIZE + metadataLength);
+                    segment.bodies.add(body);
+                    segment.liveBytes += recordLength;
+                    try {
+                        response = decode(buffer, offset + HEADER_SIZE, metadataLength, body);
+                    } catch (IOException e) {
+                        discard(body);
+                    }
+                } else {
+                    segment.deadBytes += recordLength;
+                }
+                segment.end = offset + recordLength;
+            }
+            if (response != null && (!response.isFresh(now) || !cache.putIfNewer(response))) {
+                response.release();
+            }
+            offset += recordLength;
+        }
+        synchronized (this) {
+            segment.scanned = true;
+        }
+    }
+
+    /**
+     * Moves the live records of the segments holding as many dead bytes as live ones to the end of the log, and deletes
+     * the segments left without live records. Runs periodically once {@link #recover(ResponseCache)} is called.
+     */
+    void compact() {
+        List<Segment> candidates = new ArrayList<Segment>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            active.buffer.force();
+            for (Segment segment : new ArrayList<Segment>(segments.values())) {
+                if (segment == active || !segment.scanned) {
+                    continue;
+                }
+                if (segment.bodies.isEmpty()) {
+                    delete(segment);
+                } else if (segment.deadBytes >= segment.liveBytes) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        for (Segment segment : candidates) {
+            List<DiskResponseBody> bodies;
+            synchronized (this) {
+                bodies = new ArrayList<DiskResponseBody>(segment.bodies);
+            }
+            for (DiskResponseBody body : bodies) {
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    if (body.location != null && body.location.segment == segment) {
+                        try {
+                            move(body);
+                        } catch (IOException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+            synchronized (this) {
+                if (segment.bodies.isEmpty()) {
+                    delete(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a live record to the end of the log, then marks the original dead. Readers that started before keep
+     * reading the original. Must be called holding the lock of this store.
+     */
+    private void move(DiskResponseBody body) throws IOException {
+        Location from = body.location;
+        Segment segment = reserve(from.length);
+        int offset = segment.end;
+        ByteBuffer source = from.segment.buffer.duplicate();
+        source.limit(from.offset + from.length).position(from.offset + STATE_OFFSET);
+        ByteBuffer target = segment.buffer.duplicate();
+        target.position(offset + STATE_OFFSET);
+        target.put(source);
+        commit(segment, offset, from.length, body);
+        body.location = new Location(segment, offset, from.length, from.bodyOffset);
+        kill(from, body);
+    }
+
+    /**
+     * Gets the segment to append a record to, starting a new one when the active segment is full. Must be called
+     * holding the lock of this store.
+     */
+    private Segment reserve(int recordLength) throws IOException {
+        if (active.end + recordLength > segmentSize) {
+            active = newSegment(active.sequence + 1L);
+        }
+        return active;
+    }
+
+    /**
+     * Makes an appended record visible to the scan of the next run, and accounts for it. Must be called holding the
+     * lock of this store.
+     */
+    private void commit(Segment segment, int offset, int recordLength, DiskResponseBody body) {
+        segment.buffer.putInt(offset, MAGIC);
+        segment.end = offset + recordLength;
+        segment.liveBytes += recordLength;
+        segment.bodies.add(body);
+    }
+
+    private Segment newSegment(long sequence) throws IOException {
+        File file = new File(directory, String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        Segment segment = new Segment(sequence, file, true);
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.sequence);
+        if (!segment.file.delete()) {
+            segment.file.deleteOnExit();
+        }
+    }
+
+    private synchronized void discard(DiskResponseBody body) {
+        body.pending = null;
+        if (!closed && body.location != null) {
+            kill(body.location, body);
+        }
+    }
+
+    private static void kill(Location location, DiskResponseBody body) {
+        location.segment.buffer.put(location.offset + STATE_OFFSET, DEAD);
+        location.segment.liveBytes -= location.length;
+        location.segment.deadBytes += location.length;
+        location.segment.bodies.remove(body);
+    }
+
+    private static byte[] encode(CachedResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(response.getCreated());
+        out.writeLong(response.getExpires());
+        out.writeInt(response.getStatus());
+        out.writeUTF(response.getKey());
+        out.writeUTF(response.getPath());
+        out.writeBoolean(response.getContentType() != null);
+        if (response.getContentType() != null) {
+            out.writeUTF(response.getContentType());
+        }
+        writeStrings(out, response.getTags());
+        writeStrings(out, response.getHeaders());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static CachedResponse decode(ByteBuffer buffer, int offset, int length, ResponseBody body)
+            throws IOException {
+        byte[] metadata = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(metadata);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(metadata));
+        long created = in.readLong();
+        long expires = in.readLong();
+        int status = in.readInt();
+        String key = in.readUTF();
+        String path = in.readUTF();
+        String contentType = in.readBoolean() ? in.readUTF() : null;
+        String[] tags = readStrings(in);
+        String[] headers = readStrings(in);
+        return new CachedResponse(key, path, tags, status, contentType, headers, body, created, expires);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Corrupted record.");
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    /**
+     * Segment file, mapped in memory for its whole size.
+     */
+    private final class Segment {
+
+        private final long sequence;
+
+        private final File file;
+
+        private final MappedByteBuffer buffer;
+
+        private final Set<DiskResponseBody> bodies = new HashSet<DiskResponseBody>();
+
+        private int end;
+
+        private long liveBytes;
+
+        private long deadBytes;
+
+        private boolean scanned;
+
+        private Segment(long sequence, File file, boolean create) throws IOException {
+            this.sequence = sequence;
+            this.file = file;
+            this.scanned = create;
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                if (create) {
+                    randomAccessFile.setLength(segmentSize);
+                }
+                // The mapping stays valid once the file is closed
+                this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L,
+                        randomAccessFile.length());
+            } finally {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    /**
+     * Place of a record in the log.
+     */
+    private static final class Location {
+
+        private final Segment segment;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int bodyOffset;
+
+        private Location(Segment segment, int offset, int length, int bodyOffset) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.bodyOffset = bodyOffset;
+        }
+    }
+
+    /**
+     * Body staged on the Java heap until its response is persisted, and read from its record in the log afterwards.
+     */
+    private final class DiskResponseBody implements ResponseBody {
+
+        private final int length;
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private volatile byte[] pending;
+
+        private volatile Location location;
+
+        private DiskResponseBody(byte[] pending, int length) {
+            this.pending = pending;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public long getWeight() {
+            return length;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                private int position;
+
+                @Override
+                public void write(int b) {
+                    pending[position++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    System.arraycopy(b, off, pending, position, len);
+                    position += len;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            // The location is set before the staged bytes are dropped
+            byte[] bytes = pending;
+            if (bytes != null) {
+                out.write(bytes, 0, length);
+                return;
+            }
+            Location current = location;
+            ByteBuffer source = current.segment.buffer.duplicate();
+            source.position(current.offset + current.bodyOffset);
+            byte[] transfer = TRANSFER_BUFFER.get();
+            int remaining = length;
+            while (remaining > 0) {
+                int count = Math.min(remaining, transfer.length);
+                source.get(transfer, 0, count);
+                out.write(transfer, 0, count);
+                remaining -= count;
+            }
+        }
+
+        @Override
+        public void retain() {
+            references.incrementAndGet();
+        }
+
+        @Override
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                discard(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Lock-free clock holding the preformatted {@code Expires} header value for the current second.
+ * </p>
+ * <p>
+ * The {@code Expires} header only has a one second resolution, so the value is formatted at most once per second for
+ * a given expiration and shared by every thread. When the second changes, the first thread to notice it formats the new
+ * value and swaps it in atomically; concurrent threads that lose the race simply use the value they have computed.
+ * </p>
+ * <p>
+ * Each {@link CachePolicy} owns its clock, so that the clocks of the policies replaced at runtime, or of an undeployed
+ * web application, are collected along with them.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class ExpiresClock {
+
+    private final long expiration;
+
+    private final AtomicReference<Tick> current = new AtomicReference<Tick>(new Tick(Long.MIN_VALUE, null));
+
+    /**
+     * Constructs a clock for the given expiration.
+     *
+     * @param expiration the expiration time, in seconds, relative to the current date
+     */
+    public ExpiresClock(long expiration) {
+        this.expiration = expiration;
+    }
+
+    /**
+     * Gets the expiration time, in seconds, relative to the current date.
+     *
+     * @return the expiration time in seconds
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Gets the {@code Expires} header value for the current time.
+     *
+     * @return the formatted {@code Expires} header value
+     */
+    public String getValue() {
+        return getValue(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the {@code Expires} header value for the given time.
+     *
+     * @param now the current time in milliseconds since the epoch
+     * @return the formatted {@code Expires} header value
+     */
+    public String getValue(long now) {
+        long second = now / 1000L;
+        Tick tick = current.get();
+        if (tick.second == second) {
+            return tick.value;
+        }
+
+        Tick next = new Tick(second, HTTPDateFormat.format((second + expiration) * 1000L));
+        current.compareAndSet(tick, next);
+        return next.value;
+    }
+
+    /**
+     * Immutable pair of a second and its formatted {@code Expires} value.
+     */
+    private static final class Tick {
+
+        private final long second;
+
+        private final String value;
+
+        private Tick(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.File;
+
+/**
+ * <p>
+ * Metadata of a static file, with the validators and header values derived from it built once.
+ * </p>
+ * <p>
+ * The entity tag is weak, derived from the file size and modification date like the ones of the container default
+ * servlets, so that the file content never needs to be hashed.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class FileMetadata {
+
+    private final File file;
+
+    private final boolean exists;
+
+    private final long length;
+
+    private final long lastModified;
+
+    private final String contentType;
+
+    private final String eTag;
+
+    private final String lastModifiedHeader;
+
+    private volatile long checked;
+
+    /**
+     * Constructs the metadata of a file.
+     *
+     * @param file the file
+     * @param exists whether the file exists and is a regular file
+     * @param length the file size in bytes
+     * @param lastModified the file modification date in milliseconds since the epoch
+     * @param contentType the file media type, or {@code null} if unknown
+     * @param checked the time the metadata was read, in milliseconds since the epoch
+     */
+    public FileMetadata(File file, boolean exists, long length, long lastModified, String contentType, long checked) {
+        this.file = file;
+        this.exists = exists;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.eTag = exists ? new StringBuilder("W/\"").append(length).append('-').append(lastModified).append('"')
+                .toString() : null;
+        this.lastModifiedHeader = exists ? HTTPDateFormat.format(lastModified) : null;
+        this.checked = checked;
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Tells if the file exists and is a regular file.
+     *
+     * @return {@code true} if the file can be served
+     */
+    public boolean exists() {
+        return exists;
+    }
+
+    /**
+     * Gets the file size.
+     *
+     * @return the size in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the file modification date.
+     *
+     * @return the modification date in milliseconds since the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the file media type.
+     *
+     * @return the media type, or {@code null} if unknown
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets the {@code ETag} header value.
+     *
+     * @return the weak entity tag, or {@code null} if the file does not exist
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the {@code Last-Modified} header value.
+     *
+     * @return the formatted modification date, or {@code null} if the file does not exist
+     */
+    public String getLastModifiedHeader() {
+        return lastModifiedHeader;
+    }
+
+    /**
+     * Gets the time the metadata was last checked against the file system.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     * Tells if the metadata still describes the file, and records the check time if so.
+     *
+     * @param exists whether the file exists and is a regular file
+     * @param length the file size in bytes
+     * @param lastModified the file modification date in milliseconds since the epoch
+     * @param now the current time in milliseconds since the epoch
+     * @return {@code true} if the file did not change
+     */
+    public boolean revalidate(boolean exists, long length, long lastModified, long now) {
+        if (this.exists != exists || this.length != length || this.lastModified != lastModified) {
+            return false;
+        }
+        checked = now;
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Cache of the metadata of static files, keyed by request path.
+ * </p>
+ * <p>
+ * An entry is checked against the file system at most once per check interval: files changed, created or deleted are
+ * picked up within that interval, without a file system call per request. Missing files are cached too, so that
+ * requests falling through to the application do not hit the file system either. Once the maximum number of entries is
+ * reached, an arbitrary entry is dropped for each new one.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class FileMetadataCache {
+
+    private final ConcurrentMap<String, FileMetadata> entries = new ConcurrentHashMap<String, FileMetadata>();
+
+    private final long checkInterval;
+
+    private final int maxEntries;
+
+    /**
+     * Constructs a file metadata cache.
+     *
+     * @param checkInterval the time, in milliseconds, an entry is trusted before the file is checked again
+     * @param maxEntries the maximum number of entries
+     */
+    public FileMetadataCache(long checkInterval, int maxEntries) {
+        this.checkInterval = checkInterval;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Gets the metadata of a file if it was checked recently enough to be trusted.
+     *
+     * @param path the request path of the file
+     * @param now the current time in milliseconds since the epoch
+     * @return the file metadata, or {@code null} if the file must be checked again
+     */
+    public FileMetadata get(String path, long now) {
+        FileMetadata metadata = entries.get(path);
+        return metadata != null && now - metadata.getChecked() < checkInterval ? metadata : null;
+    }
+
+    /**
+     * Reads the metadata of a file from the file system, keeping the cached entry if the file did not change.
+     *
+     * @param path the request path of the file
+     * @param file the file
+     * @param contentType the file media type, or {@code null} if unknown
+     * @param now the current time in milliseconds since the epoch
+     * @return the file metadata
+     */
+    public FileMetadata check(String path, File file, String contentType, long now) {
+        boolean exists = file.isFile();
+        long length = exists ? file.length() : 0L;
+        long lastModified = exists ? file.lastModified() : 0L;
+        FileMetadata metadata = entries.get(path);
+        if (metadata != null && metadata.revalidate(exists, length, lastModified, now)) {
+            return metadata;
+        }
+
+        FileMetadata newMetadata = new FileMetadata(file, exists, length, lastModified, contentType, now);
+        if (metadata == null && entries.size() >= maxEntries) {
+            Iterator<String> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        entries.put(path, newMetadata);
+        return newMetadata;
+    }
+
+    /**
+     * Removes the metadata of a file, e.g. after it could not be read.
+     *
+     * @param path the request path of the file
+     */
+    public void remove(String path) {
+        entries.remove(path);
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return the number of entries
+     */
+    public int getCount() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.Filter;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+
+/**
+ * Registration of the management interfaces of the filters with the platform MBean server.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class FilterMBeans {
+
+    private static final String DOMAIN = "com.samaxes.filter";
+
+    private FilterMBeans() {
+    }
+
+    /**
+     * Registers an MBean of a filter as
+     * {@code com.samaxes.filter:type=<filter class>,context=<context path>,name=<filter name>}, followed by
+     * {@code ,component=<component>} if a component is given. An MBean left behind under the same name by a previous
+     * instance of the filter is replaced.
+     *
+     * @param mbean the MBean
+     * @param filterConfig the filter configuration
+     * @param filter the filter
+     * @param component the name of the part of the filter the MBean manages, or {@code null} for the filter itself
+     * @return the name of the registered MBean
+     * @throws ServletException if the MBean cannot be registered
+     */
+    public static ObjectName register(Object mbean, FilterConfig filterConfig, Filter filter, String component)
+            throws ServletException {
+        StringBuilder name = new StringBuilder(DOMAIN).append(":type=").append(filter.getClass().getSimpleName());
+        ServletContext servletContext = filterConfig.getServletContext();
+        if (servletContext != null) {
+            String contextPath = servletContext.getContextPath();
+            name.append(",context=").append(ObjectName.quote(contextPath.isEmpty() ? "/" : contextPath));
+        }
+        name.append(",name=").append(ObjectName.quote(filterConfig.getFilterName()));
+        if (component != null) {
+            name.append(",component=").append(component);
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name.toString());
+            try {
+                server.registerMBean(mbean, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                // Left behind by a previous instance of the filter that was not destroyed
+                server.unregisterMBean(objectName);
+                server.registerMBean(mbean, objectName);
+            }
+            return objectName;
+        } catch (JMException e) {
+            throw new ServletException(new StringBuilder("The MBean ").append(name).append(" of the filter ")
+                    .append(filterConfig.getFilterName()).append(" cannot be registered.").toString(), e);
+        }
+    }
+
+    /**
+     * Unregisters an MBean from the platform MBean server.
+     *
+     * @param objectName the name of the MBean, or {@code null} if it is not registered
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered
+        } catch (JMException e) {
+            // Nothing else can be done while the filter is destroyed
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+
+/**
+ * <p>
+ * Statistics of a filter, exposed through JMX.
+ * </p>
+ * <p>
+ * Filters only create their metrics when the {@code metrics} initialization parameter is set, so that a disabled
+ * instrumentation costs a {@code null} check per request. Counters are striped and lock free; request durations are
+ * only measured for one request out of {@code latency-sampling}, and not at all by default.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class FilterMetrics implements FilterMetricsMXBean {
+
+    /**
+     * Value returned by {@link #start()} when the request duration is not sampled.
+     */
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final StripedCounter requests = new StripedCounter();
+
+    private final StripedCounter suppressedHeaders = new StripedCounter();
+
+    private final StripedCounter notModified = new StripedCounter();
+
+    private final StripedCounter coalesced = new StripedCounter();
+
+    /**
+     * Counters by policy name, replaced rather than modified so that they are read without locking.
+     */
+    private volatile Map<String, StripedCounter> policyCounters = new LinkedHashMap<String, StripedCounter>();
+
+    /**
+     * Counters by policy instance, replaced rather than modified so that they are read without locking.
+     */
+    private volatile Map<CachePolicy, StripedCounter> policyLookup = new IdentityHashMap<CachePolicy, StripedCounter>();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final long sampling;
+
+    private ResponseCacheProcessor responseCacheProcessor;
+
+    private BufferPool bufferPool;
+
+    private ObjectName objectName;
+
+    /**
+     * Constructs the statistics of a filter.
+     *
+     * @param sampling the request duration is measured for one request out of {@code sampling}, or never if {@code 0}
+     */
+    public FilterMetrics(long sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * Creates the statistics of a filter from its {@code metrics} and {@code latency-sampling} initialization
+     * parameters, and registers them with the platform MBean server.
+     *
+     * @param filterConfig the filter configuration
+     * @param filter the filter
+     * @return the registered statistics, or {@code null} if the {@code metrics} parameter is not set
+     * @throws ServletException if a parameter is invalid, or the statistics cannot be registered
+     */
+    public static FilterMetrics configure(FilterConfig filterConfig, Filter filter) throws ServletException {
+        if (!CacheConfigParameter.METRICS.getBooleanValue(filterConfig)) {
+            return null;
+        }
+        long sampling = CacheConfigParameter.LATENCY_SAMPLING.getLongValue(filterConfig, 0L);
+        if (sampling < 0L) {
+            throw CacheConfigParameter.LATENCY_SAMPLING.invalid(filterConfig);
+        }
+
+        FilterMetrics metrics = new FilterMetrics(sampling);
+        metrics.register(filterConfig, filter);
+        return metrics;
+    }
+
+    private void register(FilterConfig filterConfig, Filter filter) throws ServletException {
+        objectName = FilterMBeans.register(this, filterConfig, filter, null);
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server.
+     */
+    public void unregister() {
+        FilterMBeans.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * Declares a cache policy whose tagged responses are counted. A policy declared twice keeps its first name.
+     *
+     * @param name the policy name, e.g. its rule pattern
+     * @param policy the policy
+     */
+    public synchronized void addPolicy(String name, CachePolicy policy) {
+        if (!policyLookup.containsKey(policy)) {
+            Map<String, StripedCounter> counters = new LinkedHashMap<String, StripedCounter>(policyCounters);
+            Map<CachePolicy, StripedCounter> lookup = new IdentityHashMap<CachePolicy, StripedCounter>(policyLookup);
+            StripedCounter counter = new StripedCounter();
+            counters.put(name, counter);
+            lookup.put(policy, counter);
+            policyCounters = counters;
+            policyLookup = lookup;
+        }
+    }
+
+    /**
+     * Replaces the counted cache policies, e.g. once they are reloaded. A policy keeps counting under the name of the
+     * policy it replaces, and the counts of the names no longer declared are kept.
+     *
+     * @param policies the policies keyed by name, e.g. by rule pattern
+     */
+    public synchronized void setPolicies(Map<String, CachePolicy> policies) {
+        Map<String, StripedCounter> counters = new LinkedHashMap<String, StripedCounter>(policyCounters);
+        Map<CachePolicy, StripedCounter> lookup = new IdentityHashMap<CachePolicy, StripedCounter>();
+        for (Map.Entry<String, CachePolicy> policy : policies.entrySet()) {
+            if (!lookup.containsKey(policy.getValue())) {
+                StripedCounter counter = counters.get(policy.getKey());
+                if (counter == null) {
+                    counter = new StripedCounter();
+                    counters.put(policy.getKey(), counter);
+                }
+                lookup.put(policy.getValue(), counter);
+            }
+        }
+        policyCounters = counters;
+        policyLookup = lookup;
+    }
+
+    /**
+     * Sets the server side cache whose statistics are exposed with the filter ones.
+     *
+     * @param responseCacheProcessor the server side cache, or {@code null}
+     */
+    public void setResponseCacheProcessor(ResponseCacheProcessor responseCacheProcessor) {
+        this.responseCacheProcessor = responseCacheProcessor;
+    }
+
+    /**
+     * Sets the buffer pool whose utilization is exposed with the filter statistics, when it is not the one of the
+     * server side cache.
+     *
+     * @param bufferPool the buffer pool, or {@code null}
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Counts a request and starts measuring its duration if it is sampled.
+     *
+     * @return the value to pass to {@link #stop(long)}
+     */
+    public long start() {
+        long count = requests.increment();
+        return sampling > 0L && count % sampling == 0L ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    /**
+     * Records the duration of a sampled request.
+     *
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        if (start != NOT_SAMPLED) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the duration of a sampled request once its response is complete, which is after the filter chain returns
+     * if the request is processed asynchronously.
+     *
+     * @param request the request
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(ServletRequest request, long start) {
+        if (start != NOT_SAMPLED && request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new LatencyListener(start));
+        } else {
+            stop(start);
+        }
+    }
+
+    /**
+     * Counts a header removed from a response.
+     */
+    public void headerSuppressed() {
+        suppressedHeaders.increment();
+    }
+
+    /**
+     * Counts a {@code 304 Not Modified} response.
+     */
+    public void notModified() {
+        notModified.increment();
+    }
+
+    /**
+     * Counts a request answered with a copy of the response of an identical concurrent request.
+     */
+    public void coalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Counts a response tagged by a cache policy. Undeclared policies are ignored.
+     *
+     * @param policy the policy
+     */
+    public void policyApplied(CachePolicy policy) {
+        StripedCounter counter = policyLookup.get(policy);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public long getSuppressedHeaderCount() {
+        return suppressedHeaders.get();
+    }
+
+    @Override
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public Map<String, Long> getPolicyCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, StripedCounter> entry : policyCounters.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return responseCacheProcessor == null ? 0L : responseCacheProcessor.getHitCount();
+    }
+
+    @Override
+    public long getCacheStaleHitCount() {
+        return responseCacheProcessor == null ? 0L : responseCacheProcessor.getStaleHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return responseCacheProcessor == null ? 0L : responseCacheProcessor.getMissCount();
+    }
+
+    @Override
+    public int getCacheEntryCount() {
+        return responseCacheProcessor == null ? 0 : responseCacheProcessor.getCache().getCount();
+    }
+
+    @Override
+    public long getCacheSize() {
+        return responseCacheProcessor == null ? 0L : responseCacheProcessor.getCache().getSize();
+    }
+
+    @Override
+    public int getRefreshPendingCount() {
+        BackgroundRefresher refresher = getRefresher();
+        return refresher == null ? 0 : refresher.getPendingCount();
+    }
+
+    @Override
+    public long getRefreshFailureCount() {
+        BackgroundRefresher refresher = getRefresher();
+        return refresher == null ? 0L : refresher.getFailureCount();
+    }
+
+    @Override
+    public long getRefreshRejectionCount() {
+        BackgroundRefresher refresher = getRefresher();
+        return refresher == null ? 0L : refresher.getRejectionCount();
+    }
+
+    private BackgroundRefresher getRefresher() {
+        return responseCacheProcessor == null ? null : responseCacheProcessor.getRefresher();
+    }
+
+    @Override
+    public long getBufferPoolHitCount() {
+        BufferPool pool = getBufferPool();
+        return pool == null ? 0L : pool.getHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMissCount() {
+        BufferPool pool = getBufferPool();
+        return pool == null ? 0L : pool.getMissCount();
+    }
+
+    @Override
+    public long getBufferPoolBorrowedSize() {
+        BufferPool pool = getBufferPool();
+        return pool == null ? 0L : pool.getBorrowedSize();
+    }
+
+    @Override
+    public long getBufferPoolFreeSize() {
+        BufferPool pool = getBufferPool();
+        return pool == null ? 0L : pool.getFreeSize();
+    }
+
+    private BufferPool getBufferPool() {
+        if (bufferPool != null) {
+            return bufferPool;
+        }
+        return responseCacheProcessor == null ? null : responseCacheProcessor.getBufferPool();
+    }
+
+    @Override
+    public long getLatencySampleCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getLatency50thPercentile() {
+        return latency.getPercentile(50.0d);
+    }
+
+    @Override
+    public long getLatency99thPercentile() {
+        return latency.getPercentile(99.0d);
+    }
+
+    @Override
+    public long getLatency999thPercentile() {
+        return latency.getPercentile(99.9d);
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        suppressedHeaders.reset();
+        notModified.reset();
+        coalesced.reset();
+        for (StripedCounter counter : policyCounters.values()) {
+            counter.reset();
+        }
+        latency.reset();
+    }
+
+    /**
+     * Records the duration of an asynchronous request on completion, following it when asynchronous processing starts
+     * again.
+     */
+    private final class LatencyListener implements AsyncListener {
+
+        private final long start;
+
+        private LatencyListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            stop(start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+    }
+}
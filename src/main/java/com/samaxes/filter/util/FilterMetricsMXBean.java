@@ -0,0 +1,196 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Management interface of the statistics of a filter, registered as
+ * {@code com.samaxes.filter:type=<filter class>,name=<filter name>} when the {@code metrics} parameter is set.
+ * </p>
+ * <p>
+ * Statistics that do not apply to a filter stay at zero.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface FilterMetricsMXBean {
+
+    /**
+     * Gets the number of requests that went through the filter.
+     *
+     * @return the request count
+     */
+    long getRequestCount();
+
+    /**
+     * Gets the number of headers the filter removed from the responses, e.g. {@code Pragma} or {@code ETag}.
+     *
+     * @return the suppressed header count
+     */
+    long getSuppressedHeaderCount();
+
+    /**
+     * Gets the number of {@code 304 Not Modified} responses sent by the filter.
+     *
+     * @return the not modified count
+     */
+    long getNotModifiedCount();
+
+    /**
+     * Gets the number of requests answered with a copy of the response of an identical concurrent request, without
+     * running the filter chain.
+     *
+     * @return the coalesced request count
+     */
+    long getCoalescedCount();
+
+    /**
+     * Gets the number of responses tagged by each cache policy, keyed by rule pattern.
+     *
+     * @return the response count per policy
+     */
+    Map<String, Long> getPolicyCounts();
+
+    /**
+     * Gets the number of requests served from the server side cache, including the stale responses.
+     *
+     * @return the cache hit count
+     */
+    long getCacheHitCount();
+
+    /**
+     * Gets the number of stale responses served from the server side cache while they were refreshed.
+     *
+     * @return the stale hit count
+     */
+    long getCacheStaleHitCount();
+
+    /**
+     * Gets the number of requests that ran the filter chain because the server side cache had no usable response.
+     *
+     * @return the cache miss count
+     */
+    long getCacheMissCount();
+
+    /**
+     * Gets the number of responses kept by the server side cache.
+     *
+     * @return the cache entry count
+     */
+    int getCacheEntryCount();
+
+    /**
+     * Gets the storage used by the response bodies kept by the server side cache.
+     *
+     * @return the cache size in bytes
+     */
+    long getCacheSize();
+
+    /**
+     * Gets the number of background refreshes started and not finished yet.
+     *
+     * @return the pending refresh count
+     */
+    int getRefreshPendingCount();
+
+    /**
+     * Gets the number of background refreshes that failed, timed out or produced a response that could not be cached.
+     *
+     * @return the failed refresh count
+     */
+    long getRefreshFailureCount();
+
+    /**
+     * Gets the number of background refreshes rejected because too many were pending.
+     *
+     * @return the rejected refresh count
+     */
+    long getRefreshRejectionCount();
+
+    /**
+     * Gets the number of body capture buffers reused from the buffer pool.
+     *
+     * @return the pool hit count
+     */
+    long getBufferPoolHitCount();
+
+    /**
+     * Gets the number of body capture buffers allocated because the buffer pool was empty.
+     *
+     * @return the pool miss count
+     */
+    long getBufferPoolMissCount();
+
+    /**
+     * Gets the size of the buffers currently capturing response bodies.
+     *
+     * @return the size in bytes of the buffers in use
+     */
+    long getBufferPoolBorrowedSize();
+
+    /**
+     * Gets the size of the free buffers retained by the buffer pool.
+     *
+     * @return the size in bytes of the pooled buffers
+     */
+    long getBufferPoolFreeSize();
+
+    /**
+     * Gets the number of requests whose duration was sampled.
+     *
+     * @return the latency sample count
+     */
+    long getLatencySampleCount();
+
+    /**
+     * Gets the mean duration of the sampled requests, downstream filters and servlet included.
+     *
+     * @return the mean latency in microseconds
+     */
+    double getLatencyMean();
+
+    /**
+     * Gets the median duration of the sampled requests.
+     *
+     * @return the upper bound of the median latency in microseconds
+     */
+    long getLatency50thPercentile();
+
+    /**
+     * Gets the 99th percentile of the duration of the sampled requests.
+     *
+     * @return the upper bound of the 99th percentile latency in microseconds
+     */
+    long getLatency99thPercentile();
+
+    /**
+     * Gets the 99.9th percentile of the duration of the sampled requests.
+     *
+     * @return the upper bound of the 99.9th percentile latency in microseconds
+     */
+    long getLatency999thPercentile();
+
+    /**
+     * Resets the counters and the latency histogram of the filter. The server side cache statistics are not reset.
+     */
+    void reset();
+}
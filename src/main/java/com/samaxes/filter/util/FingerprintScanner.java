@@ -0,0 +1,129 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * <p>
+ * Detects content fingerprints in request paths, e.g. {@code app.3f9a2c.js} or {@code vendor-8e1c40b2.css}, as
+ * produced by asset pipelines that embed a hash of the file content in its name.
+ * </p>
+ * <p>
+ * A fingerprint is a token of the last path segment, delimited by {@code .}, {@code -} or {@code _}, made of at least
+ * {@value #MIN_LENGTH} hexadecimal characters mixing letters and digits. Only the segments ending with the extension
+ * of a static asset (style sheet, script, font, image or media file) are scanned, so that resource identifiers such as
+ * {@code /api/users/507f1f77bcf86cd799439011} are never taken as fingerprints. The scan is a single pass over the URI
+ * and does not allocate.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class FingerprintScanner {
+
+    /**
+     * Minimum length of a fingerprint.
+     */
+    public static final int MIN_LENGTH = 6;
+
+    private static final byte OTHER = 0;
+
+    private static final byte DIGIT = 1;
+
+    private static final byte LETTER = 2;
+
+    private static final byte DELIMITER = 3;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    private static final String[] EXTENSIONS = { "css", "js", "mjs", "map", "wasm", "woff", "woff2", "ttf", "otf",
+            "eot", "svg", "png", "jpg", "jpeg", "gif", "webp", "avif", "ico", "mp3", "mp4", "ogg", "webm" };
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        CLASSES['.'] = DELIMITER;
+        CLASSES['-'] = DELIMITER;
+        CLASSES['_'] = DELIMITER;
+    }
+
+    private FingerprintScanner() {
+    }
+
+    /**
+     * Tells if the last segment of a request path contains a content fingerprint.
+     *
+     * @param requestURI the request URI, as returned by {@code HttpServletRequest.getRequestURI()}
+     * @return {@code true} if the resource is fingerprinted
+     */
+    public static boolean isFingerprinted(String requestURI) {
+        int end = requestURI.indexOf(';');
+        if (end < 0) {
+            end = requestURI.length();
+        }
+        // The extension is not part of the scanned tokens
+        int start = requestURI.lastIndexOf('/', end - 1) + 1;
+        int extension = requestURI.lastIndexOf('.', end - 1);
+        if (extension <= start || !isStaticAsset(requestURI, extension + 1, end)) {
+            return false;
+        }
+        end = extension;
+
+        int length = 0;
+        boolean digits = false;
+        boolean letters = false;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? requestURI.charAt(i) : '.';
+            byte type = c < 128 ? CLASSES[c] : OTHER;
+            if (type == DIGIT) {
+                digits = true;
+                length++;
+            } else if (type == LETTER) {
+                letters = true;
+                length++;
+            } else if (type == DELIMITER && length >= MIN_LENGTH && digits && letters) {
+                return true;
+            } else {
+                // Token ended or contains characters that are not hexadecimal: skip to the next delimiter
+                while (type != DELIMITER && ++i < end) {
+                    c = requestURI.charAt(i);
+                    type = c < 128 ? CLASSES[c] : OTHER;
+                }
+                length = 0;
+                digits = false;
+                letters = false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStaticAsset(String requestURI, int start, int end) {
+        int length = end - start;
+        for (String extension : EXTENSIONS) {
+            if (extension.length() == length && requestURI.regionMatches(true, start, extension, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -19,7 +19,7 @@
 package com.samaxes.filter.util;
 
 /**
- * Cache HTTP response headers.
+ * Cache related HTTP headers.
  *
  * @author Samuel Santos
  * @author John Yeary
@@ -48,7 +48,99 @@ public enum HTTPCacheHeader {
      * The Vary field value indicates the set of request-header fields that fully determines, while the response is
      * fresh, whether a cache is permitted to use the response to reply to a subsequent request without revalidation.
      */
-    VARY("Vary");
+    VARY("Vary"),
+    /**
+     * The Last-Modified entity-header field indicates the date and time at which the origin server believes the variant
+     * was last modified.
+     */
+    LAST_MODIFIED("Last-Modified"),
+    /**
+     * The If-None-Match request-header field is used with a method to make it conditional on none of the given entity
+     * tags matching the current entity tag of the requested variant.
+     */
+    IF_NONE_MATCH("If-None-Match"),
+    /**
+     * The If-Modified-Since request-header field is used with a method to make it conditional on the requested variant
+     * having been modified since the given date.
+     */
+    IF_MODIFIED_SINCE("If-Modified-Since"),
+    /**
+     * The Age response-header field conveys the sender's estimate of the amount of time since the response was
+     * generated at the origin server.
+     */
+    AGE("Age"),
+    /**
+     * The Set-Cookie response-header field sends state information to the user agent. Responses carrying it must not
+     * be shared.
+     */
+    SET_COOKIE("Set-Cookie"),
+    /**
+     * The Cookie request-header field sends state information back to the origin server. Responses to it may be
+     * personalized.
+     */
+    COOKIE("Cookie"),
+    /**
+     * The Authorization request-header field carries the credentials of the user agent. Responses to it must not be
+     * shared unless explicitly allowed.
+     */
+    AUTHORIZATION("Authorization"),
+    /**
+     * The Accept-Encoding request-header field restricts the content-codings that are acceptable in the response. A
+     * response negotiated on it must list it in its Vary header.
+     */
+    ACCEPT_ENCODING("Accept-Encoding"),
+    /**
+     * The Accept-Language request-header field restricts the set of natural languages that are preferred as a response
+     * to the request.
+     */
+    ACCEPT_LANGUAGE("Accept-Language"),
+    /**
+     * The Content-Encoding entity-header field indicates what additional content codings have been applied to the
+     * entity-body.
+     */
+    CONTENT_ENCODING("Content-Encoding"),
+    /**
+     * The Range request-header field requests only part of the entity, as one or more byte ranges.
+     */
+    RANGE("Range"),
+    /**
+     * The If-Range request-header field makes a Range request conditional: the part is sent only if the entity is
+     * unchanged, the entire new entity otherwise.
+     */
+    IF_RANGE("If-Range"),
+    /**
+     * The Accept-Ranges response-header field indicates the server accepts range requests for the resource.
+     */
+    ACCEPT_RANGES("Accept-Ranges"),
+    /**
+     * The Content-Range entity-header field indicates where in the full entity-body a partial body belongs.
+     */
+    CONTENT_RANGE("Content-Range"),
+    /**
+     * The Surrogate-Key response-header field lists, separated by spaces, the tags under which surrogate caches file
+     * the response so that it can be purged along with the other responses of a tag.
+     */
+    SURROGATE_KEY("Surrogate-Key"),
+    /**
+     * The Cache-Tag response-header field lists, separated by commas, the tags under which caches file the response so
+     * that it can be purged along with the other responses of a tag.
+     */
+    CACHE_TAG("Cache-Tag"),
+    /**
+     * The Accept request-header field specifies the media types which are acceptable for the response. Browsers
+     * navigating to a page list {@code text/html} in it.
+     */
+    ACCEPT("Accept"),
+    /**
+     * The Referer request-header field specifies the address of the resource from which the request URI was obtained,
+     * e.g. the page loading a style sheet.
+     */
+    REFERER("Referer"),
+    /**
+     * The Link entity-header field lists links to other resources. With {@code rel=preload} it tells the browser to
+     * fetch a resource the page needs before it is discovered in the body.
+     */
+    LINK("Link");
 
     private final String name;
 
@@ -0,0 +1,79 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formats and parses dates using the RFC 1123 format mandated by HTTP/1.1 for header values.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class HTTPDateFormat {
+
+    private static final String PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    /**
+     * {@link SimpleDateFormat} is not thread safe, keep one instance per thread.
+     */
+    private static final ThreadLocal<SimpleDateFormat> FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN, Locale.US);
+            dateFormat.setTimeZone(GMT);
+            return dateFormat;
+        }
+    };
+
+    private HTTPDateFormat() {
+    }
+
+    /**
+     * Formats a date as an HTTP header value.
+     *
+     * @param date the date in milliseconds since the epoch
+     * @return the formatted date, e.g. {@code Sun, 06 Nov 1994 08:49:37 GMT}
+     */
+    public static String format(long date) {
+        return FORMAT.get().format(new Date(date));
+    }
+
+    /**
+     * Parses an HTTP header date value.
+     *
+     * @param value the formatted date, e.g. {@code Sun, 06 Nov 1994 08:49:37 GMT}
+     * @return the date in milliseconds since the epoch, or {@code -1} if the value is not an RFC 1123 date
+     */
+    public static long parse(String value) {
+        if (value == null) {
+            return -1L;
+        }
+        String trimmed = value.trim();
+        ParsePosition position = new ParsePosition(0);
+        Date date = FORMAT.get().parse(trimmed, position);
+        return date == null || position.getIndex() != trimmed.length() ? -1L : date.getTime();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Immutable set of HTTP header names, looked up ignoring case.
+ * </p>
+ * <p>
+ * The names are hashed once into an open addressing table, on their length and their first and last characters folded
+ * to lower case. A lookup first checks the length of the name against the lengths in the set, which rejects most
+ * names without reading them, then hashes the name the same way and compares the candidates ignoring case. Lookups do
+ * not allocate.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class HeaderNameSet {
+
+    private final String[] names;
+
+    private final String[] table;
+
+    private final int mask;
+
+    /**
+     * Bit {@code n} is set when the set holds a name of {@code n} characters, bit {@code 63} for the longer ones.
+     */
+    private final long lengths;
+
+    /**
+     * Constructs a set of header names.
+     *
+     * @param names the header names, duplicates ignoring case being dropped
+     */
+    public HeaderNameSet(String... names) {
+        int size = Integer.highestOneBit(Math.max(names.length, 1) * 4 - 1) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+        List<String> distinct = new ArrayList<String>(names.length);
+        long lengthBits = 0L;
+        for (String name : names) {
+            int index = hash(name) & mask;
+            while (table[index] != null && !table[index].equalsIgnoreCase(name)) {
+                index = (index + 1) & mask;
+            }
+            if (table[index] == null) {
+                table[index] = name;
+                distinct.add(name);
+                lengthBits |= lengthBit(name.length());
+            }
+        }
+        this.names = distinct.toArray(new String[distinct.size()]);
+        this.lengths = lengthBits;
+    }
+
+    /**
+     * Parses a comma separated list of header names.
+     *
+     * @param value the header names
+     * @return the set of header names, empty if {@code value} is {@code null}
+     */
+    public static HeaderNameSet parse(String value) {
+        List<String> names = new ArrayList<String>();
+        if (value != null) {
+            for (String name : value.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        return new HeaderNameSet(names.toArray(new String[names.size()]));
+    }
+
+    /**
+     * Tells if the set holds a header name, ignoring case.
+     *
+     * @param name the header name, or {@code null}
+     * @return {@code true} if the name is in the set
+     */
+    public boolean contains(String name) {
+        if (name == null || (lengths & lengthBit(name.length())) == 0L) {
+            return false;
+        }
+        int index = hash(name) & mask;
+        String candidate;
+        while ((candidate = table[index]) != null) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Tells if the set holds no header name.
+     *
+     * @return {@code true} if the set is empty
+     */
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    /**
+     * Gets the header names of the set, in the order they were given.
+     *
+     * @return the header names
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    private static long lengthBit(int length) {
+        return 1L << Math.min(length, 63);
+    }
+
+    /**
+     * Hashes the length and the first and last characters of a name, which tell most header names apart, so that the
+     * cost of a lookup does not depend on the length of the name.
+     */
+    private static int hash(String name) {
+        int length = name.length();
+        if (length == 0) {
+            return 0;
+        }
+        int hash = (length * 31 + toLowerCase(name.charAt(0))) * 31 + toLowerCase(name.charAt(length - 1));
+        return hash ^ (hash >>> 7);
+    }
+
+    private static int toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
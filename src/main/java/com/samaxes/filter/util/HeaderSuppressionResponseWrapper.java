@@ -0,0 +1,114 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>
+ * Response wrapper dropping a set of headers, whether they are set or added, as strings, dates or integers.
+ * </p>
+ * <p>
+ * The header names are looked up in a {@link HeaderNameSet} shared by all the requests of a filter, so that the wrapper
+ * is the only allocation per request. Subclasses adding behavior to the header methods must call the overridden
+ * methods, which forward the headers not suppressed.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class HeaderSuppressionResponseWrapper extends HttpServletResponseWrapper {
+
+    private final HeaderNameSet suppressedHeaders;
+
+    private final FilterMetrics metrics;
+
+    /**
+     * Constructs a response wrapper suppressing headers.
+     *
+     * @param response the wrapped response
+     * @param suppressedHeaders the names of the headers to drop
+     * @param metrics the statistics counting the dropped headers, or {@code null}
+     */
+    public HeaderSuppressionResponseWrapper(HttpServletResponse response, HeaderNameSet suppressedHeaders,
+            FilterMetrics metrics) {
+        super(response);
+        this.suppressedHeaders = suppressedHeaders;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Tells if a header must be dropped, counting it in the filter statistics if so.
+     *
+     * @param name the header name
+     * @return {@code true} if the header is suppressed
+     */
+    protected boolean isSuppressed(String name) {
+        if (!suppressedHeaders.contains(name)) {
+            return false;
+        }
+        if (metrics != null) {
+            metrics.headerSuppressed();
+        }
+        return true;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!isSuppressed(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!isSuppressed(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        if (!isSuppressed(name)) {
+            super.setDateHeader(name, date);
+        }
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        if (!isSuppressed(name)) {
+            super.addDateHeader(name, date);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!isSuppressed(name)) {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!isSuppressed(name)) {
+            super.addIntHeader(name, value);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stores response bodies in byte arrays on the Java heap. The capacity is enforced by the cache evicting entries.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class HeapResponseBodyStore implements ResponseBodyStore {
+
+    private final long capacity;
+
+    /**
+     * Constructs a heap store.
+     *
+     * @param capacity the maximum total size of the bodies, in bytes
+     */
+    public HeapResponseBodyStore(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long weigh(int length) {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseBody allocate(int length) {
+        return new HeapResponseBody(new byte[length]);
+    }
+
+    /**
+     * Body backed by a byte array, reclaimed by the garbage collector.
+     */
+    static final class HeapResponseBody implements ResponseBody {
+
+        private final byte[] bytes;
+
+        HeapResponseBody(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public long getWeight() {
+            return bytes.length;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                private int position;
+
+                @Override
+                public void write(int b) {
+                    bytes[position++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    System.arraycopy(b, off, bytes, position, len);
+                    position += len;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+
+        @Override
+        public void retain() {
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * Invalidation of stored responses, broadcast to the other nodes of a cluster by an {@link InvalidationTransport}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class Invalidation {
+
+    /**
+     * Kinds of invalidation, one per {@link CachePurger} operation.
+     */
+    public enum Type {
+        /**
+         * Removes the responses of a path, see {@link CachePurger#purgePath(String)}.
+         */
+        PATH('P'),
+        /**
+         * Removes the responses of the paths starting with a prefix, see {@link CachePurger#purgePathPrefix(String)}.
+         */
+        PATH_PREFIX('X'),
+        /**
+         * Removes the responses filed under a tag, see {@link CachePurger#purgeTag(String)}.
+         */
+        TAG('T'),
+        /**
+         * Removes all the responses, see {@link CachePurger#purgeAll()}.
+         */
+        ALL('A');
+
+        private final char code;
+
+        private Type(char code) {
+            this.code = code;
+        }
+
+        /**
+         * Gets the character identifying the type in encoded invalidations.
+         *
+         * @return the type code
+         */
+        public char getCode() {
+            return code;
+        }
+
+        /**
+         * Gets the type of a code.
+         *
+         * @param code the type code
+         * @return the type, or {@code null} if the code is unknown
+         */
+        public static Type valueOf(char code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Invalidation of all the responses.
+     */
+    public static final Invalidation ALL = new Invalidation(Type.ALL, "");
+
+    private final Type type;
+
+    private final String value;
+
+    /**
+     * Constructs an invalidation.
+     *
+     * @param type the invalidation type
+     * @param value the path, path prefix or tag, empty for {@link Type#ALL}
+     */
+    public Invalidation(Type type, String value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Gets the invalidation type.
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the path, path prefix or tag of the invalidated responses.
+     *
+     * @return the value, empty for {@link Type#ALL}
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Removes the invalidated responses from a cache.
+     *
+     * @param purger the cache
+     * @return the number of removed responses, {@code 0} for {@link Type#ALL}
+     */
+    public int applyTo(CachePurger purger) {
+        switch (type) {
+        case PATH:
+            return purger.purgePath(value);
+        case PATH_PREFIX:
+            return purger.purgePathPrefix(value);
+        case TAG:
+            return purger.purgeTag(value);
+        default:
+            purger.purgeAll();
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Invalidation)) {
+            return false;
+        }
+        Invalidation other = (Invalidation) obj;
+        return type == other.type && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode() * 31 + value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder().append(type.code).append(' ').append(value).toString();
+    }
+}
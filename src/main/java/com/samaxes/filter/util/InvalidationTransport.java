@@ -0,0 +1,77 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>
+ * Service provider interface of the broadcast of invalidations between the nodes of a cluster, so that a response
+ * purged on one node is purged from the server side cache of every node.
+ * </p>
+ * <p>
+ * The {@code invalidation} parameter of the filters keeping responses on the server side selects the transport:
+ * {@code local} for the {@link LocalInvalidationTransport} between the applications of a single JVM, {@code multicast}
+ * for the {@link MulticastInvalidationTransport}, or the name of a class implementing this interface with a public
+ * no-argument constructor. Transports deliver batches of invalidations, at most once and in no particular order; they
+ * must not deliver the invalidations a node sends back to itself.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Joins a group of nodes, and starts delivering the invalidations sent by the other members.
+     *
+     * @param group the group name from the {@code invalidation-group} parameter, or {@code null} for the transport
+     *        default
+     * @param receiver the receiver of the invalidations sent by the other members
+     * @throws IOException if the group cannot be joined
+     */
+    void start(String group, Receiver receiver) throws IOException;
+
+    /**
+     * Sends a batch of invalidations to the other members of the group.
+     *
+     * @param invalidations the invalidations
+     * @throws IOException if the invalidations cannot be sent
+     */
+    void send(List<Invalidation> invalidations) throws IOException;
+
+    /**
+     * Leaves the group and releases the transport resources.
+     */
+    void stop();
+
+    /**
+     * Receiver of the invalidations sent by the other members of a group.
+     */
+    interface Receiver {
+
+        /**
+         * Applies a batch of invalidations sent by another member.
+         *
+         * @param invalidations the invalidations
+         */
+        void receive(List<Invalidation> invalidations);
+    }
+}
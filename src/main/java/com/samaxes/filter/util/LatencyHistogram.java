@@ -0,0 +1,117 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Lock free histogram of durations, with buckets growing by powers of two from one microsecond up to about an hour.
+ * </p>
+ * <p>
+ * Percentiles are approximated by the upper bound of the bucket they fall in, so they are at most twice the exact
+ * value. Only sampled durations are recorded, which keeps the contention on the buckets low; the sum of the durations
+ * is striped.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 33;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final StripedCounter count = new StripedCounter();
+
+    private final StripedCounter totalNanos = new StripedCounter();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = nanos < 0L ? 0L : nanos / 1000L;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(bucket < BUCKETS ? bucket : BUCKETS - 1);
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the number of samples
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return the mean in microseconds, or {@code 0} if no duration was recorded
+     */
+    public double getMean() {
+        long samples = count.get();
+        return samples == 0L ? 0.0d : totalNanos.get() / 1000.0d / samples;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the upper bound, in microseconds, of the bucket holding the percentile, or {@code 0} if no duration was
+     *         recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long samples = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            samples += snapshot[i];
+        }
+        if (samples == 0L) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(samples * percentile / 100.0d);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Resets the histogram. Concurrent records may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        totalNanos.reset();
+    }
+}
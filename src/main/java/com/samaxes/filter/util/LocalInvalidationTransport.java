@@ -0,0 +1,102 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * Invalidation transport between the members of a group within a single JVM, e.g. several web applications or filters
+ * of one server, or a test standing in for a cluster.
+ * </p>
+ * <p>
+ * Invalidations are delivered synchronously, on the sending thread, to the other members of the group.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private static final String DEFAULT_GROUP = "default";
+
+    private static final ConcurrentMap<String, List<LocalInvalidationTransport>> GROUPS =
+            new ConcurrentHashMap<String, List<LocalInvalidationTransport>>();
+
+    private List<LocalInvalidationTransport> members;
+
+    private Receiver receiver;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start(String group, Receiver receiver) {
+        String name = group == null ? DEFAULT_GROUP : group;
+        List<LocalInvalidationTransport> newMembers = new CopyOnWriteArrayList<LocalInvalidationTransport>();
+        List<LocalInvalidationTransport> existingMembers = GROUPS.putIfAbsent(name, newMembers);
+        this.members = existingMembers == null ? newMembers : existingMembers;
+        this.receiver = receiver;
+        members.add(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(List<Invalidation> invalidations) {
+        List<LocalInvalidationTransport> group;
+        synchronized (this) {
+            group = members;
+        }
+        if (group == null) {
+            return;
+        }
+        for (LocalInvalidationTransport member : group) {
+            if (member != this) {
+                member.deliver(invalidations);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void stop() {
+        if (members != null) {
+            // Emptied groups are kept, so that a member joining concurrently never ends up alone in a detached group
+            members.remove(this);
+            members = null;
+        }
+    }
+
+    private void deliver(List<Invalidation> invalidations) {
+        Receiver target;
+        synchronized (this) {
+            target = receiver;
+        }
+        if (target != null) {
+            target.receive(invalidations);
+        }
+    }
+}
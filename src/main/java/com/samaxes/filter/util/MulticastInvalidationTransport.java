@@ -0,0 +1,321 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * <p>
+ * Invalidation transport between the nodes of a network, over UDP multicast.
+ * </p>
+ * <p>
+ * The group is given as {@code address:port}, {@code 239.255.27.1:45566} by default, and datagrams are sent with a
+ * time to live of {@code 1}, reaching the nodes of the local network only. Datagrams sent by a node are looped back to
+ * the other applications of the same host, so that a group can be tried out on a single machine, and skipped by the
+ * sending transport itself. Each datagram holds, in UTF-8, a header line naming its sender followed by one line per
+ * invalidation; batches larger than {@value #MAX_DATAGRAM_SIZE} bytes are split across several datagrams. Like UDP,
+ * the transport does not retransmit lost datagrams.
+ * </p>
+ * <p>
+ * Without a shared secret, any host of the network able to send to the group can purge the cache of every node. With
+ * a secret, each datagram ends with its HMAC-SHA256, and the datagrams without a valid one are dropped; captured
+ * datagrams can still be replayed, repeating purges that were already sent.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class MulticastInvalidationTransport implements InvalidationTransport {
+
+    /**
+     * Maximum size, in bytes, of the datagrams holding several invalidations.
+     */
+    public static final int MAX_DATAGRAM_SIZE = 8192;
+
+    private static final String DEFAULT_GROUP = "239.255.27.1:45566";
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final String MAGIC = "cache-invalidation ";
+
+    private static final int TIME_TO_LIVE = 1;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAC_LENGTH = 32;
+
+    private static final long MIN_BACKOFF = 10L;
+
+    private static final long MAX_BACKOFF = 5000L;
+
+    private final String sender = UUID.randomUUID().toString();
+
+    private final SecretKeySpec key;
+
+    private final Mac mac;
+
+    private InetAddress address;
+
+    private int port;
+
+    private MulticastSocket socket;
+
+    private Receiver receiver;
+
+    /**
+     * Creates a multicast transport exchanging unauthenticated datagrams.
+     */
+    public MulticastInvalidationTransport() {
+        this(null);
+    }
+
+    /**
+     * Creates a multicast transport authenticating its datagrams with a secret shared by the nodes of the group.
+     *
+     * @param secret the shared secret, or {@code null} to exchange unauthenticated datagrams
+     */
+    public MulticastInvalidationTransport(String secret) {
+        if (secret == null) {
+            this.key = null;
+            this.mac = null;
+        } else {
+            try {
+                this.key = new SecretKeySpec(secret.getBytes(CHARSET), MAC_ALGORITHM);
+                this.mac = newMac(key);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the group is not a multicast {@code address:port}
+     */
+    @Override
+    public void start(String group, Receiver receiver) throws IOException {
+        String spec = group == null ? DEFAULT_GROUP : group.trim();
+        int separator = spec.lastIndexOf(':');
+        if (separator < 1) {
+            throw new IllegalArgumentException("Multicast group " + spec + " is not an address:port.");
+        }
+        String host = spec.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        try {
+            this.port = Integer.parseInt(spec.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Multicast group " + spec + " has an invalid port.");
+        }
+        this.address = InetAddress.getByName(host);
+        if (!address.isMulticastAddress() || port < 1 || port > 65535) {
+            throw new IllegalArgumentException("Multicast group " + spec + " is not a multicast address:port.");
+        }
+        this.receiver = receiver;
+
+        final MulticastSocket newSocket = new MulticastSocket(port);
+        try {
+            newSocket.setTimeToLive(TIME_TO_LIVE);
+            newSocket.setLoopbackMode(false); // false enables the loopback of sent datagrams to the local host
+            newSocket.joinGroup(address);
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+        this.socket = newSocket;
+
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                receive(newSocket);
+            }
+        }, "cache-invalidation-" + spec);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(List<Invalidation> invalidations) throws IOException {
+        byte[] header = (MAGIC + sender + "\n").getBytes(CHARSET);
+        int trailer = mac == null ? 0 : MAC_LENGTH;
+        byte[] datagram = new byte[MAX_DATAGRAM_SIZE];
+        System.arraycopy(header, 0, datagram, 0, header.length);
+        int length = header.length;
+        for (Invalidation invalidation : invalidations) {
+            if (invalidation.getValue().indexOf('\n') >= 0) {
+                continue; // not representable on the wire, and not a valid path or tag either
+            }
+            byte[] line = (invalidation.toString() + "\n").getBytes(CHARSET);
+            if (length + line.length + trailer > datagram.length && length > header.length) {
+                sendDatagram(datagram, length);
+                length = header.length;
+            }
+            if (header.length + line.length + trailer > datagram.length) {
+                byte[] larger = new byte[header.length + line.length + trailer];
+                System.arraycopy(header, 0, larger, 0, header.length);
+                datagram = larger;
+            }
+            System.arraycopy(line, 0, datagram, length, line.length);
+            length += line.length;
+        }
+        if (length > header.length) {
+            sendDatagram(datagram, length);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        MulticastSocket closing = socket;
+        socket = null;
+        if (closing != null) {
+            try {
+                closing.leaveGroup(address);
+            } catch (IOException e) {
+                // The socket is closed right after
+            }
+            closing.close();
+        }
+    }
+
+    private void sendDatagram(byte[] datagram, int length) throws IOException {
+        MulticastSocket current = socket;
+        if (current == null) {
+            throw new IOException("Multicast transport is stopped.");
+        }
+        if (mac != null) {
+            synchronized (mac) {
+                mac.update(datagram, 0, length);
+                try {
+                    mac.doFinal(datagram, length);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e); // the datagram always has room for the MAC
+                }
+            }
+            length += MAC_LENGTH;
+        }
+        current.send(new DatagramPacket(datagram, length, address, port));
+    }
+
+    private void receive(MulticastSocket receiving) {
+        Mac verifier = key == null ? null : newMac(key);
+        byte[] buffer = new byte[65536];
+        long backoff = 0L;
+        while (!receiving.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                receiving.receive(packet);
+                backoff = 0L;
+            } catch (IOException e) {
+                if (receiving.isClosed()) {
+                    return; // closed by stop
+                }
+                // Wait before retrying, so that a persistent socket error does not keep a core busy
+                backoff = Math.min(Math.max(backoff * 2L, MIN_BACKOFF), MAX_BACKOFF);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            if (verifier != null && !verify(verifier, packet)) {
+                continue;
+            }
+            List<Invalidation> invalidations = decode(packet);
+            if (invalidations != null && !invalidations.isEmpty()) {
+                try {
+                    receiver.receive(invalidations);
+                } catch (RuntimeException e) {
+                    // Keep receiving the invalidations of the next datagrams
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the MAC ending a datagram, and removes it from the packet data.
+     */
+    private static boolean verify(Mac verifier, DatagramPacket packet) {
+        int length = packet.getLength() - MAC_LENGTH;
+        if (length <= 0) {
+            return false;
+        }
+        verifier.update(packet.getData(), packet.getOffset(), length);
+        byte[] expected = verifier.doFinal();
+        byte[] actual = new byte[MAC_LENGTH];
+        System.arraycopy(packet.getData(), packet.getOffset() + length, actual, 0, MAC_LENGTH);
+        packet.setLength(length);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e); // every Java platform supports HmacSHA256
+        }
+    }
+
+    private List<Invalidation> decode(DatagramPacket packet) {
+        String text;
+        try {
+            text = new String(packet.getData(), packet.getOffset(), packet.getLength(), CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            return null;
+        }
+        String[] lines = text.split("\n");
+        if (lines.length < 2 || !lines[0].startsWith(MAGIC) || lines[0].substring(MAGIC.length()).equals(sender)) {
+            return null;
+        }
+        List<Invalidation> invalidations = new ArrayList<Invalidation>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            Invalidation.Type type = line.length() < 2 ? null : Invalidation.Type.valueOf(line.charAt(0));
+            if (type != null && line.charAt(1) == ' ') {
+                invalidations.add(type == Invalidation.Type.ALL ? Invalidation.ALL
+                        : new Invalidation(type, line.substring(2)));
+            }
+        }
+        return invalidations;
+    }
+}
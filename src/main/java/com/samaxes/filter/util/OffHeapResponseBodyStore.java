@@ -0,0 +1,220 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Stores response bodies outside of the Java heap, so that large caches do not lengthen garbage collection pauses.
+ * </p>
+ * <p>
+ * The store is an arena of direct {@link ByteBuffer} slabs, allocated lazily up to the configured capacity and split in
+ * fixed size pages. A body is made of as many pages as it needs, which avoids fragmentation; its pages go back to the
+ * free list once the cache and every reader have released it. Bodies are written to clients through a per-thread
+ * transfer buffer, one page at a time.
+ * </p>
+ * <p>
+ * The JVM maximum direct memory ({@code -XX:MaxDirectMemorySize}) must be large enough for the configured capacity.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class OffHeapResponseBodyStore implements ResponseBodyStore {
+
+    /**
+     * Size of a page, in bytes.
+     */
+    public static final int PAGE_SIZE = 16 * 1024;
+
+    private static final int PAGES_PER_SLAB = 4096;
+
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[PAGE_SIZE];
+        }
+    };
+
+    private final long capacity;
+
+    private final int maxPages;
+
+    private final ArrayDeque<ByteBuffer> freePages = new ArrayDeque<ByteBuffer>();
+
+    private int allocatedPages;
+
+    /**
+     * Constructs an off-heap store.
+     *
+     * @param capacity the maximum size of the arena, in bytes
+     */
+    public OffHeapResponseBodyStore(long capacity) {
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, capacity / PAGE_SIZE);
+        this.capacity = (long) maxPages * PAGE_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long weigh(int length) {
+        return (long) pages(length) * PAGE_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized ResponseBody allocate(int length) {
+        int pageCount = pages(length);
+        if (pageCount > freePages.size() + maxPages - allocatedPages) {
+            return null;
+        }
+        while (freePages.size() < pageCount) {
+            allocateSlab();
+        }
+
+        ByteBuffer[] pages = new ByteBuffer[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = freePages.pop();
+        }
+        return new OffHeapResponseBody(pages, length);
+    }
+
+    /**
+     * Gets the number of pages currently holding bodies.
+     *
+     * @return the number of used pages
+     */
+    public synchronized int getUsedPages() {
+        return allocatedPages - freePages.size();
+    }
+
+    private void allocateSlab() {
+        int slabPages = Math.min(PAGES_PER_SLAB, maxPages - allocatedPages);
+        ByteBuffer slab = ByteBuffer.allocateDirect(slabPages * PAGE_SIZE);
+        for (int i = 0; i < slabPages; i++) {
+            slab.limit((i + 1) * PAGE_SIZE).position(i * PAGE_SIZE);
+            freePages.push(slab.slice());
+        }
+        allocatedPages += slabPages;
+    }
+
+    private synchronized void free(ByteBuffer[] pages) {
+        for (ByteBuffer page : pages) {
+            freePages.push(page);
+        }
+    }
+
+    private static int pages(int length) {
+        return (length + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    /**
+     * Body spread over pages of the arena.
+     */
+    private final class OffHeapResponseBody implements ResponseBody {
+
+        private final ByteBuffer[] pages;
+
+        private final int length;
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private OffHeapResponseBody(ByteBuffer[] pages, int length) {
+            this.pages = pages;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public long getWeight() {
+            return (long) pages.length * PAGE_SIZE;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new OutputStream() {
+                private int position;
+
+                @Override
+                public void write(int b) {
+                    pages[position / PAGE_SIZE].put(position % PAGE_SIZE, (byte) b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    while (len > 0) {
+                        ByteBuffer page = pages[position / PAGE_SIZE].duplicate();
+                        page.position(position % PAGE_SIZE);
+                        int count = Math.min(len, page.remaining());
+                        page.put(b, off, count);
+                        position += count;
+                        off += count;
+                        len -= count;
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            byte[] transfer = TRANSFER_BUFFER.get();
+            int remaining = length;
+            for (ByteBuffer page : pages) {
+                int count = Math.min(remaining, PAGE_SIZE);
+                ByteBuffer source = page.duplicate();
+                source.get(transfer, 0, count);
+                out.write(transfer, 0, count);
+                remaining -= count;
+            }
+        }
+
+        @Override
+        public void retain() {
+            references.incrementAndGet();
+        }
+
+        @Override
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                free(pages);
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * Learns, for each page, the critical fingerprinted assets it loads, and announces them in {@code Link} headers with
+ * {@code rel=preload}, optionally sent ahead of the response as {@code 103 Early Hints}.
+ * </p>
+ * <p>
+ * A successful request for a fingerprinted style sheet, script or font, see {@link FingerprintScanner}, whose
+ * {@code Referer} is a page of the same host, adds the asset to the preload set of that page, up to a maximum number
+ * of assets kept in the order they are first requested. Once the set is full, an asset no page requested for an hour
+ * is replaced by the new one, so that assets dropped by the page, or learned from forged requests, age out. Images are
+ * never preloaded. The sets are kept in memory, keyed by request URI, for a
+ * bounded number of pages, and are learned again after each deployment, when the fingerprints change. Once the maximum
+ * number of pages is reached, an arbitrary page is dropped for each new one. The {@code Link} header value of a page
+ * is built when an asset is learned, so that lookups do not allocate.
+ * </p>
+ * <p>
+ * Servlet 3.0 cannot send informational responses. Early hints are sent through the {@code sendEarlyHints()} method of
+ * the container response, looked up once per response class, which some containers (e.g. recent Tomcat versions)
+ * provide; the {@code Link} headers are sent with the final response either way.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class PreloadHints {
+
+    private static final long DEFAULT_MAX_LINKS = 4L;
+
+    private static final long DEFAULT_MAX_PAGES = 1000L;
+
+    /**
+     * Time, in milliseconds, after which an asset that was not requested again can be replaced.
+     */
+    private static final long ASSET_MAX_AGE = 60L * 60L * 1000L;
+
+    private static final Map<String, String> DESTINATIONS = new HashMap<String, String>();
+
+    static {
+        DESTINATIONS.put("css", "style");
+        DESTINATIONS.put("js", "script");
+        DESTINATIONS.put("mjs", "script");
+        DESTINATIONS.put("woff2", "font");
+        DESTINATIONS.put("woff", "font");
+        DESTINATIONS.put("ttf", "font");
+        DESTINATIONS.put("otf", "font");
+    }
+
+    /**
+     * Response classes without a usable {@code sendEarlyHints()} method.
+     */
+    private static final Method UNSUPPORTED;
+
+    static {
+        try {
+            UNSUPPORTED = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final ConcurrentMap<Class<?>, Method> EARLY_HINTS_METHODS =
+            new ConcurrentHashMap<Class<?>, Method>();
+
+    private final ConcurrentMap<String, PreloadSet> pages = new ConcurrentHashMap<String, PreloadSet>();
+
+    private final int maxLinks;
+
+    private final int maxPages;
+
+    private final boolean earlyHints;
+
+    /**
+     * Constructs a preload hints cache.
+     *
+     * @param maxLinks the maximum number of assets preloaded by a page
+     * @param maxPages the maximum number of pages whose assets are kept
+     * @param earlyHints whether the hints are sent as {@code 103 Early Hints} when the container supports it
+     */
+    public PreloadHints(int maxLinks, int maxPages, boolean earlyHints) {
+        this.maxLinks = maxLinks;
+        this.maxPages = maxPages;
+        this.earlyHints = earlyHints;
+    }
+
+    /**
+     * Creates a preload hints cache from the {@code preload}, {@code preload-links}, {@code preload-pages} and
+     * {@code early-hints} initialization parameters of a filter.
+     *
+     * @param filterConfig the filter configuration
+     * @return the preload hints cache, or {@code null} if {@code preload} is not enabled
+     * @throws ServletException if a parameter is invalid
+     */
+    public static PreloadHints configure(FilterConfig filterConfig) throws ServletException {
+        if (!CacheConfigParameter.PRELOAD.getBooleanValue(filterConfig)) {
+            return null;
+        }
+        long maxLinks = CacheConfigParameter.PRELOAD_LINKS.getLongValue(filterConfig, DEFAULT_MAX_LINKS);
+        if (maxLinks < 1L || maxLinks > Integer.MAX_VALUE) {
+            throw CacheConfigParameter.PRELOAD_LINKS.invalid(filterConfig);
+        }
+        long maxPages = CacheConfigParameter.PRELOAD_PAGES.getLongValue(filterConfig, DEFAULT_MAX_PAGES);
+        if (maxPages < 1L || maxPages > Integer.MAX_VALUE) {
+            throw CacheConfigParameter.PRELOAD_PAGES.invalid(filterConfig);
+        }
+        return new PreloadHints((int) maxLinks, (int) maxPages,
+                CacheConfigParameter.EARLY_HINTS.getBooleanValue(filterConfig));
+    }
+
+    /**
+     * Adds the asset requested to the preload set of the page referring to it, if the request is for a fingerprinted
+     * style sheet, script or font that was served successfully. Must be called once the response is complete.
+     *
+     * @param request the request
+     * @param response the response
+     */
+    public void learn(HttpServletRequest request, HttpServletResponse response) {
+        int status = response.getStatus();
+        if (status < HttpServletResponse.SC_OK || status >= HttpServletResponse.SC_MULTIPLE_CHOICES) {
+            // Unknown assets must not be preloaded
+            return;
+        }
+        String referer = request.getHeader(HTTPCacheHeader.REFERER.getName());
+        if (referer == null) {
+            return;
+        }
+        String requestURI = request.getRequestURI();
+        String destination = getDestination(requestURI);
+        if (destination == null || !FingerprintScanner.isFingerprinted(requestURI)) {
+            return;
+        }
+        String page = getSameHostPath(referer, request.getServerName());
+        if (page == null || FingerprintScanner.isFingerprinted(page)) {
+            // Assets loaded by a style sheet are not preloaded by the page
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        PreloadSet preloadSet = pages.get(page);
+        while (true) {
+            PreloadSet newPreloadSet;
+            if (preloadSet == null) {
+                newPreloadSet = new PreloadSet(requestURI, destination, now);
+            } else if (preloadSet.touch(requestURI, now)) {
+                return;
+            } else if (preloadSet.size() < maxLinks) {
+                newPreloadSet = preloadSet.add(requestURI, destination, now);
+            } else {
+                int eldest = preloadSet.getEldest();
+                if (now - preloadSet.getLastSeen(eldest) < ASSET_MAX_AGE) {
+                    return;
+                }
+                newPreloadSet = preloadSet.replace(eldest, requestURI, destination, now);
+            }
+            if (preloadSet == null) {
+                if (pages.size() >= maxPages) {
+                    Iterator<String> keys = pages.keySet().iterator();
+                    if (keys.hasNext()) {
+                        keys.next();
+                        keys.remove();
+                    }
+                }
+                if (pages.putIfAbsent(page, newPreloadSet) == null) {
+                    return;
+                }
+            } else if (pages.replace(page, preloadSet, newPreloadSet)) {
+                return;
+            }
+            preloadSet = pages.get(page);
+        }
+    }
+
+    /**
+     * Gets the {@code Link} header value preloading the assets of a page, if the request navigates to a page whose
+     * assets were learned.
+     *
+     * @param request the request
+     * @return the {@code Link} header value, or {@code null} if there is nothing to preload
+     */
+    public String getLinks(HttpServletRequest request) {
+        if (pages.isEmpty()) {
+            return null;
+        }
+        String accept = request.getHeader(HTTPCacheHeader.ACCEPT.getName());
+        if (accept == null || !accept.contains("text/html")) {
+            return null;
+        }
+        PreloadSet preloadSet = pages.get(request.getRequestURI());
+        return preloadSet == null ? null : preloadSet.value;
+    }
+
+    /**
+     * Adds the {@code Link} header preloading the assets of a page to a response, and sends it as
+     * {@code 103 Early Hints} if enabled and supported by the container.
+     *
+     * @param response the response
+     * @param links the {@code Link} header value returned by {@link #getLinks(HttpServletRequest)}
+     */
+    public void apply(HttpServletResponse response, String links) {
+        response.addHeader(HTTPCacheHeader.LINK.getName(), links);
+        if (earlyHints && !response.isCommitted()) {
+            sendEarlyHints(response);
+        }
+    }
+
+    /**
+     * Gets the number of pages whose assets are kept.
+     *
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Removes all the learned assets.
+     */
+    public void clear() {
+        pages.clear();
+    }
+
+    private static void sendEarlyHints(ServletResponse response) {
+        ServletResponse containerResponse = response;
+        while (containerResponse instanceof ServletResponseWrapper) {
+            containerResponse = ((ServletResponseWrapper) containerResponse).getResponse();
+        }
+        Class<?> responseClass = containerResponse.getClass();
+        Method method = EARLY_HINTS_METHODS.get(responseClass);
+        if (method == null) {
+            try {
+                method = responseClass.getMethod("sendEarlyHints");
+                // The method of a non public class cannot be invoked
+                method.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                method = UNSUPPORTED;
+            } catch (RuntimeException e) {
+                // Denied by a security manager or a module boundary
+                method = UNSUPPORTED;
+            }
+            EARLY_HINTS_METHODS.putIfAbsent(responseClass, method);
+        }
+        if (method == UNSUPPORTED) {
+            return;
+        }
+        try {
+            method.invoke(containerResponse);
+        } catch (Exception e) {
+            // Hints are optional, the final response carries the links anyway
+            EARLY_HINTS_METHODS.put(responseClass, UNSUPPORTED);
+        }
+    }
+
+    private static String getDestination(String requestURI) {
+        int dot = requestURI.lastIndexOf('.');
+        if (dot < 0 || requestURI.indexOf('/', dot) >= 0) {
+            return null;
+        }
+        int end = requestURI.indexOf(';', dot);
+        return DESTINATIONS.get(requestURI.substring(dot + 1, end < 0 ? requestURI.length() : end));
+    }
+
+    /**
+     * Gets the path of an absolute URL if its host is the given one, without query string or fragment.
+     */
+    private static String getSameHostPath(String url, String host) {
+        int authority = url.indexOf("://");
+        if (authority < 0 || host == null) {
+            return null;
+        }
+        int hostStart = authority + 3;
+        int pathStart = url.indexOf('/', hostStart);
+        if (pathStart < 0) {
+            return null;
+        }
+        int hostEnd = url.indexOf(':', hostStart);
+        if (hostEnd < 0 || hostEnd > pathStart) {
+            hostEnd = pathStart;
+        }
+        if (hostEnd - hostStart != host.length() || !url.regionMatches(true, hostStart, host, 0, host.length())) {
+            return null;
+        }
+        int pathEnd = pathStart;
+        while (pathEnd < url.length() && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#') {
+            pathEnd++;
+        }
+        return url.substring(pathStart, pathEnd);
+    }
+
+    /**
+     * Preload set of a page, with its {@code Link} header value. The assets are immutable, only the times they were
+     * last requested are updated in place.
+     */
+    private static final class PreloadSet {
+
+        private final String[] paths;
+
+        private final String[] links;
+
+        /**
+         * Times the assets were last requested, updated without synchronization: a lost update only delays aging.
+         */
+        private final long[] lastSeen;
+
+        private final String value;
+
+        private PreloadSet(String path, String destination, long now) {
+            this(new String[] { path }, new String[] { toLink(path, destination) }, new long[] { now });
+        }
+
+        private PreloadSet(String[] paths, String[] links, long[] lastSeen) {
+            this.paths = paths;
+            this.links = links;
+            this.lastSeen = lastSeen;
+            StringBuilder value = new StringBuilder(links[0]);
+            for (int i = 1; i < links.length; i++) {
+                value.append(", ").append(links[i]);
+            }
+            this.value = value.toString();
+        }
+
+        private int size() {
+            return paths.length;
+        }
+
+        /**
+         * Records that an asset was requested again.
+         *
+         * @return {@code true} if the asset is in the set
+         */
+        private boolean touch(String path, long now) {
+            for (int i = 0; i < paths.length; i++) {
+                if (paths[i].equals(path)) {
+                    lastSeen[i] = now;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int getEldest() {
+            int eldest = 0;
+            for (int i = 1; i < lastSeen.length; i++) {
+                if (lastSeen[i] < lastSeen[eldest]) {
+                    eldest = i;
+                }
+            }
+            return eldest;
+        }
+
+        private long getLastSeen(int index) {
+            return lastSeen[index];
+        }
+
+        private PreloadSet add(String path, String destination, long now) {
+            String[] newPaths = new String[paths.length + 1];
+            String[] newLinks = new String[links.length + 1];
+            long[] newLastSeen = new long[lastSeen.length + 1];
+            System.arraycopy(paths, 0, newPaths, 0, paths.length);
+            System.arraycopy(links, 0, newLinks, 0, links.length);
+            System.arraycopy(lastSeen, 0, newLastSeen, 0, lastSeen.length);
+            newPaths[paths.length] = path;
+            newLinks[links.length] = toLink(path, destination);
+            newLastSeen[lastSeen.length] = now;
+            return new PreloadSet(newPaths, newLinks, newLastSeen);
+        }
+
+        private PreloadSet replace(int index, String path, String destination, long now) {
+            String[] newPaths = paths.clone();
+            String[] newLinks = links.clone();
+            long[] newLastSeen = lastSeen.clone();
+            newPaths[index] = path;
+            newLinks[index] = toLink(path, destination);
+            newLastSeen[index] = now;
+            return new PreloadSet(newPaths, newLinks, newLastSeen);
+        }
+
+        private static String toLink(String path, String destination) {
+            StringBuilder link = new StringBuilder(path.length() + 48).append('<').append(path)
+                    .append(">; rel=preload; as=").append(destination);
+            if ("font".equals(destination)) {
+                // Fonts are always fetched in CORS mode
+                link.append("; crossorigin");
+            }
+            return link.toString();
+        }
+    }
+}
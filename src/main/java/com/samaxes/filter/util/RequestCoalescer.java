@@ -0,0 +1,155 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Coalesces concurrent identical requests so that only one of them runs the filter chain.
+ * </p>
+ * <p>
+ * Every request joins the in-flight request for its key. The first one to {@link Flight#claim() claim} it runs the
+ * chain and {@link #complete(Flight, CachedResponse) completes} it with the response it produced; the others wait,
+ * for a bounded time, for that response.
+ * </p>
+ *
+ * <pre>
+ * Flight flight = coalescer.join(key);
+ * if (flight.claim()) {
+ *     CachedResponse response = null;
+ *     try {
+ *         response = ...;
+ *     } finally {
+ *         coalescer.complete(flight, response);
+ *     }
+ * } else {
+ *     CachedResponse response = flight.await(timeout);
+ * }
+ * </pre>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+
+    /**
+     * Joins the in-flight request for a key, starting a new one if there is none.
+     *
+     * @param key the request key
+     * @return the in-flight request
+     */
+    public Flight join(String key) {
+        Flight flight = flights.get(key);
+        if (flight == null) {
+            Flight newFlight = new Flight(key);
+            flight = flights.putIfAbsent(key, newFlight);
+            if (flight == null) {
+                flight = newFlight;
+            }
+        }
+        return flight;
+    }
+
+    /**
+     * Completes an in-flight request, releasing the requests waiting for it. Must be called by the request that claimed
+     * it, even when the chain failed.
+     *
+     * @param flight the in-flight request
+     * @param response the response to share, or {@code null} if it cannot be shared
+     */
+    public void complete(Flight flight, CachedResponse response) {
+        flights.remove(flight.key, flight);
+        flight.response = response;
+        flight.done.countDown();
+    }
+
+    /**
+     * Gets the number of requests currently in flight.
+     *
+     * @return the number of in-flight requests
+     */
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * Request being processed on behalf of all the identical concurrent requests.
+     */
+    public static final class Flight {
+
+        private final String key;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private volatile CachedResponse response;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Claims the request. Only the first caller succeeds and must run the filter chain.
+         *
+         * @return {@code true} if the caller must run the filter chain
+         */
+        public boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Waits for the response of the request that claimed this one.
+         *
+         * @param timeout the maximum time to wait, in milliseconds
+         * @return the shared response, or {@code null} if it cannot be shared or the wait timed out
+         */
+        public CachedResponse await(long timeout) {
+            waiters.incrementAndGet();
+            try {
+                if (done.await(timeout, TimeUnit.MILLISECONDS)) {
+                    return response;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        /**
+         * Tells if requests are waiting for the response of the request that claimed this one, so that it is worth
+         * sharing. A request starting to wait afterwards may get no response and run the filter chain itself.
+         *
+         * @return {@code true} if at least one request waits
+         */
+        public boolean hasWaiters() {
+            return waiters.get() > 0;
+        }
+    }
+}
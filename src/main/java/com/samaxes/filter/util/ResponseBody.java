@@ -0,0 +1,74 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Body of a response held by a server side cache.
+ * <p>
+ * Bodies are reference counted: the cache holds one reference while the body is stored, and each reader holds one
+ * while writing it to a client. The storage is reclaimed once every reference is released.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface ResponseBody {
+
+    /**
+     * Gets the body size.
+     *
+     * @return the body size in bytes
+     */
+    int length();
+
+    /**
+     * Gets the storage used by the body, which may be larger than its size.
+     *
+     * @return the storage size in bytes
+     */
+    long getWeight();
+
+    /**
+     * Gets a stream to fill the body. Must be called once, before the body is shared.
+     *
+     * @return the stream to write the body to
+     */
+    OutputStream getOutputStream();
+
+    /**
+     * Writes the body to a stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Acquires a reference to the body.
+     */
+    void retain();
+
+    /**
+     * Releases a reference to the body.
+     */
+    void release();
+}
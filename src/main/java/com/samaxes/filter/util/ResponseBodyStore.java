@@ -0,0 +1,51 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+/**
+ * Storage for the bodies of the responses held by a server side cache.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public interface ResponseBodyStore {
+
+    /**
+     * Gets the maximum storage size.
+     *
+     * @return the capacity in bytes
+     */
+    long getCapacity();
+
+    /**
+     * Gets the storage a body of the given size would use.
+     *
+     * @param length the body size in bytes
+     * @return the storage size in bytes
+     */
+    long weigh(int length);
+
+    /**
+     * Allocates a body.
+     *
+     * @param length the body size in bytes
+     * @return the allocated body, or {@code null} if there is not enough free storage
+     */
+    ResponseBody allocate(int length);
+}
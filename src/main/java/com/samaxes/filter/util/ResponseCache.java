@@ -0,0 +1,483 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>
+ * Server side store of complete responses, bounded by the storage used by the cached bodies.
+ * </p>
+ * <p>
+ * Entries are evicted in approximately least recently used order once the capacity of the {@link ResponseBodyStore}
+ * is exceeded: they are kept in insertion order, and the eldest entries read since they were last passed over by the
+ * eviction are moved to the end instead of being evicted, as in the CLOCK algorithm. Lookups therefore never reorder
+ * the entries and only take the shared read lock of the cache, so that concurrent hits do not wait for each other;
+ * stores, removals and evictions take its write lock. Entries are dropped when they are looked up after they are no
+ * longer usable. Responses returned by {@link #get(String, long)} are retained for the caller, which must
+ * {@link CachedResponse#release() release} them once written.
+ * </p>
+ * <p>
+ * Entries are also indexed by request path, in a sorted map, and by tag, so that purging a path, a path prefix or a tag
+ * only visits the entries it removes.
+ * </p>
+ * <p>
+ * Purges are remembered, so that responses generated before a purge covering them, by requests still in flight when
+ * it happened, are refused when they are stored. The most recent purges of each kind are kept; older ones are folded
+ * into a single time before which every response is refused.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ResponseCache {
+
+    private static final int MAX_PURGES = 1024;
+
+    private final ResponseBodyStore store;
+
+    private final long maxSize;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    private final Lock readLock;
+
+    private final Lock writeLock;
+
+    private final TreeMap<String, Set<String>> pathIndex = new TreeMap<String, Set<String>>();
+
+    private final Map<String, Set<String>> tagIndex = new HashMap<String, Set<String>>();
+
+    private final Map<String, Long> purgedPaths = new LinkedHashMap<String, Long>();
+
+    private final Map<String, Long> purgedPrefixes = new LinkedHashMap<String, Long>();
+
+    private final Map<String, Long> purgedTags = new LinkedHashMap<String, Long>();
+
+    private long purged = Long.MIN_VALUE;
+
+    private long size;
+
+    /**
+     * Constructs a response cache.
+     *
+     * @param store the storage for the response bodies
+     */
+    public ResponseCache(ResponseBodyStore store) {
+        this.store = store;
+        this.maxSize = store.getCapacity();
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    /**
+     * Gets a fresh response and retains it for the caller.
+     *
+     * @param key the cache key
+     * @param now the current time in milliseconds since the epoch
+     * @return the cached response, or {@code null} if there is no fresh response for the key
+     */
+    public CachedResponse get(String key, long now) {
+        return get(key, now, 0L);
+    }
+
+    /**
+     * Gets a fresh response, or a stale one that has not been stale for too long, and retains it for the caller.
+     *
+     * @param key the cache key
+     * @param now the current time in milliseconds since the epoch
+     * @param maxStale the time, in milliseconds, a response can be returned after it becomes stale
+     * @return the cached response, or {@code null} if there is no usable response for the key
+     */
+    public CachedResponse get(String key, long now, long maxStale) {
+        readLock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - maxStale < entry.response.getExpires()) {
+                entry.touch();
+                // Evictions and removals, which release the response, wait for the read lock
+                entry.response.retain();
+                return entry.response;
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        writeLock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && now - maxStale >= entry.response.getExpires()) {
+                remove(key);
+            }
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Allocates a body, evicting the least recently used entries to make room for it.
+     *
+     * @param length the body size in bytes
+     * @return the allocated body, or {@code null} if it cannot fit in the cache
+     */
+    public ResponseBody allocate(int length) {
+        long weight = store.weigh(length);
+        if (weight > maxSize) {
+            return null;
+        }
+        writeLock.lock();
+        try {
+            while (size + weight > maxSize && evictEldest()) {
+                // evict until the body fits
+            }
+            ResponseBody body = store.allocate(length);
+            while (body == null && evictEldest()) {
+                // bodies still being read are not reclaimed yet, evict further
+                body = store.allocate(length);
+            }
+            return body;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stores a response, evicting the least recently used entries if needed, unless it was generated before a purge
+     * covering it. The cache takes over the reference the caller holds on the response, and releases it if it is not
+     * stored.
+     *
+     * @param response the response to store
+     * @return {@code true} if the response was stored
+     */
+    public boolean put(CachedResponse response) {
+        writeLock.lock();
+        try {
+            if (isPurged(response)) {
+                response.release();
+                return false;
+            }
+            remove(response.getKey());
+            long weight = response.getBody().getWeight();
+            while (size + weight > maxSize && evictEldest()) {
+                // evict until the cache fits its capacity, the new response included
+            }
+            entries.put(response.getKey(), new Entry(response));
+            index(response);
+            size += weight;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stores a response unless the cache holds a response generated after it for the same key, or it was generated
+     * before a purge covering it. The cache takes over the reference the caller holds on the response only if it is
+     * stored.
+     *
+     * @param response the response to store
+     * @return {@code true} if the response was stored
+     */
+    public boolean putIfNewer(CachedResponse response) {
+        writeLock.lock();
+        try {
+            Entry existing = entries.get(response.getKey());
+            if (existing != null && existing.response.getCreated() >= response.getCreated() || isPurged(response)) {
+                return false;
+            }
+            return put(response);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a response.
+     *
+     * @param key the cache key
+     * @return {@code true} if there was a response for the key
+     */
+    public boolean remove(String key) {
+        writeLock.lock();
+        try {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                discard(entry.response);
+                return true;
+            }
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the responses generated for a path: every query string and every variant.
+     *
+     * @param path the request URI relative to the context path, without query string
+     * @return the number of removed responses
+     */
+    public int removePath(String path) {
+        writeLock.lock();
+        try {
+            recordPurge(purgedPaths, path);
+            Set<String> keys = pathIndex.get(path);
+            return keys == null ? 0 : removeAll(new ArrayList<String>(keys));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the responses generated for the paths starting with a prefix.
+     *
+     * @param prefix the beginning of the request URIs relative to the context path, e.g. {@code /img/}
+     * @return the number of removed responses
+     */
+    public int removePathPrefix(String prefix) {
+        writeLock.lock();
+        try {
+            recordPurge(purgedPrefixes, prefix);
+            List<String> keys = new ArrayList<String>();
+            for (Map.Entry<String, Set<String>> path : pathIndex.tailMap(prefix).entrySet()) {
+                if (!path.getKey().startsWith(prefix)) {
+                    break;
+                }
+                keys.addAll(path.getValue());
+            }
+            return removeAll(keys);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the responses filed under a tag.
+     *
+     * @param tag the tag
+     * @return the number of removed responses
+     */
+    public int removeTag(String tag) {
+        writeLock.lock();
+        try {
+            recordPurge(purgedTags, tag);
+            Set<String> keys = tagIndex.get(tag);
+            return keys == null ? 0 : removeAll(new ArrayList<String>(keys));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the responses.
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            purged = System.currentTimeMillis();
+            purgedPaths.clear();
+            purgedPrefixes.clear();
+            purgedTags.clear();
+            for (Entry entry : entries.values()) {
+                entry.response.release();
+            }
+            entries.clear();
+            pathIndex.clear();
+            tagIndex.clear();
+            size = 0L;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the storage for the response bodies.
+     *
+     * @return the body store
+     */
+    public ResponseBodyStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the number of cached responses.
+     *
+     * @return the number of entries
+     */
+    public int getCount() {
+        readLock.lock();
+        try {
+            return entries.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the storage used by the cached bodies.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the eldest entry not read since it was last passed over, giving the others a second chance. Ends after a
+     * single turn of the entries, since each turn clears the read marks it passes over.
+     */
+    private boolean evictEldest() {
+        while (!entries.isEmpty()) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            Entry entry = eldest.next();
+            eldest.remove();
+            if (entry.referenced) {
+                entry.referenced = false;
+                entries.put(entry.response.getKey(), entry);
+            } else {
+                discard(entry.response);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void discard(CachedResponse response) {
+        unindex(response);
+        size -= response.getBody().getWeight();
+        response.release();
+    }
+
+    private int removeAll(List<String> keys) {
+        int count = 0;
+        for (String key : keys) {
+            if (remove(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void recordPurge(Map<String, Long> purges, String name) {
+        purges.remove(name);
+        purges.put(name, System.currentTimeMillis());
+        if (purges.size() > MAX_PURGES) {
+            // A forgotten purge refuses every response generated before it instead
+            Iterator<Long> eldest = purges.values().iterator();
+            purged = Math.max(purged, eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Tells if a response was generated before a purge covering it, or in the same millisecond.
+     */
+    private boolean isPurged(CachedResponse response) {
+        long created = response.getCreated();
+        if (created <= purged || isPurgedBefore(purgedPaths.get(response.getPath()), created)) {
+            return true;
+        }
+        for (String tag : response.getTags()) {
+            if (isPurgedBefore(purgedTags.get(tag), created)) {
+                return true;
+            }
+        }
+        for (Map.Entry<String, Long> prefix : purgedPrefixes.entrySet()) {
+            if (created <= prefix.getValue() && response.getPath().startsWith(prefix.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPurgedBefore(Long purgeTime, long created) {
+        return purgeTime != null && created <= purgeTime;
+    }
+
+    private void index(CachedResponse response) {
+        index(pathIndex, response.getPath(), response.getKey());
+        for (String tag : response.getTags()) {
+            index(tagIndex, tag, response.getKey());
+        }
+    }
+
+    private void unindex(CachedResponse response) {
+        unindex(pathIndex, response.getPath(), response.getKey());
+        for (String tag : response.getTags()) {
+            unindex(tagIndex, tag, response.getKey());
+        }
+    }
+
+    private static void index(Map<String, Set<String>> index, String value, String key) {
+        Set<String> keys = index.get(value);
+        if (keys == null) {
+            keys = new HashSet<String>(4);
+            index.put(value, keys);
+        }
+        keys.add(key);
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String value, String key) {
+        Set<String> keys = index.get(value);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(value);
+        }
+    }
+
+    /**
+     * Cached response, marked when it is read.
+     */
+    private static final class Entry {
+
+        private final CachedResponse response;
+
+        private volatile boolean referenced;
+
+        private Entry(CachedResponse response) {
+            this.response = response;
+        }
+
+        private void touch() {
+            // Read before writing, so that hits on a popular entry do not keep invalidating its cache line
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,750 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectName;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * Server side response caching shared by the filters storing complete responses.
+ * </p>
+ * <p>
+ * Successful {@code GET} responses are stored in a {@link ResponseCache} and served directly while they are fresh.
+ * Concurrent requests missing the same key are coalesced by a {@link RequestCoalescer}: only one of them runs the
+ * filter chain while the others wait for the response to be stored. Requests sending credentials, through an
+ * {@code Authorization} header or a {@code Cookie} header the responses are not keyed on, always run the filter chain.
+ * Responses setting cookies, varying on request headers the responses are not keyed on, or whose
+ * {@code Cache-Control} header contains {@code private}, {@code no-cache} or {@code no-store}, are never stored. The
+ * body is captured up to the capacity of the store, and the larger bodies or those that cannot be stored are streamed
+ * to the client instead.
+ * </p>
+ * <p>
+ * With a {@link BackgroundRefresher}, stale responses are served right away, for the {@code stale-while-revalidate}
+ * time of the policy if set, and a single request per key refreshes them. The refresh starts an asynchronous cycle on
+ * that request once the stale response is flushed, and dispatches it again with a detached response capturing the new
+ * response, so that the filter chain runs on a container thread as the Servlet specification requires. The cycle
+ * times out after the coalesce timeout, since it holds the connection of the client. Requests whose filters or
+ * servlet do not support asynchronous processing wait for the filter chain as usual.
+ * </p>
+ * <p>
+ * Stored responses can be purged by path, path prefix or tag through the {@link CachePurger} interface, published as a
+ * servlet context attribute and registered as a JMX MBean by {@link #register(FilterConfig, Filter)}.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ResponseCacheProcessor implements CachePurgerMXBean {
+
+    /**
+     * Stores response bodies on the Java heap.
+     */
+    public static final String HEAP_STORE = "heap";
+
+    /**
+     * Stores response bodies in direct memory, outside of the Java heap.
+     */
+    public static final String OFF_HEAP_STORE = "off-heap";
+
+    /**
+     * Stores responses in segment files on the local disk, kept across restarts.
+     */
+    public static final String DISK_STORE = "disk";
+
+    private static final long DEFAULT_MAX_SIZE = 16L * 1024L * 1024L;
+
+    private static final long DEFAULT_DISK_MAX_SIZE = 256L * 1024L * 1024L;
+
+    private static final long DEFAULT_COALESCE_TIMEOUT = 10000L;
+
+    private static final long DEFAULT_MAX_REFRESHES = 16L;
+
+    /**
+     * Request attribute marking the asynchronous dispatches refreshing a stale response.
+     */
+    private static final String REFRESH_ATTRIBUTE = ResponseCacheProcessor.class.getName() + ".REFRESH";
+
+    private final ResponseCache cache;
+
+    private final DiskResponseBodyStore diskStore;
+
+    private final BufferPool bufferPool;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private final long coalesceTimeout;
+
+    private final BackgroundRefresher refresher;
+
+    private final StripedCounter hits = new StripedCounter();
+
+    private final StripedCounter staleHits = new StripedCounter();
+
+    private final StripedCounter misses = new StripedCounter();
+
+    private ServletContext servletContext;
+
+    private String attributeName;
+
+    private ObjectName objectName;
+
+    private ClusterCachePurger clusterPurger;
+
+    /**
+     * Constructs a response cache processor.
+     *
+     * @param cache the cache storing the responses
+     * @param bufferPool the pool of the buffers capturing the responses to store
+     * @param coalesceTimeout the maximum time, in milliseconds, a request waits for an identical in-flight request
+     * @param refresher the refresher of the stale responses, or {@code null} to never serve stale responses
+     */
+    public ResponseCacheProcessor(ResponseCache cache, BufferPool bufferPool, long coalesceTimeout,
+            BackgroundRefresher refresher) {
+        this.cache = cache;
+        this.diskStore = cache.getStore() instanceof DiskResponseBodyStore ? (DiskResponseBodyStore) cache
+                .getStore() : null;
+        this.bufferPool = bufferPool;
+        this.coalesceTimeout = coalesceTimeout;
+        this.refresher = refresher;
+    }
+
+    /**
+     * Creates a response cache processor from the {@code store}, {@code max-size}, {@code store-directory},
+     * {@code segment-size}, {@code coalesce-timeout}, {@code background-refresh}, {@code max-refreshes},
+     * {@code buffer-pool} and {@code buffer-pool-size} initialization parameters of a filter. The responses left by a
+     * previous run in a {@code disk} store are recovered in the background.
+     *
+     * @param filterConfig the filter configuration
+     * @param defaultStore the store to use when the {@code store} parameter is not set, or {@code null} to disable
+     *        server side caching in that case
+     * @return the response cache processor, or {@code null} if server side caching is disabled
+     * @throws ServletException if a parameter is invalid
+     */
+    public static ResponseCacheProcessor configure(FilterConfig filterConfig, String defaultStore)
+            throws ServletException {
+        String storeName = CacheConfigParameter.STORE.getValue(filterConfig);
+        if (storeName == null) {
+            storeName = defaultStore;
+        }
+        if (storeName == null) {
+            return null;
+        }
+
+        long maxSize = CacheConfigParameter.MAX_SIZE.getLongValue(filterConfig,
+                DISK_STORE.equals(storeName) ? DEFAULT_DISK_MAX_SIZE : DEFAULT_MAX_SIZE);
+        ResponseBodyStore store;
+        if (HEAP_STORE.equals(storeName)) {
+            store = new HeapResponseBodyStore(maxSize);
+        } else if (OFF_HEAP_STORE.equals(storeName)) {
+            store = new OffHeapResponseBodyStore(maxSize);
+        } else if (DISK_STORE.equals(storeName)) {
+            store = DiskResponseBodyStore.configure(filterConfig, maxSize);
+        } else {
+            throw CacheConfigParameter.STORE.invalid(filterConfig);
+        }
+
+        boolean configured = false;
+        try {
+            BackgroundRefresher refresher = null;
+            if (CacheConfigParameter.BACKGROUND_REFRESH.getBooleanValue(filterConfig)) {
+                long maxRefreshes = CacheConfigParameter.MAX_REFRESHES.getLongValue(filterConfig,
+                        DEFAULT_MAX_REFRESHES);
+                if (maxRefreshes < 1L || maxRefreshes > Integer.MAX_VALUE) {
+                    throw CacheConfigParameter.MAX_REFRESHES.invalid(filterConfig);
+                }
+                refresher = new BackgroundRefresher((int) maxRefreshes);
+            }
+
+            ResponseCacheProcessor processor = new ResponseCacheProcessor(new ResponseCache(store),
+                    BufferPool.configure(filterConfig), CacheConfigParameter.COALESCE_TIMEOUT.getLongValue(
+                            filterConfig, DEFAULT_COALESCE_TIMEOUT), refresher);
+            if (store instanceof DiskResponseBodyStore) {
+                ((DiskResponseBodyStore) store).recover(processor.getCache());
+            }
+            configured = true;
+            return processor;
+        } finally {
+            if (!configured && store instanceof DiskResponseBodyStore) {
+                // Releases the directory lock and stops the background thread for the next deployment
+                ((DiskResponseBodyStore) store).close();
+            }
+        }
+    }
+
+    /**
+     * Publishes the cache as the {@link CachePurger} of a filter, as a servlet context attribute and a JMX MBean. When
+     * the filter sets the {@code invalidation} parameter, the published purger is a {@link ClusterCachePurger}
+     * broadcasting the purges to the other nodes of its group.
+     *
+     * @param filterConfig the filter configuration
+     * @param filter the filter
+     * @throws ServletException if the MBean cannot be registered, or the invalidation parameters are invalid
+     */
+    public void register(FilterConfig filterConfig, Filter filter) throws ServletException {
+        clusterPurger = ClusterCachePurger.configure(filterConfig, this);
+        CachePurger purger = clusterPurger == null ? this : clusterPurger;
+        try {
+            objectName = FilterMBeans.register(purger, filterConfig, filter, "cache");
+        } catch (ServletException e) {
+            if (clusterPurger != null) {
+                clusterPurger.stop();
+                clusterPurger = null;
+            }
+            throw e;
+        }
+        servletContext = filterConfig.getServletContext();
+        if (servletContext != null) {
+            attributeName = CachePurger.ATTRIBUTE_PREFIX + filterConfig.getFilterName();
+            servletContext.setAttribute(attributeName, purger);
+        }
+    }
+
+    /**
+     * Tells whether a request is the asynchronous dispatch refreshing a stale response, which filters must pass
+     * through unchanged.
+     *
+     * @param request the request
+     * @return {@code true} if the request refreshes a stale response
+     */
+    public static boolean isRefresh(HttpServletRequest request) {
+        return request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(REFRESH_ATTRIBUTE) != null;
+    }
+
+    /**
+     * Gets the cache storing the responses.
+     *
+     * @return the response cache
+     */
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the pool of the buffers capturing the responses to store.
+     *
+     * @return the buffer pool
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Gets the refresher of the stale responses.
+     *
+     * @return the background refresher, or {@code null} if stale responses are never served
+     */
+    public BackgroundRefresher getRefresher() {
+        return refresher;
+    }
+
+    /**
+     * Gets the number of requests served from the cache, including the stale responses.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of stale responses served while they were refreshed.
+     *
+     * @return the stale hit count
+     */
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    /**
+     * Gets the number of requests that ran the filter chain because the cache had no usable response.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Serves a fresh response from the cache, or runs the filter chain and stores its response. Stale responses are
+     * served while they are refreshed in the background, if enabled.
+     *
+     * @param request the request
+     * @param response the response
+     * @param filterChain the filter chain
+     * @param policy the cache policy of the request, giving the response freshness and the request headers it varies
+     *        on
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if the filter chain fails
+     */
+    public void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+            CachePolicy policy) throws IOException, ServletException {
+        String key = isPublic(request, policy) ? policy.getKeyGenerator().generate(request) : null;
+        if (key == null || isRefresh(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (request.getDispatcherType() == DispatcherType.ASYNC && AsyncRequestWrapper.isWrappedBy(request, this)) {
+            // The response is stored by the wrapper of the initial request
+            filterChain.doFilter(request, response);
+            AsyncRequestWrapper.completeDispatch(request);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedResponse staleResponse = cache.get(key, now, getMaxStale(request, policy));
+        if (staleResponse != null) {
+            boolean fresh = staleResponse.isFresh(now);
+            try {
+                staleResponse.writeTo(response, now);
+            } finally {
+                staleResponse.release();
+            }
+            hits.increment();
+            if (!fresh) {
+                staleHits.increment();
+                refresh(key, request, response, policy);
+            }
+            return;
+        }
+
+        RequestCoalescer.Flight flight = coalescer.join(key);
+        if (!flight.claim()) {
+            if (flight.await(coalesceTimeout) == null || !serve(key, response)) {
+                misses.increment();
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        StoreTask storeTask = null;
+        boolean async = false;
+        try {
+            // Stored by a request that completed just before this one joined
+            if (serve(key, response)) {
+                return;
+            }
+
+            misses.increment();
+            BufferedResponseWrapper responseWrapper = new StoreResponseWrapper(response, policy);
+            storeTask = new StoreTask(key, getPath(request), flight, response, responseWrapper, policy);
+            HttpServletRequest requestWrapper = AsyncRequestWrapper.wrap(request, responseWrapper, storeTask, this);
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            if (requestWrapper.isAsyncStarted()) {
+                // The waiting requests are released on completion, even if the response is never completed normally
+                try {
+                    requestWrapper.getAsyncContext().addListener(storeTask);
+                    async = true;
+                } catch (IllegalStateException e) {
+                    // Already completed
+                }
+            }
+            AsyncRequestWrapper.completeAfterChain(requestWrapper, storeTask);
+        } finally {
+            if (storeTask == null) {
+                coalescer.complete(flight, null);
+            } else if (!async) {
+                storeTask.finish(null);
+            }
+        }
+    }
+
+    @Override
+    public int purgePath(String path) {
+        awaitRecovery();
+        return cache.removePath(path);
+    }
+
+    @Override
+    public int purgePathPrefix(String prefix) {
+        awaitRecovery();
+        return cache.removePathPrefix(prefix);
+    }
+
+    @Override
+    public int purgeTag(String tag) {
+        awaitRecovery();
+        return cache.removeTag(tag);
+    }
+
+    @Override
+    public void purgeAll() {
+        awaitRecovery();
+        cache.clear();
+    }
+
+    /**
+     * Removes all the stored responses, keeping those of a {@code disk} store for the next run, and withdraws the
+     * published {@link CachePurger}.
+     */
+    public void destroy() {
+        FilterMBeans.unregister(objectName);
+        objectName = null;
+        if (clusterPurger != null) {
+            clusterPurger.stop();
+            clusterPurger = null;
+        }
+        if (attributeName != null) {
+            servletContext.removeAttribute(attributeName);
+            attributeName = null;
+        }
+        if (diskStore != null) {
+            // The stored responses stay on disk for the next run
+            diskStore.close();
+        }
+        cache.clear();
+        bufferPool.clear();
+    }
+
+    private long getMaxStale(HttpServletRequest request, CachePolicy policy) {
+        if (refresher == null || !request.isAsyncSupported()) {
+            return 0L;
+        }
+        return policy.getStaleWhileRevalidate() < 0L ? Long.MAX_VALUE : policy.getStaleWhileRevalidate() * 1000L;
+    }
+
+    private void refresh(String key, HttpServletRequest request, HttpServletResponse response, CachePolicy policy)
+            throws IOException {
+        RequestCoalescer.Flight flight = coalescer.join(key);
+        if (!flight.claim()) {
+            // Already refreshed by another request
+            return;
+        }
+        if (!refresher.acquire()) {
+            coalescer.complete(flight, null);
+            return;
+        }
+
+        // The client gets the stale response before the refresh starts
+        response.flushBuffer();
+        BufferedResponseWrapper responseWrapper = new BufferedResponseWrapper(response, bufferPool, null, true,
+                getCaptureLimit());
+        RefreshListener refreshListener = new RefreshListener(key, request, flight, responseWrapper, policy);
+        try {
+            request.setAttribute(REFRESH_ATTRIBUTE, Boolean.TRUE);
+            AsyncContext asyncContext = request.startAsync(request, responseWrapper);
+            // The client connection is held until the refresh completes, a hung backend must not keep it
+            asyncContext.setTimeout(coalesceTimeout > 0L ? coalesceTimeout : DEFAULT_COALESCE_TIMEOUT);
+            asyncContext.addListener(refreshListener);
+            asyncContext.dispatch();
+        } catch (IllegalStateException e) {
+            request.removeAttribute(REFRESH_ATTRIBUTE);
+            refreshListener.finish(null);
+        }
+    }
+
+    private boolean serve(String key, HttpServletResponse response) throws IOException {
+        long now = System.currentTimeMillis();
+        CachedResponse cachedResponse = cache.get(key, now);
+        if (cachedResponse == null) {
+            return false;
+        }
+        try {
+            cachedResponse.writeTo(response, now);
+        } finally {
+            cachedResponse.release();
+        }
+        hits.increment();
+        return true;
+    }
+
+    private int getCaptureLimit() {
+        return (int) Math.min(cache.getStore().getCapacity(), Integer.MAX_VALUE);
+    }
+
+    private static boolean isPublic(HttpServletRequest request, CachePolicy policy) {
+        return "GET".equals(request.getMethod()) && request.getHeader(HTTPCacheHeader.AUTHORIZATION.getName()) == null
+                && (request.getHeader(HTTPCacheHeader.COOKIE.getName()) == null
+                        || policy.getKeyGenerator().isKeyedOn(HTTPCacheHeader.COOKIE.getName()));
+    }
+
+    private static String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Gets the tags listed in the {@code Surrogate-Key} and {@code Cache-Tag} headers of a response.
+     */
+    private static String[] getTags(String[] headers) {
+        List<String> tags = new ArrayList<String>();
+        for (int i = 0; i < headers.length; i += 2) {
+            if (HTTPCacheHeader.SURROGATE_KEY.getName().equalsIgnoreCase(headers[i])
+                    || HTTPCacheHeader.CACHE_TAG.getName().equalsIgnoreCase(headers[i])) {
+                for (String tag : headers[i + 1].split("[\\s,]+")) {
+                    if (!tag.isEmpty() && !tags.contains(tag)) {
+                        tags.add(tag);
+                    }
+                }
+            }
+        }
+        return tags.toArray(new String[tags.size()]);
+    }
+
+    private CachedResponse store(String key, String path, BufferedResponseWrapper responseWrapper, long created,
+            long expires) throws IOException {
+        ResponseBody body = cache.allocate(responseWrapper.getBodySize());
+        if (body == null) {
+            return null;
+        }
+        responseWrapper.writeBodyTo(body.getOutputStream());
+
+        String[] headers = responseWrapper.getRecordedHeaders();
+        CachedResponse cachedResponse = new CachedResponse(key, path, getTags(headers), responseWrapper.getStatus(),
+                responseWrapper.getContentType(), headers, body, created, expires);
+        if (diskStore != null) {
+            diskStore.persist(cachedResponse);
+        }
+        if (!cache.put(cachedResponse)) {
+            // Purged while it was generated
+            return null;
+        }
+        return cachedResponse;
+    }
+
+    private void awaitRecovery() {
+        if (diskStore != null) {
+            diskStore.awaitRecovery();
+        }
+    }
+
+    private static boolean isCacheable(BufferedResponseWrapper responseWrapper, CachePolicy policy) {
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK
+                || responseWrapper.containsHeader(HTTPCacheHeader.SET_COOKIE.getName())) {
+            return false;
+        }
+        String cacheControl = responseWrapper.getRecordedHeader(HTTPCacheHeader.CACHE_CONTROL.getName());
+        if (cacheControl != null
+                && (cacheControl.contains("private") || cacheControl.contains("no-cache") || cacheControl
+                        .contains("no-store"))) {
+            return false;
+        }
+        // A response varying on a header missing from the key would be served to every client
+        String[] headers = responseWrapper.getRecordedHeaders();
+        for (int i = 0; i < headers.length; i += 2) {
+            if (HTTPCacheHeader.VARY.getName().equalsIgnoreCase(headers[i])) {
+                for (String header : headers[i + 1].split(",")) {
+                    String name = header.trim();
+                    if (!name.isEmpty() && ("*".equals(name) || !policy.getKeyGenerator().isKeyedOn(name))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends and stores the response of a request missing the cache once it is complete, which is after the filter chain
+     * returns if the request is processed asynchronously, then releases the requests waiting for it.
+     */
+    private final class StoreTask implements AsyncRequestWrapper.Completion, AsyncListener {
+
+        private final String key;
+
+        private final String path;
+
+        private final RequestCoalescer.Flight flight;
+
+        private final HttpServletResponse response;
+
+        private final BufferedResponseWrapper responseWrapper;
+
+        private final CachePolicy policy;
+
+        private final long created = System.currentTimeMillis();
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        StoreTask(String key, String path, RequestCoalescer.Flight flight, HttpServletResponse response,
+                BufferedResponseWrapper responseWrapper, CachePolicy policy) {
+            this.key = key;
+            this.path = path;
+            this.flight = flight;
+            this.response = response;
+            this.responseWrapper = responseWrapper;
+            this.policy = policy;
+        }
+
+        @Override
+        public void complete() throws IOException {
+            CachedResponse cachedResponse = null;
+            try {
+                if (responseWrapper.isBypassed()) {
+                    return;
+                }
+                if (!responseWrapper.isCaptured()) {
+                    // Already streamed to the client
+                    responseWrapper.flushBuffer();
+                    return;
+                }
+                if (isCacheable(responseWrapper, policy)) {
+                    cachedResponse = store(key, path, responseWrapper, created, created + policy.getExpiration()
+                            * 1000L);
+                }
+                response.setContentLength(responseWrapper.getBodySize());
+                responseWrapper.writeBodyTo(response.getOutputStream());
+            } finally {
+                responseWrapper.release();
+                finish(cachedResponse);
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Completed by the container or another listener
+        }
+
+        void finish(CachedResponse cachedResponse) {
+            if (finished.compareAndSet(false, true)) {
+                coalescer.complete(flight, cachedResponse);
+            }
+        }
+    }
+
+    /**
+     * Stores the response of an asynchronous dispatch refreshing a stale response, once the dispatch completes.
+     */
+    private final class RefreshListener implements AsyncListener {
+
+        private final String key;
+
+        private final HttpServletRequest request;
+
+        private final String path;
+
+        private final RequestCoalescer.Flight flight;
+
+        private final BufferedResponseWrapper responseWrapper;
+
+        private final CachePolicy policy;
+
+        private final long created = System.currentTimeMillis();
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private volatile boolean failed;
+
+        RefreshListener(String key, HttpServletRequest request, RequestCoalescer.Flight flight,
+                BufferedResponseWrapper responseWrapper, CachePolicy policy) {
+            this.key = key;
+            this.request = request;
+            this.path = getPath(request);
+            this.flight = flight;
+            this.responseWrapper = responseWrapper;
+            this.policy = policy;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The refreshed resource is itself processed asynchronously
+            event.getAsyncContext().addListener(this);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            CachedResponse cachedResponse = null;
+            try {
+                if (!failed && !responseWrapper.isBypassed() && responseWrapper.isCaptured()
+                        && isCacheable(responseWrapper, policy)) {
+                    cachedResponse = store(key, path, responseWrapper, created, created + policy.getExpiration()
+                            * 1000L);
+                }
+            } finally {
+                responseWrapper.release();
+                finish(cachedResponse);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+            complete();
+        }
+
+        /**
+         * Completes the asynchronous cycle through the context of the request wrappers, rather than the one of the
+         * container, so that the completions of the filters run too, see {@link AsyncRequestWrapper}.
+         */
+        private void complete() {
+            request.getAsyncContext().complete();
+        }
+
+        void finish(CachedResponse cachedResponse) {
+            if (finished.compareAndSet(false, true)) {
+                coalescer.complete(flight, cachedResponse);
+                refresher.release(cachedResponse != null);
+            }
+        }
+    }
+
+    /**
+     * Response wrapper capturing the body of a response to store, up to the capacity of the store, and streaming it to
+     * the client as soon as the response turns out not to be cacheable.
+     */
+    private final class StoreResponseWrapper extends BufferedResponseWrapper {
+
+        private final CachePolicy policy;
+
+        StoreResponseWrapper(HttpServletResponse response, CachePolicy policy) {
+            super(response, bufferPool, null, false, getCaptureLimit());
+            this.policy = policy;
+        }
+
+        @Override
+        protected boolean isCapturing() {
+            return isCacheable(this, policy);
+        }
+    }
+}
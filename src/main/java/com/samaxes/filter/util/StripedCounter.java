@@ -0,0 +1,100 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Counter updated concurrently without contention, for the statistics incremented on every request.
+ * </p>
+ * <p>
+ * The count is spread over cells selected by thread, each on its own cache line, so that threads running on different
+ * processors do not update the same memory. Reading the count sums the cells, and is only as consistent as the updates
+ * racing with it.
+ * </p>
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StripedCounter {
+
+    /**
+     * Distance, in longs, between two cells: a 64 bytes cache line.
+     */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    private static int stripes() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors * 2 && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int cell() {
+        long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 16)) & (STRIPES - 1)) * PADDING;
+    }
+
+    /**
+     * Increments the count.
+     *
+     * @return the new count of the cell of the current thread, spreading the updates of each thread over time
+     */
+    public long increment() {
+        return cells.incrementAndGet(cell());
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param delta the value to add
+     */
+    public void add(long delta) {
+        cells.addAndGet(cell(), delta);
+    }
+
+    /**
+     * Gets the count.
+     *
+     * @return the sum of the cells
+     */
+    public long get() {
+        long sum = 0L;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the count to zero. Concurrent updates may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0L);
+        }
+    }
+}
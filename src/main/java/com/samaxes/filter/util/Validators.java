@@ -0,0 +1,103 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Evaluation of the validators of conditional requests.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public final class Validators {
+
+    private Validators() {
+    }
+
+    /**
+     * Tells if a conditional {@code GET} request can be answered with {@code 304 Not Modified}: its
+     * {@code If-None-Match} header matches the current entity tag or, without {@code If-None-Match}, its
+     * {@code If-Modified-Since} date is not older than the last modification date.
+     *
+     * @param request the request
+     * @param eTag the current entity tag
+     * @param lastModified the last modification date in milliseconds since the epoch, or {@code -1} if unknown
+     * @return {@code true} if the client copy is still valid
+     */
+    public static boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HTTPCacheHeader.IF_NONE_MATCH.getName());
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, eTag);
+        }
+
+        if (lastModified < 0) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HTTPCacheHeader.IF_MODIFIED_SINCE.getName());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have a one second resolution
+        return ifModifiedSince >= 0 && ifModifiedSince >= lastModified - lastModified % 1000L;
+    }
+
+    /**
+     * Weak comparison of the {@code If-None-Match} entity tags against the current one, as required for {@code GET}
+     * requests.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header value
+     * @param eTag the current entity tag
+     * @return {@code true} if one of the entity tags, or {@code *}, matches
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        int opaqueStart = eTag.startsWith("W/") ? 2 : 0;
+        int opaqueLength = eTag.length() - opaqueStart;
+        int length = ifNoneMatch.length();
+        int start = 0;
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int tokenStart = start;
+            int tokenEnd = end;
+            while (tokenStart < tokenEnd && ifNoneMatch.charAt(tokenStart) == ' ') {
+                tokenStart++;
+            }
+            while (tokenEnd > tokenStart && ifNoneMatch.charAt(tokenEnd - 1) == ' ') {
+                tokenEnd--;
+            }
+            if (tokenEnd - tokenStart == 1 && ifNoneMatch.charAt(tokenStart) == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith("W/", tokenStart)) {
+                tokenStart += 2;
+            }
+            if (tokenEnd - tokenStart == opaqueLength
+                    && ifNoneMatch.regionMatches(tokenStart, eTag, opaqueStart, opaqueLength)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+}
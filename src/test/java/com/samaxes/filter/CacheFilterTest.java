@@ -0,0 +1,139 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.samaxes.filter.util.HTTPDateFormat;
+
+/**
+ * Checks that the headers set by {@link CacheFilter} are byte for byte those of version 2.3.1, which built them on
+ * every request.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CacheFilterTest {
+
+    private static final FilterChain PRAGMA_CHAIN = new FilterChain() {
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            httpServletResponse.setHeader("Pragma", "No-cache");
+            httpServletResponse.addHeader("pragma", "no-cache");
+            httpServletResponse.setHeader("X-Content", "body");
+        }
+    };
+
+    private final CacheFilter filter = new CacheFilter();
+
+    @After
+    public void tearDown() {
+        filter.destroy();
+    }
+
+    @Test
+    public void publicHeaders() throws Exception {
+        filter.init(new MockFilterConfig("cache").param("expiration", "3600").param("vary", "Accept-Encoding"));
+
+        long before = System.currentTimeMillis();
+        MockHttpServletResponse response = doFilter();
+        long after = System.currentTimeMillis();
+
+        String expires = response.getHeader("Expires");
+        assertEquals("Cache-Control: public, max-age=3600\r\nExpires: " + expires
+                + "\r\nVary: Accept-Encoding\r\nX-Content: body\r\n", response.getHeaderLines());
+        assertExpires(expires, before, after, 3600L);
+    }
+
+    @Test
+    public void privateHeaders() throws Exception {
+        filter.init(new MockFilterConfig("cache").param("expiration", "60").param("private", "true")
+                .param("must-revalidate", "true"));
+
+        long before = System.currentTimeMillis();
+        MockHttpServletResponse response = doFilter();
+        long after = System.currentTimeMillis();
+
+        String expires = response.getHeader("Expires");
+        assertEquals("Cache-Control: private, max-age=60, must-revalidate\r\nExpires: " + expires
+                + "\r\nX-Content: body\r\n", response.getHeaderLines());
+        assertExpires(expires, before, after, 60L);
+        assertNull(response.getHeader("Vary"));
+    }
+
+    @Test
+    public void headerValuesAreReused() throws Exception {
+        filter.init(new MockFilterConfig("cache").param("expiration", "600"));
+
+        String first = doFilter().getHeader("Cache-Control");
+        String second = doFilter().getHeader("Cache-Control");
+        assertEquals("public, max-age=600", first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void fingerprintsOnlyOverrideTheDefaultPolicy() throws Exception {
+        filter.init(new MockFilterConfig("cache").param("expiration", "600").param("fingerprint", "true")
+                .param("rules", "/api/*  expiration=0; private=true"));
+
+        assertEquals("public, max-age=31536000, immutable",
+                doFilter("/css/style.3f9a2c.css").getHeader("Cache-Control"));
+        assertEquals("public, max-age=600", doFilter("/fonts/3f9a2c").getHeader("Cache-Control"));
+        assertEquals("private, max-age=0", doFilter("/api/style.3f9a2c.css").getHeader("Cache-Control"));
+        assertEquals("private, max-age=0",
+                doFilter("/api/users/507f1f77bcf86cd799439011").getHeader("Cache-Control"));
+    }
+
+    private MockHttpServletResponse doFilter() throws Exception {
+        return doFilter("/css/style.css");
+    }
+
+    private MockHttpServletResponse doFilter(String requestURI) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", requestURI).proxy(), response.proxy(), PRAGMA_CHAIN);
+        return response;
+    }
+
+    /**
+     * The {@code Expires} value must be the one {@code setDateHeader} produced for a time within the request.
+     */
+    private static void assertExpires(String expires, long before, long after, long expiration) {
+        boolean found = false;
+        for (long second = before / 1000L; second <= after / 1000L; second++) {
+            found |= HTTPDateFormat.format(second * 1000L + expiration * 1000L).equals(expires);
+        }
+        assertTrue(expires, found);
+    }
+}
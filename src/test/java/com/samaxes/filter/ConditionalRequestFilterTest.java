@@ -0,0 +1,93 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the {@code 304 Not Modified} answers of {@link ConditionalRequestFilter} to {@code If-Modified-Since}
+ * requests.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ConditionalRequestFilterTest {
+
+    private static final String LAST_MODIFIED = "Thu, 01 Jan 2015 00:00:00 GMT";
+
+    /**
+     * Sets {@code Last-Modified} as a string, as most containers and frameworks do.
+     */
+    private static final FilterChain RESOURCE = new FilterChain() {
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            httpServletResponse.setContentType("text/css");
+            httpServletResponse.setHeader("Last-Modified", LAST_MODIFIED);
+            httpServletResponse.getOutputStream().write("body { }".getBytes("ISO-8859-1"));
+        }
+    };
+
+    private final ConditionalRequestFilter filter = new ConditionalRequestFilter();
+
+    @Before
+    public void setUp() throws ServletException {
+        filter.init(new MockFilterConfig("conditional"));
+    }
+
+    @After
+    public void tearDown() {
+        filter.destroy();
+    }
+
+    @Test
+    public void notModifiedSinceStringLastModified() throws Exception {
+        MockHttpServletResponse response = doFilter(LAST_MODIFIED);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals(0, response.getBody().length);
+    }
+
+    @Test
+    public void modifiedSinceStringLastModified() throws Exception {
+        MockHttpServletResponse response = doFilter("Wed, 31 Dec 2014 23:59:59 GMT");
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("body { }", new String(response.getBody(), "ISO-8859-1"));
+        assertEquals(LAST_MODIFIED, response.getHeader("Last-Modified"));
+    }
+
+    private MockHttpServletResponse doFilter(String ifModifiedSince) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/style.css").header("If-Modified-Since", ifModifiedSince)
+                .proxy(), response.proxy(), RESOURCE);
+        return response;
+    }
+}
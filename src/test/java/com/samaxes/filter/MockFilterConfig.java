@@ -0,0 +1,112 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+
+/**
+ * Filter configuration holding its initialization parameters in memory, with a servlet context keeping its attributes.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class MockFilterConfig implements FilterConfig {
+
+    private final String filterName;
+
+    private final Map<String, String> parameters = new HashMap<String, String>();
+
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    private final ServletContext servletContext;
+
+    /**
+     * Constructs a filter configuration without parameters.
+     *
+     * @param filterName the filter name
+     */
+    public MockFilterConfig(String filterName) {
+        this.filterName = filterName;
+        this.servletContext = (ServletContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ServletContext.class }, new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if ("getAttribute".equals(name)) {
+                            return attributes.get(args[0]);
+                        } else if ("setAttribute".equals(name)) {
+                            attributes.put((String) args[0], args[1]);
+                        } else if ("removeAttribute".equals(name)) {
+                            attributes.remove(args[0]);
+                        } else if ("getContextPath".equals(name)) {
+                            return "";
+                        } else if ("getServerInfo".equals(name)) {
+                            return "mock";
+                        } else if ("hashCode".equals(name)) {
+                            return System.identityHashCode(proxy);
+                        } else if ("equals".equals(name)) {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Sets an initialization parameter.
+     *
+     * @param name the parameter name
+     * @param value the parameter value
+     * @return this filter configuration
+     */
+    public MockFilterConfig param(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    @Override
+    public String getFilterName() {
+        return filterName;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+}
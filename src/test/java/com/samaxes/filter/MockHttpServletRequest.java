@@ -0,0 +1,146 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Synchronous HTTP request held in memory. Methods not used by the filters throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class MockHttpServletRequest implements InvocationHandler {
+
+    private final String method;
+
+    private final String requestURI;
+
+    private final List<String[]> headers = new ArrayList<String[]>();
+
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    /**
+     * Constructs a request.
+     *
+     * @param method the request method
+     * @param requestURI the request URI, the context path being empty
+     */
+    public MockHttpServletRequest(String method, String requestURI) {
+        this.method = method;
+        this.requestURI = requestURI;
+    }
+
+    /**
+     * Adds a request header.
+     *
+     * @param name the header name
+     * @param value the header value
+     * @return this request
+     */
+    public MockHttpServletRequest header(String name, String value) {
+        headers.add(new String[] { name, value });
+        return this;
+    }
+
+    /**
+     * Gets the request as a {@link HttpServletRequest}.
+     *
+     * @return the request
+     */
+    public HttpServletRequest proxy() {
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] args) {
+        String name = m.getName();
+        if ("getMethod".equals(name)) {
+            return method;
+        } else if ("getRequestURI".equals(name) || "getServletPath".equals(name)) {
+            return requestURI;
+        } else if ("getContextPath".equals(name)) {
+            return "";
+        } else if ("getQueryString".equals(name) || "getPathInfo".equals(name)) {
+            return null;
+        } else if ("getServerName".equals(name)) {
+            return "localhost";
+        } else if ("getHeader".equals(name)) {
+            List<String> values = getHeaders((String) args[0]);
+            return values.isEmpty() ? null : values.get(0);
+        } else if ("getHeaders".equals(name)) {
+            return Collections.enumeration(getHeaders((String) args[0]));
+        } else if ("getDateHeader".equals(name)) {
+            List<String> values = getHeaders((String) args[0]);
+            return values.isEmpty() ? -1L : parseDate(values.get(0));
+        } else if ("getAttribute".equals(name)) {
+            return attributes.get(args[0]);
+        } else if ("setAttribute".equals(name)) {
+            attributes.put((String) args[0], args[1]);
+            return null;
+        } else if ("removeAttribute".equals(name)) {
+            attributes.remove(args[0]);
+            return null;
+        } else if ("getDispatcherType".equals(name)) {
+            return DispatcherType.REQUEST;
+        } else if ("isAsyncSupported".equals(name) || "isAsyncStarted".equals(name)) {
+            return false;
+        } else if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        } else if ("equals".equals(name)) {
+            return proxy == args[0];
+        } else if ("toString".equals(name)) {
+            return method + " " + requestURI;
+        }
+        throw new UnsupportedOperationException(name);
+    }
+
+    private static long parseDate(String value) {
+        try {
+            return new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US).parse(value).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(value);
+        }
+    }
+
+    private List<String> getHeaders(String name) {
+        List<String> values = new ArrayList<String>();
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                values.add(header[1]);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import com.samaxes.filter.util.HTTPDateFormat;
+
+/**
+ * HTTP response recording its status, headers, in the order they are set, and body. Methods not used by the filters
+ * throw {@link UnsupportedOperationException}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class MockHttpServletResponse implements InvocationHandler {
+
+    private final List<String[]> headers = new ArrayList<String[]>();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private int status = HttpServletResponse.SC_OK;
+
+    private String contentType;
+
+    private PrintWriter writer;
+
+    private boolean committed;
+
+    /**
+     * Gets the response as a {@link HttpServletResponse}.
+     *
+     * @return the response
+     */
+    public HttpServletResponse proxy() {
+        return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, this);
+    }
+
+    /**
+     * Gets the response status.
+     *
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the first value of a header.
+     *
+     * @param name the header name
+     * @return the header value, or {@code null}
+     */
+    public String getHeader(String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the headers, as consecutive {@code name: value} lines in the order they were first set.
+     *
+     * @return the headers
+     */
+    public String getHeaderLines() {
+        StringBuilder lines = new StringBuilder();
+        for (String[] header : headers) {
+            lines.append(header[0]).append(": ").append(header[1]).append("\r\n");
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Gets the response body.
+     *
+     * @return the body bytes
+     */
+    public byte[] getBody() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return body.toByteArray();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] args) throws UnsupportedEncodingException {
+        String name = m.getName();
+        if ("setStatus".equals(name) || "sendError".equals(name)) {
+            status = (Integer) args[0];
+            committed |= "sendError".equals(name);
+        } else if ("getStatus".equals(name)) {
+            return status;
+        } else if ("setHeader".equals(name) || "setIntHeader".equals(name) || "setDateHeader".equals(name)) {
+            setHeader((String) args[0], toString(args[1]));
+        } else if ("addHeader".equals(name) || "addIntHeader".equals(name) || "addDateHeader".equals(name)) {
+            headers.add(new String[] { (String) args[0], toString(args[1]) });
+        } else if ("getHeader".equals(name)) {
+            return getHeader((String) args[0]);
+        } else if ("containsHeader".equals(name)) {
+            return getHeader((String) args[0]) != null;
+        } else if ("setContentType".equals(name)) {
+            contentType = (String) args[0];
+        } else if ("getContentType".equals(name)) {
+            return contentType;
+        } else if ("getCharacterEncoding".equals(name)) {
+            return "ISO-8859-1";
+        } else if ("getOutputStream".equals(name)) {
+            return new ServletOutputStream() {
+
+                @Override
+                public void write(int b) {
+                    committed = true;
+                    body.write(b);
+                }
+            };
+        } else if ("getWriter".equals(name)) {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(body, "ISO-8859-1"));
+            }
+            committed = true;
+            return writer;
+        } else if ("isCommitted".equals(name)) {
+            return committed;
+        } else if ("flushBuffer".equals(name)) {
+            committed = true;
+        } else if ("resetBuffer".equals(name)) {
+            body.reset();
+        } else if ("getBufferSize".equals(name)) {
+            return 8192;
+        } else if ("getLocale".equals(name)) {
+            return Locale.US;
+        } else if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        } else if ("equals".equals(name)) {
+            return proxy == args[0];
+        } else if ("toString".equals(name)) {
+            return "Response " + status;
+        } else if (!"setContentLength".equals(name) && !"setCharacterEncoding".equals(name)
+                && !"setBufferSize".equals(name) && !"setLocale".equals(name)) {
+            throw new UnsupportedOperationException(name);
+        }
+        return null;
+    }
+
+    private void setHeader(String name, String value) {
+        boolean set = false;
+        for (Iterator<String[]> iterator = headers.iterator(); iterator.hasNext();) {
+            String[] header = iterator.next();
+            if (!header[0].equalsIgnoreCase(name)) {
+                continue;
+            }
+            if (set) {
+                iterator.remove();
+            } else {
+                header[1] = value;
+                set = true;
+            }
+        }
+        if (!set) {
+            headers.add(new String[] { name, value });
+        }
+    }
+
+    private static String toString(Object value) {
+        return value instanceof Long ? HTTPDateFormat.format((Long) value) : String.valueOf(value);
+    }
+}
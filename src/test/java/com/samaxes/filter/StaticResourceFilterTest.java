@@ -0,0 +1,136 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.samaxes.filter.util.FileMetadata;
+import com.samaxes.filter.util.HTTPDateFormat;
+
+/**
+ * Tests the path checks and the parsing of the {@code Range} header by {@link StaticResourceFilter}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class StaticResourceFilterTest {
+
+    private static final long LAST_MODIFIED = 784111777000L;
+
+    private final FileMetadata metadata = new FileMetadata(new File("a.txt"), true, 100L, LAST_MODIFIED,
+            "text/plain", 0L);
+
+    @Test
+    public void servesPlainPaths() {
+        assertEquals("/css/site.css", path("/css/site.css"));
+        assertEquals("/WEB-INF.txt", path("/WEB-INF.txt"));
+        assertEquals("/assets/meta-inf-notes.txt", path("/assets/meta-inf-notes.txt"));
+    }
+
+    @Test
+    public void refusesProtectedDirectories() {
+        assertNull(path("/WEB-INF/web.xml"));
+        assertNull(path("/meta-inf/MANIFEST.MF"));
+        assertNull(path("//WEB-INF/web.xml"));
+        assertNull(path("/lib/../WEB-INF/web.xml"));
+        assertNull(path("/static/WEB-INF/web.xml"));
+        assertNull(path("/WEB-INF./web.xml"));
+        assertNull(path("/WEB-INF /web.xml"));
+        assertNull(path("/web-inf::$DATA/web.xml"));
+        assertNull(path("/index.jsp::$DATA"));
+    }
+
+    @Test
+    public void refusesMalformedPaths() {
+        assertNull(path("/"));
+        assertNull(path("/css/"));
+        assertNull(path("/css//site.css"));
+        assertNull(path("/css/./site.css"));
+        assertNull(path("/css/.."));
+        assertNull(path("/css\\site.css"));
+        assertNull(path("css/site.css"));
+    }
+
+    @Test
+    public void parsesPositions() {
+        assertEquals(42L, StaticResourceFilter.parsePosition("bytes= 42 -", 6, 10));
+        assertEquals(-1L, StaticResourceFilter.parsePosition("bytes= -", 6, 7));
+        assertEquals(-2L, StaticResourceFilter.parsePosition("bytes=4x-", 6, 8));
+        assertEquals(-2L, StaticResourceFilter.parsePosition("bytes=1234567890123456789-", 6, 25));
+    }
+
+    @Test
+    public void singleRanges() {
+        assertArrayEquals(new long[] { 0L, 9L }, range("bytes=0-9"));
+        assertArrayEquals(new long[] { 10L, 99L }, range("BYTES=10-"));
+        assertArrayEquals(new long[] { 50L, 99L }, range("bytes=50-1000"));
+        assertArrayEquals(new long[] { 90L, 99L }, range("bytes=-10"));
+        assertArrayEquals(new long[] { 0L, 99L }, range("bytes=-1000"));
+    }
+
+    @Test
+    public void unsatisfiableRanges() {
+        assertSame(StaticResourceFilter.UNSATISFIABLE, range("bytes=100-"));
+        assertSame(StaticResourceFilter.UNSATISFIABLE, range("bytes=-0"));
+    }
+
+    @Test
+    public void entireFile() {
+        assertNull(range(null));
+        assertNull(range("items=0-9"));
+        assertNull(range("bytes=0-9,20-29"));
+        assertNull(range("bytes=9-0"));
+        assertNull(range("bytes=a-9"));
+        assertNull(range("bytes=-"));
+        assertNull(range("bytes=5"));
+    }
+
+    @Test
+    public void ifRange() {
+        assertArrayEquals(new long[] { 0L, 9L }, range("bytes=0-9", HTTPDateFormat.format(LAST_MODIFIED)));
+        assertNull(range("bytes=0-9", HTTPDateFormat.format(LAST_MODIFIED + 1000L)));
+        assertNull(range("bytes=0-9", "W/\"100-" + LAST_MODIFIED + "\""));
+    }
+
+    private static String path(String path) {
+        return StaticResourceFilter.getPath(new MockHttpServletRequest("GET", path).proxy());
+    }
+
+    private long[] range(String range) {
+        return range(range, null);
+    }
+
+    private long[] range(String range, String ifRange) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a.txt");
+        if (range != null) {
+            request.header("Range", range);
+        }
+        if (ifRange != null) {
+            request.header("If-Range", ifRange);
+        }
+        return StaticResourceFilter.getRange(request.proxy(), metadata);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.samaxes.filter.MockHttpServletRequest;
+
+/**
+ * Tests {@link CacheKeyGenerator}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CacheKeyGeneratorTest {
+
+    private final CacheKeyGenerator encodings = new CacheKeyGenerator("Accept-Encoding", "br, gzip", null);
+
+    private final CacheKeyGenerator languages = new CacheKeyGenerator("Accept-Language", "gzip", "en, fr-CA, de");
+
+    @Test
+    public void keysOnTheVaryHeaders() {
+        CacheKeyGenerator generator = new CacheKeyGenerator(" X-A, x-a,, X-B ");
+        assertEquals("X-A, X-B", generator.getVary());
+        assertTrue(generator.isKeyedOn("x-b"));
+        assertFalse(generator.isKeyedOn("Cookie"));
+        assertEquals("GET /a\nX-A:1,2\nX-B:", generator.generate(new MockHttpServletRequest("GET", "/a")
+                .header("X-A", "1").header("x-a", "2").proxy()));
+        assertNull(new CacheKeyGenerator("X-A, *").generate(new MockHttpServletRequest("GET", "/a").proxy()));
+    }
+
+    @Test
+    public void negotiatesEncodings() {
+        assertEquals("identity", negotiate(encodings, "Accept-Encoding", null));
+        assertEquals("br", negotiate(encodings, "Accept-Encoding", "gzip, deflate, br"));
+        assertEquals("gzip", negotiate(encodings, "Accept-Encoding", "gzip;q=1.0, br;q=0.5"));
+        assertEquals("gzip", negotiate(encodings, "Accept-Encoding", "br;q=0, x-gzip"));
+        assertEquals("gzip", negotiate(encodings, "Accept-Encoding", "br ; Q=0 , *;q=0.1"));
+        assertEquals("br", negotiate(encodings, "Accept-Encoding", "*"));
+        assertEquals("identity", negotiate(encodings, "Accept-Encoding", "deflate, *;q=0"));
+    }
+
+    @Test
+    public void invalidQualitiesRefuseTheOffer() {
+        assertEquals("gzip", negotiate(encodings, "Accept-Encoding", "br;q=2, gzip;q=0.1"));
+        assertEquals("gzip", negotiate(encodings, "Accept-Encoding", "br;q=high, gzip;q=0.1"));
+        assertEquals("br", negotiate(encodings, "Accept-Encoding", "br;level=1, gzip;q=0.9"));
+    }
+
+    @Test
+    public void negotiatesLanguages() {
+        assertEquals("en", negotiate(languages, "Accept-Language", null));
+        assertEquals("fr-CA", negotiate(languages, "Accept-Language", "fr-CA, en;q=0.8"));
+        assertEquals("fr-CA", negotiate(languages, "Accept-Language", "fr"));
+        assertEquals("de", negotiate(languages, "Accept-Language", "de-AT, en;q=0.5"));
+        assertEquals("en", negotiate(languages, "Accept-Language", "it, es;q=0.5"));
+    }
+
+    private static String negotiate(CacheKeyGenerator generator, String header, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a");
+        if (value != null) {
+            request.header(header, value);
+        }
+        String key = generator.generate(request.proxy());
+        return key.substring(key.indexOf(header + ':') + header.length() + 1);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.servlet.ServletException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.samaxes.filter.MockFilterConfig;
+
+/**
+ * Tests {@link CachePolicyTable}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class CachePolicyTableTest {
+
+    private CachePolicy defaultPolicy;
+
+    private CachePolicyTable table;
+
+    @Before
+    public void setUp() throws ServletException {
+        MockFilterConfig filterConfig = new MockFilterConfig("test").param("expiration", "60").param("rules",
+                "# comment\n/img/*  expiration=1\n/img/icons/*  expiration=2\n*.css  expiration=3\n"
+                        + "/index.html  expiration=4\ntext/html  expiration=5\nimage/*  expiration=6\n"
+                        + "image/png  expiration=7");
+        defaultPolicy = CachePolicy.configure(filterConfig);
+        table = CachePolicyTable.compile(filterConfig, defaultPolicy);
+    }
+
+    @Test
+    public void exactPathWins() {
+        assertEquals(4L, table.match("/index.html").getExpiration());
+        assertEquals(4L, table.match("/index.html;jsessionid=1").getExpiration());
+        assertNull(table.match("/index.htm"));
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        assertEquals(1L, table.match("/img/a.png").getExpiration());
+        assertEquals(1L, table.match("/img").getExpiration());
+        assertEquals(2L, table.match("/img/icons/a.css").getExpiration());
+        assertNull(table.match("/imgs/a.png"));
+    }
+
+    @Test
+    public void extensionOfLastSegment() {
+        assertEquals(3L, table.match("/css/site.css").getExpiration());
+        assertEquals(3L, table.match("/css/site.css;v=1").getExpiration());
+        assertNull(table.match("/site.css/index"));
+        assertNull(table.match("/site.cs"));
+        assertSame(defaultPolicy, table.lookup("/other"));
+    }
+
+    @Test
+    public void mediaTypes() {
+        assertEquals(5L, table.lookupMediaType("text/html; charset=UTF-8").getExpiration());
+        assertEquals(5L, table.lookupMediaType("TEXT/HTML").getExpiration());
+        assertEquals(7L, table.lookupMediaType("image/png").getExpiration());
+        assertEquals(6L, table.lookupMediaType("image/jpeg").getExpiration());
+        assertSame(defaultPolicy, table.lookupMediaType("text/plain"));
+        assertSame(defaultPolicy, table.lookupMediaType("text"));
+        assertSame(defaultPolicy, table.lookupMediaType(null));
+    }
+
+    @Test(expected = ServletException.class)
+    public void rejectsInvalidPatterns() throws ServletException {
+        MockFilterConfig filterConfig = new MockFilterConfig("test").param("rules", "/*.min.js  expiration=8");
+        CachePolicyTable.compile(filterConfig, defaultPolicy);
+    }
+}
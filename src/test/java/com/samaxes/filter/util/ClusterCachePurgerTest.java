@@ -0,0 +1,114 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the coalescing of the pending invalidations of {@link ClusterCachePurger}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ClusterCachePurgerTest {
+
+    private final List<List<Invalidation>> batches = new ArrayList<List<Invalidation>>();
+
+    private ClusterCachePurger purger;
+
+    @Before
+    public void setUp() {
+        CachePurger cache = new CachePurger() {
+
+            @Override
+            public int purgePath(String path) {
+                return 0;
+            }
+
+            @Override
+            public int purgePathPrefix(String prefix) {
+                return 0;
+            }
+
+            @Override
+            public int purgeTag(String tag) {
+                return 0;
+            }
+
+            @Override
+            public void purgeAll() {
+                // Nothing is cached
+            }
+        };
+        InvalidationTransport transport = new InvalidationTransport() {
+
+            @Override
+            public void start(String group, Receiver receiver) {
+                // Nothing to join
+            }
+
+            @Override
+            public void send(List<Invalidation> invalidations) {
+                batches.add(invalidations);
+            }
+
+            @Override
+            public void stop() {
+                // Nothing to leave
+            }
+        };
+        // The batch is only sent when the purger stops
+        purger = new ClusterCachePurger(cache, transport, 60000L, null, "test");
+    }
+
+    @Test
+    public void prefixesCoverTheirPaths() {
+        purger.purgePath("/a/1");
+        purger.purgeTag("/a/t");
+        purger.purgePathPrefix("/a/");
+        purger.purgePath("/a/2");
+        purger.purgePathPrefix("/a/b/");
+        purger.purgePath("/b");
+        purger.purgePath("/b");
+        purger.stop();
+
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList(new Invalidation(Invalidation.Type.TAG, "/a/t"), new Invalidation(
+                Invalidation.Type.PATH_PREFIX, "/a/"), new Invalidation(Invalidation.Type.PATH, "/b")), batches.get(0));
+    }
+
+    @Test
+    public void purgeAllCoversEverything() {
+        purger.purgeTag("t");
+        purger.purgeAll();
+        purger.purgePath("/a");
+        purger.purgeTag("u");
+        purger.stop();
+
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList(Invalidation.ALL), batches.get(0));
+    }
+}
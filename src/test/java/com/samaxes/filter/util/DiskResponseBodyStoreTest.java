@@ -0,0 +1,249 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the crash recovery, compaction and locking of {@link DiskResponseBodyStore}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class DiskResponseBodyStoreTest {
+
+    private static final long HOUR = 3600000L;
+
+    /**
+     * Smallest segment size accepted by the filters.
+     */
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    /**
+     * Offset of the record length in a record header, after the magic number and the state.
+     */
+    private static final int RECORD_LENGTH_OFFSET = 5;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<DiskResponseBodyStore> stores = new ArrayList<DiskResponseBodyStore>();
+
+    @After
+    public void tearDown() {
+        for (DiskResponseBodyStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void recoversPersistedResponses() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        store.persist(response(store, "/a", "first", now));
+        store.persist(response(store, "/b", "second", now));
+        store.persist(response(store, "/expired", "third", now - 2L * HOUR));
+        store.close();
+
+        ResponseCache cache = recover();
+        assertBody("first", cache.get("/a", now));
+        assertBody("second", cache.get("/b", now));
+        assertNull(cache.get("/expired", now));
+        assertEquals(2, cache.getCount());
+    }
+
+    @Test
+    public void keepsNewerResponses() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        store.persist(response(store, "/a", "old", now - 1000L));
+        store.close();
+
+        DiskResponseBodyStore next = open();
+        ResponseCache cache = new ResponseCache(next);
+        CachedResponse newer = response(next, "/a", "new", now);
+        next.persist(newer);
+        cache.put(newer);
+        next.recover(cache);
+        next.awaitRecovery();
+
+        assertBody("new", cache.get("/a", now));
+        assertEquals(1, cache.getCount());
+    }
+
+    @Test
+    public void stopsAtASegmentTruncatedMidRecord() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        store.persist(response(store, "/a", "first", now));
+        store.persist(response(store, "/b", "second", now));
+        store.close();
+
+        File segment = getSegment(1L);
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            int first = recordLength(file, 0L);
+            file.setLength(first + recordLength(file, first) / 2);
+        } finally {
+            file.close();
+        }
+
+        ResponseCache cache = recover();
+        assertBody("first", cache.get("/a", now));
+        assertNull(cache.get("/b", now));
+    }
+
+    @Test
+    public void stopsAtATornRecord() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        store.persist(response(store, "/a", "first", now));
+        store.persist(response(store, "/b", "second", now));
+        store.persist(response(store, "/c", "third", now));
+        store.close();
+
+        // A crash before the commit of the second record leaves it without its magic number
+        RandomAccessFile file = new RandomAccessFile(getSegment(1L), "rw");
+        try {
+            file.seek(recordLength(file, 0L));
+            file.writeInt(0);
+        } finally {
+            file.close();
+        }
+
+        ResponseCache cache = recover();
+        assertBody("first", cache.get("/a", now));
+        assertNull(cache.get("/b", now));
+        assertNull(cache.get("/c", now));
+    }
+
+    @Test
+    public void skipsDeadRecords() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        CachedResponse first = response(store, "/a", "first", now);
+        store.persist(first);
+        store.persist(response(store, "/b", "second", now));
+        first.release();
+        store.close();
+
+        ResponseCache cache = recover();
+        assertNull(cache.get("/a", now));
+        assertBody("second", cache.get("/b", now));
+    }
+
+    @Test
+    public void compactsWhileAReaderHoldsABody() throws IOException {
+        DiskResponseBodyStore store = open();
+        long now = System.currentTimeMillis();
+        String large = new String(new char[SEGMENT_SIZE / 3]).replace('\0', 'a');
+        CachedResponse kept = response(store, "/kept", large, now);
+        CachedResponse dropped = response(store, "/dropped", large, now);
+        store.persist(kept);
+        store.persist(dropped);
+        // Starts the second segment
+        store.persist(response(store, "/next", large, now));
+        assertEquals(2, store.getSegmentCount());
+
+        kept.retain();
+        dropped.release();
+        store.compact();
+
+        // The live record moved to the second segment, and the first one was deleted
+        assertEquals(1, store.getSegmentCount());
+        assertNull(getSegment(1L));
+        assertBody(large, kept);
+        kept.release();
+        store.close();
+
+        ResponseCache cache = recover();
+        assertBody(large, cache.get("/kept", now));
+        assertBody(large, cache.get("/next", now));
+        assertNull(cache.get("/dropped", now));
+    }
+
+    @Test
+    public void locksItsDirectory() throws IOException {
+        open();
+        try {
+            new DiskResponseBodyStore(folder.getRoot(), 1024L * 1024L, SEGMENT_SIZE);
+            fail("The directory is used by another store.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private DiskResponseBodyStore open() throws IOException {
+        DiskResponseBodyStore store = new DiskResponseBodyStore(folder.getRoot(), 1024L * 1024L, SEGMENT_SIZE);
+        stores.add(store);
+        return store;
+    }
+
+    private ResponseCache recover() throws IOException {
+        DiskResponseBodyStore store = open();
+        ResponseCache cache = new ResponseCache(store);
+        store.recover(cache);
+        store.awaitRecovery();
+        return cache;
+    }
+
+    private File getSegment(long sequence) {
+        File segment = new File(folder.getRoot(), String.format("%020d.segment", sequence));
+        return segment.exists() ? segment : null;
+    }
+
+    private static int recordLength(RandomAccessFile file, long offset) throws IOException {
+        file.seek(offset + RECORD_LENGTH_OFFSET);
+        return file.readInt();
+    }
+
+    private static CachedResponse response(DiskResponseBodyStore store, String key, String content, long created)
+            throws IOException {
+        byte[] bytes = content.getBytes("UTF-8");
+        ResponseBody body = store.allocate(bytes.length);
+        body.getOutputStream().write(bytes);
+        return new CachedResponse(key, key, new String[] { "tag" }, 200, "text/plain",
+                new String[] { "Cache-Control", "public" }, body, created, created + HOUR);
+    }
+
+    private static void assertBody(String content, CachedResponse response) throws IOException {
+        assertNotNull(response);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertArrayEquals(content.getBytes("UTF-8"), out.toByteArray());
+        assertEquals(Arrays.asList("tag"), Arrays.asList(response.getTags()));
+    }
+}
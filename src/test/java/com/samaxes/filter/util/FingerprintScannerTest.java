@@ -0,0 +1,69 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link FingerprintScanner}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class FingerprintScannerTest {
+
+    @Test
+    public void findsFingerprints() {
+        assertTrue(FingerprintScanner.isFingerprinted("/js/app.3f9a2c.js"));
+        assertTrue(FingerprintScanner.isFingerprinted("/js/app-8e1c40b2.js"));
+        assertTrue(FingerprintScanner.isFingerprinted("/css/site_AB12CD.min.css"));
+        assertTrue(FingerprintScanner.isFingerprinted("/css/3f9a2c.css;jsessionid=1"));
+        assertTrue(FingerprintScanner.isFingerprinted("/fonts/icons-3f9a2c.WOFF2"));
+    }
+
+    @Test
+    public void ignoresOtherTokens() {
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.abcdef.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.123456.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.3f9a2.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.3f9a2g.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app3f9a2c.js"));
+    }
+
+    @Test
+    public void onlyScansTheLastSegmentWithoutExtension() {
+        assertFalse(FingerprintScanner.isFingerprinted("/3f9a2c/app.js"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.3f9a2c"));
+        assertFalse(FingerprintScanner.isFingerprinted("/js/app.js;v=3f9a2c"));
+        assertFalse(FingerprintScanner.isFingerprinted(""));
+    }
+
+    @Test
+    public void requiresTheExtensionOfAStaticAsset() {
+        assertFalse(FingerprintScanner.isFingerprinted("/fonts/3f9a2c"));
+        assertFalse(FingerprintScanner.isFingerprinted("/api/users/507f1f77bcf86cd799439011"));
+        assertFalse(FingerprintScanner.isFingerprinted("/orders/3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+        assertFalse(FingerprintScanner.isFingerprinted("/api/users/507f1f77bcf86cd799439011.json"));
+        assertFalse(FingerprintScanner.isFingerprinted("/reports/3f9a2c.html"));
+    }
+}
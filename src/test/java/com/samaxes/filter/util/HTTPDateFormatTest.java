@@ -0,0 +1,45 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HTTPDateFormat}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class HTTPDateFormatTest {
+
+    @Test
+    public void parsesFormattedDates() {
+        assertEquals(784111777000L, HTTPDateFormat.parse("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(784111777000L, HTTPDateFormat.parse(HTTPDateFormat.format(784111777000L)));
+    }
+
+    @Test
+    public void rejectsOtherValues() {
+        assertEquals(-1L, HTTPDateFormat.parse(null));
+        assertEquals(-1L, HTTPDateFormat.parse("yesterday"));
+        assertEquals(-1L, HTTPDateFormat.parse("Sun, 06 Nov 1994 08:49:37 GMT trailing"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link HeaderNameSet}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class HeaderNameSetTest {
+
+    @Test
+    public void containsNamesIgnoringCase() {
+        HeaderNameSet set = new HeaderNameSet("ETag", "Last-Modified", "X-A");
+        assertTrue(set.contains("etag"));
+        assertTrue(set.contains("LAST-MODIFIED"));
+        assertTrue(set.contains("x-a"));
+        assertFalse(set.contains("E-Tag"));
+        assertFalse(set.contains("Etags"));
+        assertFalse(set.contains("X-B"));
+        assertFalse(set.contains(""));
+        assertFalse(set.contains(null));
+    }
+
+    @Test
+    public void collidingNamesAreKept() {
+        // Same length and first and last characters
+        HeaderNameSet set = new HeaderNameSet("X-Aaa-Z", "X-Bbb-Z", "x-aaa-z");
+        assertArrayEquals(new String[] { "X-Aaa-Z", "X-Bbb-Z" }, set.getNames());
+        assertTrue(set.contains("X-AAA-Z"));
+        assertTrue(set.contains("x-bbb-z"));
+        assertFalse(set.contains("X-Ccc-Z"));
+    }
+
+    @Test
+    public void longNames() {
+        String name = "X-A-Header-Name-Longer-Than-Sixty-Three-Characters-For-The-Length-Bits";
+        HeaderNameSet set = new HeaderNameSet(name);
+        assertTrue(set.contains(name.toUpperCase(Locale.ENGLISH)));
+        assertFalse(set.contains(name + "-Too"));
+    }
+
+    @Test
+    public void parsesLists() {
+        HeaderNameSet set = HeaderNameSet.parse(" ETag , ,Vary,");
+        assertArrayEquals(new String[] { "ETag", "Vary" }, set.getNames());
+        assertTrue(HeaderNameSet.parse(null).isEmpty());
+        assertFalse(HeaderNameSet.parse(null).contains("ETag"));
+    }
+}
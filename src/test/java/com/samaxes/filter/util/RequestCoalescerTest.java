@@ -0,0 +1,120 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the hand-off of a response between coalesced requests by {@link RequestCoalescer}.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void onlyTheFirstRequestClaims() {
+        RequestCoalescer.Flight flight = coalescer.join("/a");
+        assertSame(flight, coalescer.join("/a"));
+        assertNotSame(flight, coalescer.join("/b"));
+        assertTrue(flight.claim());
+        assertFalse(coalescer.join("/a").claim());
+    }
+
+    @Test
+    public void handsTheResponseOffToTheWaitingRequests() throws Exception {
+        final RequestCoalescer.Flight flight = coalescer.join("/a");
+        assertTrue(flight.claim());
+        Future<CachedResponse> waiter = executor.submit(new Callable<CachedResponse>() {
+
+            @Override
+            public CachedResponse call() {
+                return coalescer.join("/a").await(10000L);
+            }
+        });
+        while (!flight.hasWaiters()) {
+            Thread.sleep(1L);
+        }
+
+        CachedResponse response = new CachedResponse("/a", "/a", new String[0], 200, "text/plain", new String[0],
+                new HeapResponseBodyStore(16L).allocate(0), 0L, 0L);
+        coalescer.complete(flight, response);
+        assertSame(response, waiter.get(10L, TimeUnit.SECONDS));
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void waitingRequestsTimeOut() {
+        RequestCoalescer.Flight flight = coalescer.join("/a");
+        assertTrue(flight.claim());
+
+        long start = System.nanoTime();
+        assertNull(coalescer.join("/a").await(50L));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50L));
+        // The claiming request still owns the key
+        assertEquals(1, coalescer.getInFlightCount());
+        assertFalse(coalescer.join("/a").claim());
+    }
+
+    @Test
+    public void completedFlightsAreReplaced() {
+        RequestCoalescer.Flight flight = coalescer.join("/a");
+        assertTrue(flight.claim());
+        coalescer.complete(flight, null);
+
+        // A request arriving later gets no response and must not wait: it runs the chain itself
+        assertNull(flight.await(10000L));
+        RequestCoalescer.Flight next = coalescer.join("/a");
+        assertNotSame(flight, next);
+        assertTrue(next.claim());
+    }
+
+    @Test
+    public void countsTheWaitingRequests() {
+        RequestCoalescer.Flight flight = coalescer.join("/a");
+        assertTrue(flight.claim());
+        assertFalse(flight.hasWaiters());
+
+        coalescer.join("/a").await(1L);
+        assertTrue(flight.hasWaiters());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Java EE Cache Filter
+ * https://github.com/samaxes/javaee-cache-filter
+ *
+ * Copyright 2026 samaxes.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.samaxes.filter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ResponseCache}, and its purge records refusing the responses of the requests in flight during a purge.
+ *
+ * @author Samuel Santos
+ * @version 2.3.2
+ */
+public class ResponseCacheTest {
+
+    private static final long HOUR = 3600000L;
+
+    private final ResponseCache cache = new ResponseCache(new HeapResponseBodyStore(1024L * 1024L));
+
+    @Test
+    public void storesResponsesGeneratedAfterAPurge() {
+        cache.removePath("/a.html");
+        long now = System.currentTimeMillis();
+        assertTrue(cache.put(response("/a.html", now + 1000L, "news")));
+        assertNotNull(cache.get("/a.html", now));
+    }
+
+    @Test
+    public void refusesResponsesGeneratedBeforeAPathPurge() {
+        long created = System.currentTimeMillis() - 1000L;
+        cache.removePath("/a.html");
+        assertFalse(cache.put(response("/a.html", created)));
+        assertTrue(cache.put(response("/b.html", created)));
+        assertEquals(1, cache.getCount());
+    }
+
+    @Test
+    public void refusesResponsesGeneratedBeforeAPrefixPurge() {
+        long created = System.currentTimeMillis() - 1000L;
+        cache.removePathPrefix("/img/");
+        assertFalse(cache.put(response("/img/logo.png", created)));
+        assertTrue(cache.put(response("/css/site.css", created)));
+    }
+
+    @Test
+    public void refusesResponsesGeneratedBeforeATagPurge() {
+        long created = System.currentTimeMillis() - 1000L;
+        cache.removeTag("news");
+        assertFalse(cache.put(response("/a.html", created, "sport", "news")));
+        assertTrue(cache.put(response("/b.html", created, "sport")));
+    }
+
+    @Test
+    public void refusesResponsesGeneratedBeforeAClear() {
+        long created = System.currentTimeMillis() - 1000L;
+        cache.clear();
+        assertFalse(cache.put(response("/a.html", created)));
+        assertFalse(cache.putIfNewer(response("/b.html", created)));
+        assertEquals(0, cache.getCount());
+    }
+
+    @Test
+    public void foldsTheOldestPurges() {
+        long created = System.currentTimeMillis() - 1000L;
+        for (int i = 0; i <= 1024; i++) {
+            cache.removePath("/" + i + ".html");
+        }
+        // The first purge is forgotten, and every response generated before it is refused instead
+        assertFalse(cache.put(response("/other.html", created)));
+    }
+
+    @Test
+    public void releasesRefusedResponses() {
+        long created = System.currentTimeMillis() - 1000L;
+        cache.removePath("/a.html");
+        CountingBody body = new CountingBody();
+        assertFalse(cache.put(new CachedResponse("/a.html", "/a.html", new String[0], 200, "text/html",
+                new String[0], body, created, created + HOUR)));
+        assertEquals(-1, body.references);
+    }
+
+    @Test
+    public void dropsExpiredResponses() {
+        long now = System.currentTimeMillis();
+        assertTrue(cache.put(response("/a.html", now - 2L * HOUR)));
+        assertNull(cache.get("/a.html", now));
+        assertEquals(0, cache.getCount());
+    }
+
+    @Test
+    public void evictsTheEntriesNotReadFirst() {
+        ResponseCache small = new ResponseCache(new HeapResponseBodyStore(8L));
+        long now = System.currentTimeMillis();
+        assertTrue(small.put(response("/a.html", now)));
+        assertTrue(small.put(response("/b.html", now)));
+        small.get("/a.html", now).release();
+
+        assertTrue(small.put(response("/c.html", now)));
+        assertNotNull(small.get("/a.html", now));
+        assertNull(small.get("/b.html", now));
+        assertNotNull(small.get("/c.html", now));
+        assertEquals(8L, small.getSize());
+    }
+
+    @Test
+    public void neverEvictsTheStoredResponse() {
+        ResponseCache small = new ResponseCache(new HeapResponseBodyStore(8L));
+        long now = System.currentTimeMillis();
+        assertTrue(small.put(response("/a.html", now)));
+        assertTrue(small.put(response("/b.html", now)));
+        small.get("/a.html", now).release();
+        small.get("/b.html", now).release();
+
+        assertTrue(small.put(response("/c.html", now)));
+        assertNull(small.get("/a.html", now));
+        assertNotNull(small.get("/c.html", now));
+        assertEquals(2, small.getCount());
+    }
+
+    private static CachedResponse response(String path, long created, String... tags) {
+        ResponseBody body = new HeapResponseBodyStore(16L).allocate(4);
+        return new CachedResponse(path, path, tags, 200, "text/html", new String[0], body, created, created + HOUR);
+    }
+
+    /**
+     * Body counting the references acquired and released.
+     */
+    private static final class CountingBody implements ResponseBody {
+
+        private int references;
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
+        @Override
+        public long getWeight() {
+            return 0L;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) {
+        }
+
+        @Override
+        public void retain() {
+            references++;
+        }
+
+        @Override
+        public void release() {
+            references--;
+        }
+    }
+}